@@ -99,6 +99,22 @@ public final class ConfigurationProperties
      */
     public static final int DEFAULT_REQUEST_TIMEOUT = 1800 * 1000;
 
+    /**
+     * The maximum number of connections that a repository connector may have open to the same remote server at the same
+     * time. Transporters size their connection pools accordingly, connectors bound the number of concurrent requests
+     * they issue by it. Besides this general key, clients may also specify the limit for a specific remote repository by
+     * appending the suffix {@code .<repoId>} to this key.
+     * 
+     * @see #DEFAULT_CONNECTIONS_PER_ROUTE
+     */
+    public static final String CONNECTIONS_PER_ROUTE = PREFIX_CONNECTOR + "connectionsPerRoute";
+
+    /**
+     * The default number of connections per route to use if {@link #CONNECTIONS_PER_ROUTE} isn't set. Connectors and
+     * transporters raise it to the number of requests the connector is configured to have in flight concurrently.
+     */
+    public static final int DEFAULT_CONNECTIONS_PER_ROUTE = 50;
+
     /**
      * The request headers to use for HTTP-based repository connectors. The headers are specified using a
      * {@code Map<String, String>}, mapping a header name to its value. Besides this general key, clients may also
@@ -59,7 +59,10 @@ public interface RepositoryListener
     /**
      * Notifies the listener of an artifact that is about to be resolved. {@link RepositoryEvent#getArtifact()} denotes
      * the artifact in question. Unlike the {@link #artifactDownloading(RepositoryEvent)} event, this event is fired
-     * regardless whether the artifact already exists locally or not.
+     * regardless whether the artifact already exists locally or not. When several artifacts are resolved at once, the
+     * events of different artifacts can be interleaved, e.g. this event might be fired for all artifacts before the
+     * first {@link #artifactResolved(RepositoryEvent)} event, but it always precedes the latter event for the same
+     * artifact.
      * 
      * @param event The event details, must not be {@code null}.
      */
@@ -142,7 +145,8 @@ public interface RepositoryListener
 
     /**
      * Notifies the listener of an artifact that is about to be installed to the local repository.
-     * {@link RepositoryEvent#getArtifact()} denotes the artifact in question.
+     * {@link RepositoryEvent#getArtifact()} denotes the artifact in question. When several artifacts are installed at
+     * once, the events of different artifacts can be interleaved like for {@link #artifactResolving(RepositoryEvent)}.
      * 
      * @param event The event details, must not be {@code null}.
      */
@@ -172,7 +172,8 @@ public final class TransferEvent
      * immutable snapshot of its contents.
      * 
      * @return The (read-only) byte buffer or {@code null} if not applicable to the event, i.e. if the event type is not
-     *         {@link EventType#PROGRESSED}.
+     *         {@link EventType#PROGRESSED} or the bytes were copied between local files without passing through the
+     *         Java heap, {@link #getTransferredBytes()} then still reflects the progress.
      */
     public ByteBuffer getDataBuffer()
     {
@@ -183,6 +184,7 @@ public final class TransferEvent
      * Gets the number of bytes that have been transferred since the last event.
      * 
      * @return The number of bytes that have been transferred since the last event, possibly zero but never negative.
+     *         Zero as well if the event carries no {@link #getDataBuffer() data buffer}.
      * @see #getTransferredBytes()
      */
     public int getDataLength()
@@ -13,10 +13,12 @@ package org.eclipse.aether.connector.basic;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
@@ -64,12 +66,20 @@ final class BasicRepositoryConnector
 
     private static final String CONFIG_PROP_THREADS = "aether.connector.basic.threads";
 
+    private static final String CONFIG_PROP_LIGHT_THREADS = "aether.connector.basic.lightThreads";
+
+    private static final String CONFIG_PROP_SMALL_FILE_EXTENSIONS = "aether.connector.basic.smallFileExtensions";
+
+    private static final String DEFAULT_SMALL_FILE_EXTENSIONS = "pom,xml,sha1,md5,asc,properties,txt,json,module";
+
     private static final String CONFIG_PROP_RESUME = "aether.connector.resumeDownloads";
 
     private static final String CONFIG_PROP_RESUME_THRESHOLD = "aether.connector.resumeThreshold";
 
     private static final String CONFIG_PROP_SMART_CHECKSUMS = "aether.connector.smartChecksums";
 
+    private static final String CONFIG_PROP_CONDITIONAL_METADATA = "aether.connector.conditionalMetadata";
+
     private final Logger logger;
 
     private final FileProcessor fileProcessor;
@@ -86,14 +96,26 @@ final class BasicRepositoryConnector
 
     private final PartialFile.Factory partialFileFactory;
 
+    private final PeekCache peekCache;
+
+    private final String peekKey;
+
+    private final ValidatorStore validatorStore;
+
     private final int maxThreads;
 
+    private final int maxLightThreads;
+
+    private final Set<String> smallFileExtensions;
+
     private final boolean smartChecksums;
 
     private final boolean persistedChecksums;
 
     private Executor executor;
 
+    private Executor lightExecutor;
+
     private boolean closed;
 
     public BasicRepositoryConnector( RepositorySystemSession session, RemoteRepository repository,
@@ -122,10 +144,23 @@ final class BasicRepositoryConnector
 
         this.session = session;
         this.repository = repository;
-        this.fileProcessor = fileProcessor;
+        this.fileProcessor = fileProcessor.forSession( session );
         this.logger = logger;
 
         maxThreads = ConfigUtils.getInteger( session, 5, CONFIG_PROP_THREADS, "maven.artifact.threads" );
+        maxLightThreads = getMaxLightThreads( session, repository, maxThreads );
+        String extensions =
+            ConfigUtils.getString( session, DEFAULT_SMALL_FILE_EXTENSIONS, CONFIG_PROP_SMALL_FILE_EXTENSIONS + '.'
+                + repository.getId(), CONFIG_PROP_SMALL_FILE_EXTENSIONS );
+        smallFileExtensions = new HashSet<String>();
+        for ( String extension : extensions.split( "," ) )
+        {
+            extension = extension.trim().toLowerCase( Locale.ENGLISH );
+            if ( extension.length() > 0 )
+            {
+                smallFileExtensions.add( extension );
+            }
+        }
         smartChecksums = ConfigUtils.getBoolean( session, true, CONFIG_PROP_SMART_CHECKSUMS );
         persistedChecksums =
             ConfigUtils.getBoolean( session, ConfigurationProperties.DEFAULT_PERSISTED_CHECKSUMS,
@@ -141,6 +176,31 @@ final class BasicRepositoryConnector
                                     ConfigurationProperties.REQUEST_TIMEOUT + '.' + repository.getId(),
                                     ConfigurationProperties.REQUEST_TIMEOUT );
         partialFileFactory = new PartialFile.Factory( resumeDownloads, resumeThreshold, requestTimeout, logger );
+        peekCache = PeekCache.get( session );
+        peekKey = ( peekCache != null ) ? PeekCache.getRepositoryKey( session, repository ) : null;
+        boolean conditionalMetadata =
+            ConfigUtils.getBoolean( session, true, CONFIG_PROP_CONDITIONAL_METADATA + '.' + repository.getId(),
+                                    CONFIG_PROP_CONDITIONAL_METADATA );
+        validatorStore = conditionalMetadata ? new ValidatorStore( fileProcessor, logger ) : null;
+    }
+
+    /*
+     * NOTE: The light-weight requests are meant to overlap their round trips on the transport's pooled connections, so
+     * together with the download threads they must not ask for more connections than the transport keeps per route.
+     * Unless that limit is explicitly configured, transports size their pools to fit both thread pools.
+     */
+    private static int getMaxLightThreads( RepositorySystemSession session, RemoteRepository repository,
+                                           int maxThreads )
+    {
+        int threads =
+            ConfigUtils.getInteger( session, ( maxThreads > 1 ) ? maxThreads * 4 : 1, CONFIG_PROP_LIGHT_THREADS + '.'
+                + repository.getId(), CONFIG_PROP_LIGHT_THREADS );
+        int connections = Math.max( ConfigurationProperties.DEFAULT_CONNECTIONS_PER_ROUTE, maxThreads + threads );
+        connections =
+            ConfigUtils.getInteger( session, connections,
+                                    ConfigurationProperties.CONNECTIONS_PER_ROUTE + '.' + repository.getId(),
+                                    ConfigurationProperties.CONNECTIONS_PER_ROUTE );
+        return Math.max( 1, Math.min( threads, connections - Math.max( 1, maxThreads ) ) );
     }
 
     private Executor getExecutor( Collection<?> artifacts, Collection<?> metadatas )
@@ -156,15 +216,52 @@ final class BasicRepositoryConnector
         }
         if ( executor == null )
         {
-            executor =
-                new ThreadPoolExecutor( maxThreads, maxThreads, 3, TimeUnit.SECONDS,
-                                        new LinkedBlockingQueue<Runnable>(),
-                                        new WorkerThreadFactory( getClass().getSimpleName() + '-'
-                                            + repository.getHost() + '-' ) );
+            executor = newExecutor( maxThreads, "" );
         }
         return executor;
     }
 
+    private Executor getLightExecutor( Collection<?> artifacts, Collection<?> metadatas )
+    {
+        if ( maxLightThreads <= 1 )
+        {
+            // a single light thread would serialize the light requests ahead of the downloads, better share the pool
+            return getExecutor( artifacts, metadatas );
+        }
+        int tasks = safe( artifacts ).size() + safe( metadatas ).size();
+        if ( tasks <= 1 )
+        {
+            return DirectExecutor.INSTANCE;
+        }
+        if ( lightExecutor == null )
+        {
+            lightExecutor = newExecutor( maxLightThreads, "light-" );
+        }
+        return lightExecutor;
+    }
+
+    private boolean isSmallFile( URI location )
+    {
+        String path = location.getPath();
+        if ( path == null )
+        {
+            return false;
+        }
+        int dot = path.lastIndexOf( '.' );
+        if ( dot < 0 || dot < path.lastIndexOf( '/' ) )
+        {
+            return false;
+        }
+        return smallFileExtensions.contains( path.substring( dot + 1 ).toLowerCase( Locale.ENGLISH ) );
+    }
+
+    private Executor newExecutor( int threads, String namePrefix )
+    {
+        return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                       new WorkerThreadFactory( getClass().getSimpleName() + '-' + namePrefix
+                                           + repository.getHost() + '-' ) );
+    }
+
     @Override
     protected void finalize()
         throws Throwable
@@ -188,6 +285,10 @@ final class BasicRepositoryConnector
             {
                 ( (ExecutorService) executor ).shutdown();
             }
+            if ( lightExecutor instanceof ExecutorService )
+            {
+                ( (ExecutorService) lightExecutor ).shutdown();
+            }
             transporter.close();
         }
     }
@@ -200,9 +301,11 @@ final class BasicRepositoryConnector
             throw new IllegalStateException( "connector closed" );
         }
 
-        Executor executor = getExecutor( artifactDownloads, metadataDownloads );
         RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
 
+        List<Runnable> lights = new ArrayList<Runnable>();
+        List<Runnable> gets = new ArrayList<Runnable>();
+
         for ( MetadataDownload transfer : safe( metadataDownloads ) )
         {
             URI location = layout.getLocation( transfer.getMetadata(), false );
@@ -218,8 +321,8 @@ final class BasicRepositoryConnector
                 checksums = layout.getChecksums( transfer.getMetadata(), false, location );
             }
 
-            Runnable task = new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, listener );
-            executor.execute( errorForwarder.wrap( task ) );
+            lights.add( new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, validatorStore,
+                                           listener ) );
         }
 
         for ( ArtifactDownload transfer : safe( artifactDownloads ) )
@@ -230,10 +333,9 @@ final class BasicRepositoryConnector
             TransferEvent.Builder builder = newEventBuilder( resource, false, transfer.isExistenceCheck() );
             ArtifactTransportListener listener = new ArtifactTransportListener( transfer, repository, builder );
 
-            Runnable task;
             if ( transfer.isExistenceCheck() )
             {
-                task = new PeekTaskRunner( location, listener );
+                lights.add( new PeekTaskRunner( location, listener ) );
             }
             else
             {
@@ -244,8 +346,33 @@ final class BasicRepositoryConnector
                     checksums = layout.getChecksums( transfer.getArtifact(), false, location );
                 }
 
-                task = new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, listener );
+                Runnable task =
+                    new GetTaskRunner( location, transfer.getFile(), checksumPolicy, checksums, null, listener );
+                if ( isSmallFile( location ) )
+                {
+                    lights.add( task );
+                }
+                else
+                {
+                    gets.add( task );
+                }
             }
+        }
+
+        /*
+         * NOTE: Existence checks and downloads of small files like POMs, metadata and signatures are dominated by the
+         * round trip rather than the payload, so they are run by a separate and larger pool. They thus get many
+         * requests in flight over the kept-alive connections without queueing up behind large downloads, which keep
+         * the download threads (and their connections) to themselves.
+         */
+        Executor lightExecutor = getLightExecutor( artifactDownloads, metadataDownloads );
+        for ( Runnable task : lights )
+        {
+            lightExecutor.execute( errorForwarder.wrap( task ) );
+        }
+        Executor executor = getExecutor( artifactDownloads, metadataDownloads );
+        for ( Runnable task : gets )
+        {
             executor.execute( errorForwarder.wrap( task ) );
         }
 
@@ -373,7 +500,15 @@ final class BasicRepositoryConnector
         protected void runTask()
             throws Exception
         {
+            if ( peekCache != null && peekCache.isExisting( peekKey, path ) )
+            {
+                return;
+            }
             transporter.peek( new PeekTask( path ) );
+            if ( peekCache != null )
+            {
+                peekCache.setExisting( peekKey, path );
+            }
         }
 
     }
@@ -387,11 +522,15 @@ final class BasicRepositoryConnector
 
         private final ChecksumValidator checksumValidator;
 
+        private final ValidatorStore validatorStore;
+
         public GetTaskRunner( URI path, File file, ChecksumPolicy checksumPolicy,
-                              List<RepositoryLayout.Checksum> checksums, TransferTransportListener<?> listener )
+                              List<RepositoryLayout.Checksum> checksums, ValidatorStore validatorStore,
+                              TransferTransportListener<?> listener )
         {
             super( path, listener );
             this.file = file;
+            this.validatorStore = validatorStore;
             checksumValidator =
                 new ChecksumValidator( logger, file, fileProcessor, this, checksumPolicy, safe( checksums ) );
         }
@@ -436,15 +575,30 @@ final class BasicRepositoryConnector
                 return;
             }
 
+            Map<String, String> validators = null;
+            if ( validatorStore != null )
+            {
+                validators = validatorStore.read( file );
+            }
+
+            ChecksumCalculator checksumCalculator = null;
             try
             {
                 File tmp = partFile.getFile();
-                listener.setChecksumCalculator( checksumValidator.newChecksumCalculator( tmp ) );
+                checksumCalculator = checksumValidator.newChecksumCalculator( tmp );
+                listener.setChecksumCalculator( checksumCalculator );
                 for ( int firstTrial = 0, lastTrial = 1, trial = firstTrial;; trial++ )
                 {
                     boolean resume = partFile.isResume() && trial <= firstTrial;
                     GetTask task = new GetTask( path ).setDataFile( tmp, resume ).setListener( listener );
+                    task.setValidators( validators );
                     transporter.get( task );
+                    if ( task.isNotModified() )
+                    {
+                        logger.debug( "Remote resource " + path + " not modified, keeping " + file );
+                        return;
+                    }
+                    validators = task.getValidators();
                     try
                     {
                         checksumValidator.validate( listener.getChecksums(), smartChecksums ? task.getChecksums()
@@ -474,9 +628,17 @@ final class BasicRepositoryConnector
                 {
                     checksumValidator.commit();
                 }
+                if ( validatorStore != null )
+                {
+                    validatorStore.write( file, validators );
+                }
             }
             finally
             {
+                if ( checksumCalculator != null && partFile.isResume() )
+                {
+                    checksumCalculator.checkpoint();
+                }
                 partFile.close();
                 checksumValidator.close();
             }
@@ -10,9 +10,15 @@
  *******************************************************************************/
 package org.eclipse.aether.connector.basic;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -25,14 +31,21 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.aether.spi.connector.layout.RepositoryLayout;
+import org.eclipse.aether.spi.io.BufferPool;
 import org.eclipse.aether.util.ChecksumUtils;
 
 /**
- * Calculates checksums for a downloaded file.
+ * Calculates checksums for a downloaded file. When a download is interrupted, the digest state can be checkpointed
+ * into a file next to the partial file such that a later resume of the same partial file, even by another process,
+ * only needs to hash the bytes written after the checkpoint instead of re-reading the entire file.
  */
 final class ChecksumCalculator
 {
 
+    static final String EXT_CHECKPOINT = ".digest";
+
+    private static final int CHECKPOINT_MAGIC = 0x41434b31;
+
     static class Checksum
     {
         final String algorithm;
@@ -44,14 +57,17 @@ final class ChecksumCalculator
         public Checksum( String algorithm )
         {
             this.algorithm = algorithm;
-            MessageDigest digest = null;
-            try
+            MessageDigest digest = ResumableDigest.newInstance( algorithm );
+            if ( digest == null )
             {
-                digest = MessageDigest.getInstance( algorithm );
-            }
-            catch ( NoSuchAlgorithmException e )
-            {
-                error = e;
+                try
+                {
+                    digest = MessageDigest.getInstance( algorithm );
+                }
+                catch ( NoSuchAlgorithmException e )
+                {
+                    error = e;
+                }
             }
             this.digest = digest;
         }
@@ -73,6 +89,16 @@ final class ChecksumCalculator
             }
         }
 
+        public boolean restore( byte[] state )
+        {
+            if ( !( digest instanceof ResumableDigest ) || !( (ResumableDigest) digest ).setState( state ) )
+            {
+                return false;
+            }
+            error = null;
+            return true;
+        }
+
         public void error( Exception error )
         {
             if ( digest != null )
@@ -96,6 +122,8 @@ final class ChecksumCalculator
 
     private final File targetFile;
 
+    private long offset;
+
     public static ChecksumCalculator newInstance( File targetFile, Collection<RepositoryLayout.Checksum> checksums )
     {
         if ( checksums == null || checksums.isEmpty() )
@@ -126,44 +154,71 @@ final class ChecksumCalculator
         {
             checksum.reset();
         }
-        if ( dataOffset <= 0 )
+        offset = 0;
+        long start = restore( dataOffset );
+        if ( dataOffset > 0 )
         {
-            return;
+            read( start, dataOffset );
         }
+    }
+
+    /**
+     * Hashes the specified region of the target file, for data that was written to the file without passing through
+     * this calculator. The region has to start at the current offset of the calculator.
+     */
+    public void update( long dataOffset, long dataLength )
+    {
+        if ( offset >= 0 && offset != dataOffset )
+        {
+            error( new IOException( "Cannot hash " + targetFile + " from offset " + dataOffset + ", expected offset "
+                + offset ) );
+        }
+        if ( offset >= 0 )
+        {
+            read( dataOffset, dataOffset + dataLength );
+        }
+    }
+
+    private void read( long start, long end )
+    {
         try
         {
-            FileInputStream fis = new FileInputStream( targetFile );
+            RandomAccessFile raf = new RandomAccessFile( targetFile, "r" );
             try
             {
-                long total = 0;
-                ByteBuffer buffer = ByteBuffer.allocate( 1024 * 32 );
-                for ( byte[] array = buffer.array(); total < dataOffset; )
+                raf.seek( start );
+                long total = start;
+                ByteBuffer buffer = BufferPool.acquire( end - start );
+                try
                 {
-                    int read = fis.read( array );
-                    if ( read < 0 )
+                    for ( byte[] array = buffer.array(); total < end; )
                     {
-                        if ( total < dataOffset )
+                        int read = raf.read( array );
+                        if ( read < 0 )
                         {
-                            throw new IOException( targetFile + " contains only " + total
-                                + " bytes, cannot resume download from offset " + dataOffset );
+                            throw new IOException( targetFile + " contains only " + total + " bytes, cannot hash "
+                                + end + " bytes" );
                         }
-                        break;
-                    }
-                    total += read;
-                    if ( total > dataOffset )
-                    {
-                        read -= total - dataOffset;
+                        total += read;
+                        if ( total > end )
+                        {
+                            read -= total - end;
+                        }
+                        buffer.clear();
+                        buffer.limit( read );
+                        update( buffer );
                     }
-                    buffer.rewind();
-                    buffer.limit( read );
-                    update( buffer );
+                }
+                finally
+                {
+                    BufferPool.release( buffer );
                 }
             }
             finally
             {
                 try
                 {
-                    fis.close();
+                    raf.close();
                 }
                 catch ( IOException e )
                 {
@@ -173,15 +228,159 @@ final class ChecksumCalculator
         }
         catch ( IOException e )
         {
+            error( e );
+        }
+    }
+
+    private void error( IOException e )
+    {
+        offset = -1;
+        for ( Checksum checksum : checksums )
+        {
+            checksum.error( e );
+        }
+    }
+
+    private File getCheckpointFile()
+    {
+        return new File( targetFile.getPath() + EXT_CHECKPOINT );
+    }
+
+    /**
+     * Consumes the checkpoint of the target file (if any) and restores the digests from it.
+     * 
+     * @return The offset up to which the target file has been hashed.
+     */
+    private long restore( long dataOffset )
+    {
+        File checkpointFile = getCheckpointFile();
+        if ( !checkpointFile.isFile() )
+        {
+            return 0;
+        }
+        Map<String, byte[]> states = new HashMap<String, byte[]>();
+        long checkpointOffset = -1;
+        try
+        {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( checkpointFile ) ) );
+            try
+            {
+                if ( in.readInt() == CHECKPOINT_MAGIC )
+                {
+                    long offset = in.readLong();
+                    long fileLength = in.readLong();
+                    long fileTimestamp = in.readLong();
+                    for ( int i = in.readInt(); i > 0; i-- )
+                    {
+                        String algorithm = in.readUTF();
+                        byte[] state = new byte[in.readUnsignedShort()];
+                        in.readFully( state );
+                        states.put( algorithm, state );
+                    }
+                    // the partial file must not have been touched since the checkpoint
+                    if ( offset <= dataOffset && fileLength == targetFile.length()
+                        && fileTimestamp == targetFile.lastModified() )
+                    {
+                        checkpointOffset = offset;
+                    }
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            // corrupt or truncated checkpoint, hash the entire file
+        }
+        finally
+        {
+            checkpointFile.delete();
+        }
+        if ( checkpointOffset <= 0 )
+        {
+            return 0;
+        }
+        for ( Checksum checksum : checksums )
+        {
+            byte[] state = states.get( checksum.algorithm );
+            if ( state == null || !checksum.restore( state ) )
+            {
+                for ( Checksum c : checksums )
+                {
+                    c.reset();
+                }
+                return 0;
+            }
+        }
+        offset = checkpointOffset;
+        return checkpointOffset;
+    }
+
+    /**
+     * Saves the current digest state next to the target file such that a future resume of the target file can continue
+     * hashing from here. Should only be called once the data which has been fed to this calculator has been written to
+     * the target file.
+     */
+    public void checkpoint()
+    {
+        if ( offset <= 0 || !targetFile.isFile() )
+        {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+        DataOutputStream out = new DataOutputStream( bytes );
+        try
+        {
+            out.writeInt( CHECKPOINT_MAGIC );
+            out.writeLong( offset );
+            out.writeLong( targetFile.length() );
+            out.writeLong( targetFile.lastModified() );
+            out.writeInt( checksums.size() );
             for ( Checksum checksum : checksums )
             {
-                checksum.error( e );
+                if ( !( checksum.digest instanceof ResumableDigest ) || checksum.error != null )
+                {
+                    return;
+                }
+                byte[] state = ( (ResumableDigest) checksum.digest ).getState();
+                out.writeUTF( checksum.algorithm );
+                out.writeShort( state.length );
+                out.write( state );
+            }
+            out.close();
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        File checkpointFile = getCheckpointFile();
+        try
+        {
+            FileOutputStream os = new FileOutputStream( checkpointFile );
+            try
+            {
+                bytes.writeTo( os );
             }
+            finally
+            {
+                os.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            // too bad, the next resume will hash the entire file
+            checkpointFile.delete();
         }
     }
 
     public void update( ByteBuffer data )
     {
+        if ( offset >= 0 )
+        {
+            offset += data.remaining();
+        }
         for ( Checksum checksum : checksums )
         {
             data.mark();
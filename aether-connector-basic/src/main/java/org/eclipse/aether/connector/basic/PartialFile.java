@@ -16,7 +16,11 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.aether.spi.log.Logger;
 
@@ -44,10 +48,22 @@ final class PartialFile
     static class LockFile
     {
 
+        private static final long MIN_POLL_DELAY = 10;
+
+        private static final long MAX_POLL_DELAY = 500;
+
+        /*
+         * NOTE: The owners of lock files within this JVM, signaled upon release such that local waiters neither need to
+         * poll nor see the completion late. Waiters on other processes fall back to polling with exponential backoff.
+         */
+        private static final Map<File, CountDownLatch> OWNERS = new HashMap<File, CountDownLatch>();
+
         private final File lockFile;
 
         private final FileLock lock;
 
+        private final CountDownLatch released;
+
         private final boolean concurrent;
 
         public LockFile( File partFile, int requestTimeout, RemoteAccessChecker checker, Logger logger )
@@ -56,6 +72,10 @@ final class PartialFile
             lockFile = new File( partFile.getPath() + EXT_LOCK );
             boolean[] concurrent = { false };
             lock = lock( lockFile, partFile, requestTimeout, checker, logger, concurrent );
+            synchronized ( OWNERS )
+            {
+                released = OWNERS.get( lockFile.getAbsoluteFile() );
+            }
             this.concurrent = concurrent[0];
         }
 
@@ -63,15 +83,26 @@ final class PartialFile
                                       Logger logger, boolean[] concurrent )
             throws Exception
         {
+            File key = lockFile.getAbsoluteFile();
+            long stallTimeout = ( requestTimeout > 0 ) ? Math.max( requestTimeout, 3 * 1000 ) : 0;
             boolean interrupted = false;
             try
             {
-                for ( long lastLength = -1, lastTime = 0;; )
+                for ( long lastLength = -1, lastTime = 0, delay = MIN_POLL_DELAY;; )
                 {
-                    FileLock lock = tryLock( lockFile );
-                    if ( lock != null )
+                    CountDownLatch owner;
+                    synchronized ( OWNERS )
                     {
-                        return lock;
+                        owner = OWNERS.get( key );
+                        if ( owner == null )
+                        {
+                            FileLock lock = tryLock( lockFile );
+                            if ( lock != null )
+                            {
+                                OWNERS.put( key, new CountDownLatch( 1 ) );
+                                return lock;
+                            }
+                        }
                     }
 
                     long currentLength = partFile.length();
@@ -92,7 +123,7 @@ final class PartialFile
                         lastLength = currentLength;
                         lastTime = currentTime;
                     }
-                    else if ( requestTimeout > 0 && currentTime - lastTime > Math.max( requestTimeout, 3 * 1000 ) )
+                    else if ( stallTimeout > 0 && currentTime - lastTime > stallTimeout )
                     {
                         throw new IOException( "Timeout while waiting for concurrent download of " + partFile
                             + " to progress" );
@@ -100,7 +131,16 @@ final class PartialFile
 
                     try
                     {
-                        Thread.sleep( 100 );
+                        if ( owner != null )
+                        {
+                            // wake up on release or when it is time to check the progress of the download
+                            owner.await( ( stallTimeout > 0 ) ? stallTimeout : 60 * 1000, TimeUnit.MILLISECONDS );
+                        }
+                        else
+                        {
+                            Thread.sleep( delay );
+                            delay = Math.min( delay * 2, MAX_POLL_DELAY );
+                        }
                     }
                     catch ( InterruptedException e )
                     {
@@ -170,6 +210,15 @@ final class PartialFile
         {
             close( lock.channel() );
             lockFile.delete();
+            synchronized ( OWNERS )
+            {
+                File key = lockFile.getAbsoluteFile();
+                if ( OWNERS.get( key ) == released )
+                {
+                    OWNERS.remove( key );
+                }
+            }
+            released.countDown();
         }
 
         @Override
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.AuthenticationDigest;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * Remembers the remote resources whose existence has already been confirmed by a peek. The cache lives in the
+ * {@link RepositoryCache} of the session, so it is shared by all connectors of a session and by any later session that
+ * reuses the same repository cache. Only positive results are recorded, a resource that was not found will be checked
+ * again.
+ */
+final class PeekCache
+{
+
+    private static final String KEY = PeekCache.class.getName();
+
+    private static final String CONFIG_PROP_PEEK_CACHE = "aether.connector.basic.peekCache";
+
+    private final Map<String, Boolean> existing;
+
+    /**
+     * Gets the peek cache for the specified session.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @return The peek cache or {@code null} if caching is disabled or the session has no repository cache.
+     */
+    public static PeekCache get( RepositorySystemSession session )
+    {
+        RepositoryCache repoCache = session.getCache();
+        if ( repoCache == null || !ConfigUtils.getBoolean( session, true, CONFIG_PROP_PEEK_CACHE ) )
+        {
+            return null;
+        }
+        Object tmp = repoCache.get( session, KEY );
+        if ( tmp instanceof PeekCache )
+        {
+            return (PeekCache) tmp;
+        }
+        synchronized ( PeekCache.class )
+        {
+            tmp = repoCache.get( session, KEY );
+            if ( tmp instanceof PeekCache )
+            {
+                return (PeekCache) tmp;
+            }
+            PeekCache cache = new PeekCache();
+            repoCache.put( session, KEY, cache );
+            return cache;
+        }
+    }
+
+    PeekCache()
+    {
+        existing = new ConcurrentHashMap<String, Boolean>();
+    }
+
+    /**
+     * Gets the key under which the resources of the specified repository are cached. Besides the URL, the key covers
+     * the authentication and proxy used to access the repository as these can affect which resources are visible.
+     * 
+     * @param session The repository system session, must not be {@code null}.
+     * @param repository The remote repository, must not be {@code null}.
+     * @return The repository key, never {@code null}.
+     */
+    public static String getRepositoryKey( RepositorySystemSession session, RemoteRepository repository )
+    {
+        StringBuilder buffer = new StringBuilder( 128 );
+
+        Proxy proxy = repository.getProxy();
+        if ( proxy != null )
+        {
+            buffer.append( AuthenticationDigest.forProxy( session, repository ) ).append( '@' );
+            buffer.append( proxy.getHost() ).append( ':' ).append( proxy.getPort() ).append( '>' );
+        }
+
+        buffer.append( AuthenticationDigest.forRepository( session, repository ) ).append( '@' );
+        buffer.append( repository.getUrl() );
+
+        return buffer.toString();
+    }
+
+    /**
+     * Determines whether the specified resource is known to exist in the given repository.
+     * 
+     * @param repositoryKey The key of the remote repository as given by
+     *            {@link #getRepositoryKey(RepositorySystemSession, RemoteRepository)}, must not be {@code null}.
+     * @param location The relative location of the resource, must not be {@code null}.
+     * @return {@code true} if a previous peek has confirmed the existence of the resource, {@code false} otherwise.
+     */
+    public boolean isExisting( String repositoryKey, URI location )
+    {
+        return existing.containsKey( getKey( repositoryKey, location ) );
+    }
+
+    /**
+     * Records that the specified resource exists in the given repository.
+     * 
+     * @param repositoryKey The key of the remote repository as given by
+     *            {@link #getRepositoryKey(RepositorySystemSession, RemoteRepository)}, must not be {@code null}.
+     * @param location The relative location of the resource, must not be {@code null}.
+     */
+    public void setExisting( String repositoryKey, URI location )
+    {
+        existing.put( getKey( repositoryKey, location ), Boolean.TRUE );
+    }
+
+    private static String getKey( String repositoryKey, URI location )
+    {
+        return repositoryKey + '>' + location;
+    }
+
+}
@@ -0,0 +1,413 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * A message digest whose intermediate state can be exported and restored, e.g. to continue hashing a partially
+ * downloaded file in another JVM. The JRE's digests offer no access to their state, so SHA-1 and MD5 are implemented
+ * here in plain Java.
+ */
+abstract class ResumableDigest
+    extends MessageDigest
+    implements Cloneable
+{
+
+    private static final int BLOCK_SIZE = 64;
+
+    private int[] state;
+
+    private byte[] block = new byte[BLOCK_SIZE];
+
+    private int blockLength;
+
+    private long count;
+
+    /**
+     * Creates a resumable digest for the specified algorithm.
+     * 
+     * @param algorithm The name of the digest algorithm, may be {@code null}.
+     * @return The digest or {@code null} if the algorithm is not supported.
+     */
+    public static ResumableDigest newInstance( String algorithm )
+    {
+        if ( "SHA-1".equalsIgnoreCase( algorithm ) || "SHA1".equalsIgnoreCase( algorithm ) )
+        {
+            return new Sha1();
+        }
+        if ( "MD5".equalsIgnoreCase( algorithm ) )
+        {
+            return new Md5();
+        }
+        return null;
+    }
+
+    ResumableDigest( String algorithm, int words )
+    {
+        super( algorithm );
+        state = new int[words];
+        engineReset();
+    }
+
+    /**
+     * Gets the intermediate state of this digest, i.e. the number of bytes hashed so far, the chaining variables and
+     * the bytes of the incomplete block.
+     * 
+     * @return The state, never {@code null}.
+     */
+    public byte[] getState()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( 8 + state.length * 4 + blockLength );
+        buffer.putLong( count );
+        for ( int word : state )
+        {
+            buffer.putInt( word );
+        }
+        buffer.put( block, 0, blockLength );
+        return buffer.array();
+    }
+
+    /**
+     * Restores an intermediate state previously obtained from {@link #getState()}.
+     * 
+     * @param bytes The state to restore, must not be {@code null}.
+     * @return {@code true} if the state was restored, {@code false} if it does not fit this digest.
+     */
+    public boolean setState( byte[] bytes )
+    {
+        ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        if ( bytes.length < 8 + state.length * 4 )
+        {
+            return false;
+        }
+        long count = buffer.getLong();
+        if ( count < 0 || bytes.length != 8 + state.length * 4 + (int) ( count % BLOCK_SIZE ) )
+        {
+            return false;
+        }
+        this.count = count;
+        for ( int i = 0; i < state.length; i++ )
+        {
+            state[i] = buffer.getInt();
+        }
+        blockLength = buffer.remaining();
+        buffer.get( block, 0, blockLength );
+        return true;
+    }
+
+    @Override
+    protected int engineGetDigestLength()
+    {
+        return state.length * 4;
+    }
+
+    @Override
+    protected void engineReset()
+    {
+        count = 0;
+        blockLength = 0;
+        init( state );
+    }
+
+    @Override
+    protected void engineUpdate( byte input )
+    {
+        count++;
+        block[blockLength++] = input;
+        if ( blockLength >= BLOCK_SIZE )
+        {
+            compress( state, block, 0 );
+            blockLength = 0;
+        }
+    }
+
+    @Override
+    protected void engineUpdate( byte[] input, int offset, int length )
+    {
+        count += length;
+        if ( blockLength > 0 )
+        {
+            int n = Math.min( BLOCK_SIZE - blockLength, length );
+            System.arraycopy( input, offset, block, blockLength, n );
+            blockLength += n;
+            offset += n;
+            length -= n;
+            if ( blockLength < BLOCK_SIZE )
+            {
+                return;
+            }
+            compress( state, block, 0 );
+            blockLength = 0;
+        }
+        for ( ; length >= BLOCK_SIZE; offset += BLOCK_SIZE, length -= BLOCK_SIZE )
+        {
+            compress( state, input, offset );
+        }
+        System.arraycopy( input, offset, block, 0, length );
+        blockLength = length;
+    }
+
+    @Override
+    protected void engineUpdate( ByteBuffer input )
+    {
+        if ( input.hasArray() )
+        {
+            engineUpdate( input.array(), input.arrayOffset() + input.position(), input.remaining() );
+            input.position( input.limit() );
+            return;
+        }
+        // read-only or direct buffer, gather the bytes block-wise
+        count += input.remaining();
+        while ( input.hasRemaining() )
+        {
+            int n = Math.min( BLOCK_SIZE - blockLength, input.remaining() );
+            input.get( block, blockLength, n );
+            blockLength += n;
+            if ( blockLength >= BLOCK_SIZE )
+            {
+                compress( state, block, 0 );
+                blockLength = 0;
+            }
+        }
+    }
+
+    @Override
+    protected byte[] engineDigest()
+    {
+        long bits = count << 3;
+        block[blockLength++] = (byte) 0x80;
+        if ( blockLength > BLOCK_SIZE - 8 )
+        {
+            fill( BLOCK_SIZE );
+            compress( state, block, 0 );
+            blockLength = 0;
+        }
+        fill( BLOCK_SIZE - 8 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            block[BLOCK_SIZE - 8 + i] = (byte) ( isBigEndian() ? bits >>> ( 56 - 8 * i ) : bits >>> ( 8 * i ) );
+        }
+        compress( state, block, 0 );
+        byte[] digest = new byte[state.length * 4];
+        for ( int i = 0; i < digest.length; i++ )
+        {
+            int word = state[i / 4];
+            digest[i] = (byte) ( isBigEndian() ? word >>> ( 24 - 8 * ( i % 4 ) ) : word >>> ( 8 * ( i % 4 ) ) );
+        }
+        engineReset();
+        return digest;
+    }
+
+    private void fill( int end )
+    {
+        while ( blockLength < end )
+        {
+            block[blockLength++] = 0;
+        }
+    }
+
+    @Override
+    public Object clone()
+        throws CloneNotSupportedException
+    {
+        ResumableDigest clone = (ResumableDigest) super.clone();
+        clone.state = state.clone();
+        clone.block = block.clone();
+        return clone;
+    }
+
+    abstract void init( int[] state );
+
+    abstract void compress( int[] h, byte[] input, int offset );
+
+    abstract boolean isBigEndian();
+
+    static final class Sha1
+        extends ResumableDigest
+    {
+
+        private int[] w = new int[80];
+
+        Sha1()
+        {
+            super( "SHA-1", 5 );
+        }
+
+        @Override
+        void init( int[] h )
+        {
+            h[0] = 0x67452301;
+            h[1] = 0xefcdab89;
+            h[2] = 0x98badcfe;
+            h[3] = 0x10325476;
+            h[4] = 0xc3d2e1f0;
+        }
+
+        @Override
+        void compress( int[] h, byte[] input, int offset )
+        {
+            for ( int t = 0; t < 16; t++, offset += 4 )
+            {
+                w[t] =
+                    ( input[offset] << 24 ) | ( ( input[offset + 1] & 0xff ) << 16 )
+                        | ( ( input[offset + 2] & 0xff ) << 8 ) | ( input[offset + 3] & 0xff );
+            }
+            for ( int t = 16; t < 80; t++ )
+            {
+                w[t] = Integer.rotateLeft( w[t - 3] ^ w[t - 8] ^ w[t - 14] ^ w[t - 16], 1 );
+            }
+            int a = h[0], b = h[1], c = h[2], d = h[3], e = h[4];
+            for ( int t = 0; t < 80; t++ )
+            {
+                int f;
+                if ( t < 20 )
+                {
+                    f = ( ( b & c ) | ( ~b & d ) ) + 0x5a827999;
+                }
+                else if ( t < 40 )
+                {
+                    f = ( b ^ c ^ d ) + 0x6ed9eba1;
+                }
+                else if ( t < 60 )
+                {
+                    f = ( ( b & c ) | ( b & d ) | ( c & d ) ) + 0x8f1bbcdc;
+                }
+                else
+                {
+                    f = ( b ^ c ^ d ) + 0xca62c1d6;
+                }
+                int temp = Integer.rotateLeft( a, 5 ) + f + e + w[t];
+                e = d;
+                d = c;
+                c = Integer.rotateLeft( b, 30 );
+                b = a;
+                a = temp;
+            }
+            h[0] += a;
+            h[1] += b;
+            h[2] += c;
+            h[3] += d;
+            h[4] += e;
+        }
+
+        @Override
+        boolean isBigEndian()
+        {
+            return true;
+        }
+
+        @Override
+        public Object clone()
+            throws CloneNotSupportedException
+        {
+            Sha1 clone = (Sha1) super.clone();
+            clone.w = new int[w.length];
+            return clone;
+        }
+
+    }
+
+    static final class Md5
+        extends ResumableDigest
+    {
+
+        private static final int[] K = { 0xd76aa478, 0xe8c7b756, 0x242070db, 0xc1bdceee, 0xf57c0faf, 0x4787c62a,
+            0xa8304613, 0xfd469501, 0x698098d8, 0x8b44f7af, 0xffff5bb1, 0x895cd7be, 0x6b901122, 0xfd987193, 0xa679438e,
+            0x49b40821, 0xf61e2562, 0xc040b340, 0x265e5a51, 0xe9b6c7aa, 0xd62f105d, 0x02441453, 0xd8a1e681, 0xe7d3fbc8,
+            0x21e1cde6, 0xc33707d6, 0xf4d50d87, 0x455a14ed, 0xa9e3e905, 0xfcefa3f8, 0x676f02d9, 0x8d2a4c8a, 0xfffa3942,
+            0x8771f681, 0x6d9d6122, 0xfde5380c, 0xa4beea44, 0x4bdecfa9, 0xf6bb4b60, 0xbebfbc70, 0x289b7ec6, 0xeaa127fa,
+            0xd4ef3085, 0x04881d05, 0xd9d4d039, 0xe6db99e5, 0x1fa27cf8, 0xc4ac5665, 0xf4292244, 0x432aff97, 0xab9423a7,
+            0xfc93a039, 0x655b59c3, 0x8f0ccc92, 0xffeff47d, 0x85845dd1, 0x6fa87e4f, 0xfe2ce6e0, 0xa3014314, 0x4e0811a1,
+            0xf7537e82, 0xbd3af235, 0x2ad7d2bb, 0xeb86d391 };
+
+        private static final int[] S = { 7, 12, 17, 22, 5, 9, 14, 20, 4, 11, 16, 23, 6, 10, 15, 21 };
+
+        private int[] m = new int[16];
+
+        Md5()
+        {
+            super( "MD5", 4 );
+        }
+
+        @Override
+        void init( int[] h )
+        {
+            h[0] = 0x67452301;
+            h[1] = 0xefcdab89;
+            h[2] = 0x98badcfe;
+            h[3] = 0x10325476;
+        }
+
+        @Override
+        void compress( int[] h, byte[] input, int offset )
+        {
+            for ( int i = 0; i < 16; i++, offset += 4 )
+            {
+                m[i] =
+                    ( input[offset] & 0xff ) | ( ( input[offset + 1] & 0xff ) << 8 )
+                        | ( ( input[offset + 2] & 0xff ) << 16 ) | ( input[offset + 3] << 24 );
+            }
+            int a = h[0], b = h[1], c = h[2], d = h[3];
+            for ( int i = 0; i < 64; i++ )
+            {
+                int f, g;
+                if ( i < 16 )
+                {
+                    f = ( b & c ) | ( ~b & d );
+                    g = i;
+                }
+                else if ( i < 32 )
+                {
+                    f = ( d & b ) | ( ~d & c );
+                    g = ( 5 * i + 1 ) & 15;
+                }
+                else if ( i < 48 )
+                {
+                    f = b ^ c ^ d;
+                    g = ( 3 * i + 5 ) & 15;
+                }
+                else
+                {
+                    f = c ^ ( b | ~d );
+                    g = ( 7 * i ) & 15;
+                }
+                int temp = d;
+                d = c;
+                c = b;
+                b += Integer.rotateLeft( a + f + K[i] + m[g], S[( ( i >> 4 ) << 2 ) | ( i & 3 )] );
+                a = temp;
+            }
+            h[0] += a;
+            h[1] += b;
+            h[2] += c;
+            h[3] += d;
+        }
+
+        @Override
+        boolean isBigEndian()
+        {
+            return false;
+        }
+
+        @Override
+        public Object clone()
+            throws CloneNotSupportedException
+        {
+            Md5 clone = (Md5) super.clone();
+            clone.m = new int[m.length];
+            return clone;
+        }
+
+    }
+
+}
@@ -87,6 +87,28 @@ class TransferTransportListener<T extends Transfer>
         }
     }
 
+    @Override
+    public void transportProgressed( long dataOffset, long dataLength )
+        throws TransferCancelledException
+    {
+        if ( checksumCalculator != null )
+        {
+            // the bytes have already been written to the target file, hash them from there
+            checksumCalculator.update( dataOffset, dataLength );
+        }
+        if ( listener != null )
+        {
+            eventBuilder.resetType( EventType.PROGRESSED ).addTransferredBytes( dataLength ).setDataBuffer( null );
+            listener.transferProgressed( eventBuilder.build() );
+        }
+    }
+
+    @Override
+    public boolean isDataRequired()
+    {
+        return false;
+    }
+
     public void transferCorrupted( Exception exception )
         throws TransferCancelledException
     {
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.aether.spi.io.FileProcessor;
+import org.eclipse.aether.spi.log.Logger;
+
+/**
+ * Persists the validators a transporter reported for a downloaded resource in a properties file next to the local
+ * copy, such that a later download of the same resource can be performed conditionally. The validators are only
+ * considered valid as long as the length and timestamp of the local copy are unchanged.
+ */
+final class ValidatorStore
+{
+
+    private static final String EXT = ".validators";
+
+    private static final String KEY_LENGTH = "file.length";
+
+    private static final String KEY_TIMESTAMP = "file.lastModified";
+
+    private static final String PREFIX = "validator.";
+
+    private final FileProcessor fileProcessor;
+
+    private final Logger logger;
+
+    public ValidatorStore( FileProcessor fileProcessor, Logger logger )
+    {
+        this.fileProcessor = fileProcessor;
+        this.logger = logger;
+    }
+
+    /**
+     * Reads the validators for the specified local file.
+     * 
+     * @param file The local copy of the resource, must not be {@code null}.
+     * @return The validators, possibly empty but never {@code null}.
+     */
+    public Map<String, String> read( File file )
+    {
+        File validatorFile = getValidatorFile( file );
+        if ( !file.isFile() || !validatorFile.isFile() )
+        {
+            return Collections.emptyMap();
+        }
+
+        Properties props = new Properties();
+        try
+        {
+            InputStream is = new FileInputStream( validatorFile );
+            try
+            {
+                props.load( is );
+            }
+            finally
+            {
+                close( is );
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Failed to read validators from " + validatorFile + ": " + e.getMessage(), e );
+            return Collections.emptyMap();
+        }
+
+        if ( !String.valueOf( file.length() ).equals( props.getProperty( KEY_LENGTH ) )
+            || !String.valueOf( file.lastModified() ).equals( props.getProperty( KEY_TIMESTAMP ) ) )
+        {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> validators = new HashMap<String, String>();
+        for ( Map.Entry<Object, Object> entry : props.entrySet() )
+        {
+            String key = entry.getKey().toString();
+            if ( key.startsWith( PREFIX ) )
+            {
+                validators.put( key.substring( PREFIX.length() ), entry.getValue().toString() );
+            }
+        }
+        return validators;
+    }
+
+    /**
+     * Writes the validators for the specified local file, replacing any previously stored validators.
+     * 
+     * @param file The local copy of the resource, must not be {@code null}.
+     * @param validators The validators to store, may be {@code null} or empty to remove the stored validators.
+     */
+    public void write( File file, Map<String, String> validators )
+    {
+        File validatorFile = getValidatorFile( file );
+        if ( validators == null || validators.isEmpty() )
+        {
+            validatorFile.delete();
+            return;
+        }
+
+        Properties props = new Properties();
+        props.setProperty( KEY_LENGTH, String.valueOf( file.length() ) );
+        props.setProperty( KEY_TIMESTAMP, String.valueOf( file.lastModified() ) );
+        for ( Map.Entry<String, String> entry : validators.entrySet() )
+        {
+            props.setProperty( PREFIX + entry.getKey(), entry.getValue() );
+        }
+
+        try
+        {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream( 256 );
+            props.store( baos, null );
+            fileProcessor.write( validatorFile, baos.toString( "ISO-8859-1" ) );
+        }
+        catch ( IOException e )
+        {
+            logger.debug( "Failed to write validators to " + validatorFile + ": " + e.getMessage(), e );
+        }
+    }
+
+    static File getValidatorFile( File file )
+    {
+        return new File( file.getPath() + EXT );
+    }
+
+    private static void close( InputStream is )
+    {
+        try
+        {
+            is.close();
+        }
+        catch ( IOException e )
+        {
+            // irrelevant
+        }
+    }
+
+}
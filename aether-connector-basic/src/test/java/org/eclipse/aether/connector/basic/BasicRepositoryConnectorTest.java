@@ -0,0 +1,465 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.internal.test.util.TestFileProcessor;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.ArtifactDownload;
+import org.eclipse.aether.spi.connector.checksum.ChecksumPolicy;
+import org.eclipse.aether.spi.connector.checksum.ChecksumPolicyProvider;
+import org.eclipse.aether.spi.connector.layout.RepositoryLayout;
+import org.eclipse.aether.spi.connector.layout.RepositoryLayoutProvider;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterProvider;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.transfer.TransferResource;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BasicRepositoryConnectorTest
+{
+
+    private DefaultRepositorySystemSession session;
+
+    private RemoteRepository repository;
+
+    private Map<String, String> resources;
+
+    private AtomicInteger peeks;
+
+    private CountDownLatch downloadsStarted;
+
+    private CountDownLatch peeksDone;
+
+    private CountDownLatch peeksOverlapping;
+
+    private AtomicInteger activePeeks;
+
+    private AtomicInteger maxActivePeeks;
+
+    private File dir;
+
+    @Before
+    public void init()
+        throws IOException
+    {
+        session = TestUtils.newSession();
+        session.setCache( new DefaultRepositoryCache() );
+        repository = new RemoteRepository.Builder( "test", "default", "http://localhost/repo" ).build();
+        resources = Collections.synchronizedMap( new HashMap<String, String>() );
+        resources.put( "aid-1.jar", "jar" );
+        resources.put( "aid-1.pom", "pom" );
+        resources.put( "other-1.jar", "other" );
+        peeks = new AtomicInteger();
+        activePeeks = new AtomicInteger();
+        maxActivePeeks = new AtomicInteger();
+        dir = TestFileUtils.createTempDir();
+    }
+
+    @After
+    public void exit()
+        throws Exception
+    {
+        TestFileUtils.deleteFile( dir );
+    }
+
+    private BasicRepositoryConnector newConnector( RemoteRepository repository )
+        throws Exception
+    {
+        return new BasicRepositoryConnector( session, repository, new StubTransporterProvider(),
+                                             new StubLayoutProvider(), new StubChecksumPolicyProvider(),
+                                             new TestFileProcessor(), NullLoggerFactory.LOGGER );
+    }
+
+    private static ArtifactDownload newPeek( String coords )
+    {
+        ArtifactDownload download = new ArtifactDownload();
+        download.setArtifact( new DefaultArtifact( coords ) );
+        download.setExistenceCheck( true );
+        return download;
+    }
+
+    private ArtifactDownload newDownload( String coords )
+    {
+        ArtifactDownload download = new ArtifactDownload();
+        download.setArtifact( new DefaultArtifact( coords ) );
+        download.setFile( new File( dir, coords.replace( ':', '-' ) ) );
+        return download;
+    }
+
+    private static void assertSuccess( List<ArtifactDownload> downloads )
+    {
+        for ( ArtifactDownload download : downloads )
+        {
+            assertNull( String.valueOf( download.getException() ), download.getException() );
+        }
+    }
+
+    @Test
+    public void testPeek_RepeatedPeekSkipsRequest()
+        throws Exception
+    {
+        BasicRepositoryConnector connector = newConnector( repository );
+        try
+        {
+            List<ArtifactDownload> downloads = Arrays.asList( newPeek( "gid:aid:1" ) );
+            connector.get( downloads, null );
+            assertSuccess( downloads );
+            assertEquals( 1, peeks.get() );
+
+            downloads = Arrays.asList( newPeek( "gid:aid:1" ) );
+            connector.get( downloads, null );
+            assertSuccess( downloads );
+            assertEquals( 1, peeks.get() );
+        }
+        finally
+        {
+            connector.close();
+        }
+
+        connector = newConnector( repository );
+        try
+        {
+            List<ArtifactDownload> downloads = Arrays.asList( newPeek( "gid:aid:1" ) );
+            connector.get( downloads, null );
+            assertSuccess( downloads );
+            assertEquals( 1, peeks.get() );
+        }
+        finally
+        {
+            connector.close();
+        }
+    }
+
+    @Test
+    public void testPeek_MissingResourceIsCheckedAgain()
+        throws Exception
+    {
+        BasicRepositoryConnector connector = newConnector( repository );
+        try
+        {
+            for ( int i = 1; i <= 2; i++ )
+            {
+                ArtifactDownload peek = newPeek( "gid:missing:1" );
+                connector.get( Arrays.asList( peek ), null );
+                assertNotNull( peek.getException() );
+                assertEquals( i, peeks.get() );
+            }
+        }
+        finally
+        {
+            connector.close();
+        }
+    }
+
+    @Test
+    public void testPeek_CachePerAuthentication()
+        throws Exception
+    {
+        RemoteRepository authenticated =
+            new RemoteRepository.Builder( repository ).setAuthentication(
+                new AuthenticationBuilder().addUsername( "user" ).build() ).build();
+
+        BasicRepositoryConnector connector = newConnector( repository );
+        try
+        {
+            connector.get( Arrays.asList( newPeek( "gid:aid:1" ) ), null );
+            assertEquals( 1, peeks.get() );
+        }
+        finally
+        {
+            connector.close();
+        }
+
+        connector = newConnector( authenticated );
+        try
+        {
+            List<ArtifactDownload> downloads = Arrays.asList( newPeek( "gid:aid:1" ) );
+            connector.get( downloads, null );
+            assertSuccess( downloads );
+            assertEquals( 2, peeks.get() );
+        }
+        finally
+        {
+            connector.close();
+        }
+    }
+
+    @Test
+    public void testPeek_NotBlockedByDownloadsInFlight()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", "2" );
+        downloadsStarted = new CountDownLatch( 2 );
+        peeksDone = new CountDownLatch( 2 );
+
+        BasicRepositoryConnector connector = newConnector( repository );
+        try
+        {
+            List<ArtifactDownload> downloads =
+                Arrays.asList( newDownload( "gid:aid:1" ), newDownload( "gid:other:1" ), newPeek( "gid:aid:1" ),
+                               newPeek( "gid:aid:pom:1" ) );
+            connector.get( downloads, null );
+            assertSuccess( downloads );
+            assertEquals( 0, peeksDone.getCount() );
+            assertEquals( "jar", TestFileUtils.readString( downloads.get( 0 ).getFile() ) );
+            assertEquals( "other", TestFileUtils.readString( downloads.get( 1 ).getFile() ) );
+        }
+        finally
+        {
+            connector.close();
+        }
+    }
+
+    private int getMaxConcurrentPeeks( int overlapping )
+        throws Exception
+    {
+        peeksOverlapping = new CountDownLatch( overlapping );
+        BasicRepositoryConnector connector = newConnector( repository );
+        try
+        {
+            List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
+            for ( int i = 0; i < 12; i++ )
+            {
+                downloads.add( newPeek( "gid:aid" + i + ":1" ) );
+            }
+            connector.get( downloads, null );
+            assertEquals( 12, peeks.get() );
+            assertEquals( 0, peeksOverlapping.getCount() );
+            return maxActivePeeks.get();
+        }
+        finally
+        {
+            connector.close();
+        }
+    }
+
+    @Test
+    public void testLightPool_DefaultSize()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", "2" );
+        assertEquals( 8, getMaxConcurrentPeeks( 8 ) );
+    }
+
+    @Test
+    public void testLightPool_Configurable()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", "2" );
+        session.setConfigProperty( "aether.connector.basic.lightThreads", "3" );
+        assertEquals( 3, getMaxConcurrentPeeks( 3 ) );
+    }
+
+    @Test
+    public void testLightPool_BoundedByConnectionsPerRoute()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", "2" );
+        session.setConfigProperty( "aether.connector.basic.lightThreads", "10" );
+        session.setConfigProperty( "aether.connector.connectionsPerRoute", "6" );
+        assertEquals( 4, getMaxConcurrentPeeks( 4 ) );
+    }
+
+    @Test
+    public void testLightPool_NotBoundedByDefaultConnectionsPerRoute()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", "40" );
+        assertEquals( 12, getMaxConcurrentPeeks( 12 ) );
+    }
+
+    @Test
+    public void testLightPool_SingleThreadFallsBackToDownloadPool()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", "3" );
+        session.setConfigProperty( "aether.connector.basic.lightThreads", "1" );
+        assertEquals( 3, getMaxConcurrentPeeks( 3 ) );
+    }
+
+    class StubTransporter
+        extends AbstractTransporter
+    {
+
+        public int classify( Throwable error )
+        {
+            return ( error instanceof FileNotFoundException ) ? ERROR_NOT_FOUND : ERROR_OTHER;
+        }
+
+        private String getResource( URI location )
+            throws FileNotFoundException
+        {
+            String data = resources.get( location.toString() );
+            if ( data == null )
+            {
+                throw new FileNotFoundException( location.toString() );
+            }
+            return data;
+        }
+
+        @Override
+        protected void implPeek( PeekTask task )
+            throws Exception
+        {
+            peeks.incrementAndGet();
+            if ( peeksOverlapping != null )
+            {
+                int active = activePeeks.incrementAndGet();
+                for ( int max = maxActivePeeks.get(); active > max; max = maxActivePeeks.get() )
+                {
+                    maxActivePeeks.compareAndSet( max, active );
+                }
+                try
+                {
+                    // hold the first peeks until the expected number of them is in flight at the same time
+                    peeksOverlapping.countDown();
+                    peeksOverlapping.await( 10, TimeUnit.SECONDS );
+                    Thread.sleep( 10 );
+                }
+                finally
+                {
+                    activePeeks.decrementAndGet();
+                }
+            }
+            getResource( task.getLocation() );
+            if ( peeksDone != null )
+            {
+                // the downloads hold all download threads until the peeks are done
+                if ( !downloadsStarted.await( 10, TimeUnit.SECONDS ) )
+                {
+                    throw new IllegalStateException( "downloads not in flight" );
+                }
+                peeksDone.countDown();
+            }
+        }
+
+        @Override
+        protected void implGet( GetTask task )
+            throws Exception
+        {
+            byte[] bytes = getResource( task.getLocation() ).getBytes( "UTF-8" );
+            if ( peeksDone != null )
+            {
+                downloadsStarted.countDown();
+                if ( !peeksDone.await( 10, TimeUnit.SECONDS ) )
+                {
+                    throw new IllegalStateException( "peeks blocked by downloads" );
+                }
+            }
+            utilGet( task, new ByteArrayInputStream( bytes ), true, bytes.length, false );
+        }
+
+        @Override
+        protected void implPut( PutTask task )
+            throws Exception
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void implClose()
+        {
+        }
+
+    }
+
+    class StubTransporterProvider
+        implements TransporterProvider
+    {
+
+        public Transporter newTransporter( RepositorySystemSession session, RemoteRepository repository )
+        {
+            return new StubTransporter();
+        }
+
+    }
+
+    static class StubLayoutProvider
+        implements RepositoryLayoutProvider, RepositoryLayout
+    {
+
+        public RepositoryLayout newRepositoryLayout( RepositorySystemSession session, RemoteRepository repository )
+        {
+            return this;
+        }
+
+        public URI getLocation( Artifact artifact, boolean upload )
+        {
+            return URI.create( artifact.getArtifactId() + '-' + artifact.getVersion() + '.' + artifact.getExtension() );
+        }
+
+        public URI getLocation( Metadata metadata, boolean upload )
+        {
+            return URI.create( metadata.getType() );
+        }
+
+        public List<Checksum> getChecksums( Artifact artifact, boolean upload, URI location )
+        {
+            return Collections.emptyList();
+        }
+
+        public List<Checksum> getChecksums( Metadata metadata, boolean upload, URI location )
+        {
+            return Collections.emptyList();
+        }
+
+    }
+
+    static class StubChecksumPolicyProvider
+        implements ChecksumPolicyProvider
+    {
+
+        public ChecksumPolicy newChecksumPolicy( RepositorySystemSession session, RemoteRepository repository,
+                                                 TransferResource resource, String policy )
+        {
+            return null;
+        }
+
+        public String getEffectiveChecksumPolicy( RepositorySystemSession session, String policy1, String policy2 )
+        {
+            return policy1;
+        }
+
+    }
+
+}
@@ -104,6 +104,32 @@ public class ChecksumCalculatorTest
         assertEquals( 2, digests.size() );
     }
 
+    @Test
+    public void testUpdateFromFile()
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( 0, 6 );
+        calculator.update( 6, 6 );
+        Map<String, Object> digests = calculator.get();
+        assertNotNull( digests );
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", digests.get( SHA1 ) );
+        assertEquals( "ed076287532e86365e841e92bfc50d8c", digests.get( MD5 ) );
+        assertEquals( 2, digests.size() );
+    }
+
+    @Test
+    public void testUpdateFromFileWithGap()
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( 6, 6 );
+        Map<String, Object> digests = calculator.get();
+        assertNotNull( digests );
+        assertTrue( digests.get( SHA1 ) instanceof IOException );
+        assertTrue( digests.get( MD5 ) instanceof IOException );
+    }
+
     @Test
     public void testUnknownAlgorithm()
     {
@@ -158,4 +184,89 @@ public class ChecksumCalculatorTest
         assertEquals( 2, digests.size() );
     }
 
+    @Test
+    public void testResumeFromCheckpoint()
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Hallo " ) );
+        calculator.checkpoint();
+
+        // data before the checkpoint is not re-read from the file
+        calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 12 );
+        Map<String, Object> digests = calculator.get();
+        assertNotNull( digests );
+        assertEquals( "413f6081d65ee6028d7cd5af9220270c83793dfb", digests.get( SHA1 ) );
+        assertEquals( "627738df396b39b8bbca574f7a48b832", digests.get( MD5 ) );
+        assertEquals( 2, digests.size() );
+    }
+
+    @Test
+    public void testCheckpointIsPersistedNextToFile()
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Hallo " ) );
+        calculator.checkpoint();
+
+        File checkpointFile = new File( file.getPath() + ChecksumCalculator.EXT_CHECKPOINT );
+        assertTrue( checkpointFile.isFile() );
+        calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 12 );
+        assertFalse( checkpointFile.exists() );
+        assertEquals( "413f6081d65ee6028d7cd5af9220270c83793dfb", calculator.get().get( SHA1 ) );
+    }
+
+    @Test
+    public void testCorruptCheckpointIsIgnored()
+        throws Exception
+    {
+        File checkpointFile = new File( file.getPath() + ChecksumCalculator.EXT_CHECKPOINT );
+        TestFileUtils.writeString( checkpointFile, "garbage" );
+
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 12 );
+        assertFalse( checkpointFile.exists() );
+        Map<String, Object> digests = calculator.get();
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", digests.get( SHA1 ) );
+        assertEquals( "ed076287532e86365e841e92bfc50d8c", digests.get( MD5 ) );
+    }
+
+    @Test
+    public void testCheckpointIsConsumedOnResume()
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Hallo " ) );
+        calculator.checkpoint();
+
+        calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 6 );
+        calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 6 );
+        calculator.update( toBuffer( "World!" ) );
+        Map<String, Object> digests = calculator.get();
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", digests.get( SHA1 ) );
+        assertEquals( "ed076287532e86365e841e92bfc50d8c", digests.get( MD5 ) );
+    }
+
+    @Test
+    public void testCheckpointDiscardedWhenFileChanged()
+        throws Exception
+    {
+        ChecksumCalculator calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 0 );
+        calculator.update( toBuffer( "Hallo " ) );
+        calculator.checkpoint();
+
+        TestFileUtils.writeString( file, "Hello World!!" );
+
+        calculator = newCalculator( SHA1, MD5 );
+        calculator.init( 12 );
+        Map<String, Object> digests = calculator.get();
+        assertEquals( "2ef7bde608ce5404e97d5f042f95f89f1c232871", digests.get( SHA1 ) );
+        assertEquals( "ed076287532e86365e841e92bfc50d8c", digests.get( MD5 ) );
+    }
+
 }
@@ -294,6 +294,41 @@ public class PartialFileTest
         assertEquals( 1, remoteAccessChecker.invocations );
     }
 
+    @Test( timeout = 5000 )
+    public void testResumeConcurrently_AwaitCompletion_SameJvmOwnerReleases()
+        throws Exception
+    {
+        assertTrue( dstFile.setLastModified( System.currentTimeMillis() - 60 * 1000 ) );
+        final PartialFile owner = newPartialFile( 0, 500 );
+        assertNotNull( owner );
+        final long[] released = { 0 };
+        Thread writer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    Thread.sleep( 300 );
+                    released[0] = System.currentTimeMillis();
+                    owner.close();
+                }
+                catch ( Exception e )
+                {
+                    e.printStackTrace();
+                }
+            }
+        };
+        writer.start();
+        PartialFile partialFile = newPartialFile( 0, 500 );
+        long acquired = System.currentTimeMillis();
+        writer.join();
+        assertNotNull( partialFile );
+        assertTrue( partialFile.isResume() );
+        assertTrue( released[0] > 0 && acquired >= released[0] );
+        assertEquals( 1, remoteAccessChecker.invocations );
+    }
+
     @Test( timeout = 5000 )
     public void testResumeConcurrently_CheckRemoteAccess()
         throws Exception
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import static org.junit.Assert.*;
+
+import java.net.URI;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PeekCacheTest
+{
+
+    private DefaultRepositorySystemSession session;
+
+    private RemoteRepository repository;
+
+    @Before
+    public void init()
+    {
+        session = TestUtils.newSession();
+        session.setCache( new DefaultRepositoryCache() );
+        repository = new RemoteRepository.Builder( "test", "default", "http://localhost/repo" ).build();
+    }
+
+    @Test
+    public void testGet_SharedViaRepositoryCache()
+    {
+        PeekCache cache = PeekCache.get( session );
+        assertNotNull( cache );
+        assertSame( cache, PeekCache.get( session ) );
+
+        DefaultRepositorySystemSession other = TestUtils.newSession();
+        other.setCache( session.getCache() );
+        assertSame( cache, PeekCache.get( other ) );
+    }
+
+    @Test
+    public void testGet_NoRepositoryCache()
+    {
+        session.setCache( null );
+        assertNull( PeekCache.get( session ) );
+    }
+
+    @Test
+    public void testGet_Disabled()
+    {
+        session.setConfigProperty( "aether.connector.basic.peekCache", "false" );
+        assertNull( PeekCache.get( session ) );
+    }
+
+    @Test
+    public void testExisting()
+    {
+        PeekCache cache = PeekCache.get( session );
+        String key = PeekCache.getRepositoryKey( session, repository );
+        URI location = URI.create( "gid/aid/1/aid-1.jar" );
+        assertFalse( cache.isExisting( key, location ) );
+        cache.setExisting( key, location );
+        assertTrue( cache.isExisting( key, location ) );
+        assertFalse( cache.isExisting( key, URI.create( "gid/aid/1/aid-1.pom" ) ) );
+
+        RemoteRepository mirror = new RemoteRepository.Builder( "test", "default", "http://mirror/repo" ).build();
+        assertFalse( cache.isExisting( PeekCache.getRepositoryKey( session, mirror ), location ) );
+    }
+
+    @Test
+    public void testRepositoryKey_CoversAuthenticationAndProxy()
+    {
+        String key = PeekCache.getRepositoryKey( session, repository );
+
+        RemoteRepository authenticated =
+            new RemoteRepository.Builder( repository ).setAuthentication(
+                new AuthenticationBuilder().addUsername( "user" ).build() ).build();
+        assertFalse( key.equals( PeekCache.getRepositoryKey( session, authenticated ) ) );
+
+        RemoteRepository proxied =
+            new RemoteRepository.Builder( repository ).setProxy( new Proxy( "http", "proxy", 8080 ) ).build();
+        assertFalse( key.equals( PeekCache.getRepositoryKey( session, proxied ) ) );
+
+        assertEquals( key, PeekCache.getRepositoryKey( session, repository ) );
+    }
+
+}
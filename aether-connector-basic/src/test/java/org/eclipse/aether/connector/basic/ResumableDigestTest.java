@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ResumableDigestTest
+{
+
+    private void assertSameDigest( String algorithm )
+        throws Exception
+    {
+        Random random = new Random( 42 );
+        for ( int length : new int[] { 0, 1, 55, 56, 63, 64, 65, 119, 120, 128, 1000, 100000 } )
+        {
+            byte[] data = new byte[length];
+            random.nextBytes( data );
+            MessageDigest expected = MessageDigest.getInstance( algorithm );
+            ResumableDigest actual = ResumableDigest.newInstance( algorithm );
+            int split = length / 3;
+            actual.update( data, 0, split );
+            actual.update( ByteBuffer.wrap( data, split, length / 2 - split ).asReadOnlyBuffer() );
+            for ( int i = length / 2; i < length; i++ )
+            {
+                actual.update( data[i] );
+            }
+            assertArrayEquals( algorithm + " of " + length + " bytes", expected.digest( data ), actual.digest() );
+        }
+    }
+
+    @Test
+    public void testSha1()
+        throws Exception
+    {
+        assertSameDigest( "SHA-1" );
+    }
+
+    @Test
+    public void testMd5()
+        throws Exception
+    {
+        assertSameDigest( "MD5" );
+    }
+
+    @Test
+    public void testUnsupportedAlgorithm()
+    {
+        assertNull( ResumableDigest.newInstance( "SHA-256" ) );
+    }
+
+    @Test
+    public void testRestoreState()
+        throws Exception
+    {
+        byte[] data = new byte[1000];
+        new Random( 7 ).nextBytes( data );
+        for ( String algorithm : new String[] { "SHA-1", "MD5" } )
+        {
+            ResumableDigest digest = ResumableDigest.newInstance( algorithm );
+            digest.update( data, 0, 333 );
+            byte[] state = digest.getState();
+
+            ResumableDigest restored = ResumableDigest.newInstance( algorithm );
+            assertTrue( restored.setState( state ) );
+            restored.update( data, 333, data.length - 333 );
+            assertArrayEquals( MessageDigest.getInstance( algorithm ).digest( data ), restored.digest() );
+        }
+    }
+
+    @Test
+    public void testRejectMismatchingState()
+    {
+        byte[] state = ResumableDigest.newInstance( "MD5" ).getState();
+        assertFalse( ResumableDigest.newInstance( "SHA-1" ).setState( state ) );
+        assertFalse( ResumableDigest.newInstance( "MD5" ).setState( new byte[3] ) );
+    }
+
+    @Test
+    public void testCloneIsIndependent()
+        throws Exception
+    {
+        ResumableDigest digest = ResumableDigest.newInstance( "SHA-1" );
+        digest.update( new byte[] { 1, 2, 3 } );
+        MessageDigest clone = (MessageDigest) digest.clone();
+        digest.update( new byte[] { 4 } );
+        clone.update( new byte[] { 4 } );
+        assertArrayEquals( digest.digest(), clone.digest() );
+    }
+
+}
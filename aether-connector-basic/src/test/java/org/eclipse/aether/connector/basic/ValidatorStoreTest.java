@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.connector.basic;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.aether.internal.test.util.TestFileProcessor;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestLoggerFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValidatorStoreTest
+{
+
+    private ValidatorStore store;
+
+    private File file;
+
+    private Map<String, String> validators;
+
+    @Before
+    public void init()
+        throws IOException
+    {
+        store = new ValidatorStore( new TestFileProcessor(), new TestLoggerFactory().getLogger( "" ) );
+        file = TestFileUtils.createTempFile( "metadata" );
+        validators = new HashMap<String, String>();
+        validators.put( "ETag", "\"12345\"" );
+        validators.put( "Last-Modified", "Mon, 01 Jul 2013 12:00:00 GMT" );
+    }
+
+    @Test
+    public void testReadMissing()
+    {
+        assertTrue( store.read( file ).isEmpty() );
+        assertTrue( store.read( new File( file.getPath() + ".missing" ) ).isEmpty() );
+    }
+
+    @Test
+    public void testWriteAndRead()
+    {
+        store.write( file, validators );
+        assertEquals( validators, store.read( file ) );
+    }
+
+    @Test
+    public void testRead_LocalFileModified()
+        throws IOException
+    {
+        store.write( file, validators );
+        TestFileUtils.writeString( file, "changed metadata" );
+        assertTrue( store.read( file ).isEmpty() );
+    }
+
+    @Test
+    public void testWriteEmptyDeletesValidators()
+    {
+        store.write( file, validators );
+        assertTrue( ValidatorStore.getValidatorFile( file ).isFile() );
+        store.write( file, null );
+        assertFalse( ValidatorStore.getValidatorFile( file ).exists() );
+        assertTrue( store.read( file ).isEmpty() );
+    }
+
+}
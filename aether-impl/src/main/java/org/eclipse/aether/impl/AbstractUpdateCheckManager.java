@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.impl;
+
+import java.util.Collection;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+
+/**
+ * A skeleton implementation for custom update check managers. Extending this class rather than implementing
+ * {@link UpdateCheckManager} directly keeps an implementation compatible with methods that are later added to the
+ * interface and can be expressed in terms of the existing ones.
+ */
+public abstract class AbstractUpdateCheckManager
+    implements UpdateCheckManager
+{
+
+    /**
+     * Enables subclassing.
+     */
+    protected AbstractUpdateCheckManager()
+    {
+    }
+
+    /**
+     * Checks the specified artifacts one by one via {@link #checkArtifact(RepositorySystemSession, UpdateCheck)}.
+     * Subclasses are encouraged to override this method if they can share work among the checks.
+     */
+    public void checkArtifacts( RepositorySystemSession session,
+                                Collection<? extends UpdateCheck<Artifact, ArtifactTransferException>> checks )
+    {
+        for ( UpdateCheck<Artifact, ArtifactTransferException> check : checks )
+        {
+            checkArtifact( session, check );
+        }
+    }
+
+}
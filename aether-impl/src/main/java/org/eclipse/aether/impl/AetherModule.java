@@ -19,12 +19,14 @@ import javax.inject.Singleton;
 
 import org.eclipse.aether.RepositoryListener;
 import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.internal.impl.ContentAddressedLocalRepositoryManagerFactory;
 import org.eclipse.aether.internal.impl.DefaultArtifactResolver;
 import org.eclipse.aether.internal.impl.DefaultChecksumPolicyProvider;
 import org.eclipse.aether.internal.impl.DefaultDependencyCollector;
 import org.eclipse.aether.internal.impl.DefaultDeployer;
 import org.eclipse.aether.internal.impl.DefaultFileProcessor;
 import org.eclipse.aether.internal.impl.DefaultInstaller;
+import org.eclipse.aether.internal.impl.DefaultLocalRepositoryGarbageCollector;
 import org.eclipse.aether.internal.impl.DefaultLocalRepositoryProvider;
 import org.eclipse.aether.internal.impl.DefaultMetadataResolver;
 import org.eclipse.aether.internal.impl.DefaultOfflineController;
@@ -38,6 +40,7 @@ import org.eclipse.aether.internal.impl.DefaultTransporterProvider;
 import org.eclipse.aether.internal.impl.DefaultUpdateCheckManager;
 import org.eclipse.aether.internal.impl.DefaultUpdatePolicyAnalyzer;
 import org.eclipse.aether.internal.impl.EnhancedLocalRepositoryManagerFactory;
+import org.eclipse.aether.internal.impl.IndexedLocalRepositoryManagerFactory;
 import org.eclipse.aether.internal.impl.Maven2RepositoryLayoutFactory;
 import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
 import org.eclipse.aether.internal.impl.Slf4jLoggerFactory;
@@ -106,10 +109,16 @@ public final class AetherModule
         .to( DefaultOfflineController.class ).in( Singleton.class );
         bind( LocalRepositoryProvider.class ) //
         .to( DefaultLocalRepositoryProvider.class ).in( Singleton.class );
+        bind( LocalRepositoryGarbageCollector.class ) //
+        .to( DefaultLocalRepositoryGarbageCollector.class ).in( Singleton.class );
         bind( LocalRepositoryManagerFactory.class ).annotatedWith( Names.named( "simple" ) ) //
         .to( SimpleLocalRepositoryManagerFactory.class ).in( Singleton.class );
         bind( LocalRepositoryManagerFactory.class ).annotatedWith( Names.named( "enhanced" ) ) //
         .to( EnhancedLocalRepositoryManagerFactory.class ).in( Singleton.class );
+        bind( LocalRepositoryManagerFactory.class ).annotatedWith( Names.named( "content-addressed" ) ) //
+        .to( ContentAddressedLocalRepositoryManagerFactory.class ).in( Singleton.class );
+        bind( LocalRepositoryManagerFactory.class ).annotatedWith( Names.named( "indexed" ) ) //
+        .to( IndexedLocalRepositoryManagerFactory.class ).in( Singleton.class );
         if ( Slf4jLoggerFactory.isSlf4jAvailable() )
         {
             bindSlf4j();
@@ -130,11 +139,15 @@ public final class AetherModule
     @Provides
     @Singleton
     Set<LocalRepositoryManagerFactory> provideLocalRepositoryManagerFactories( @Named( "simple" ) LocalRepositoryManagerFactory simple,
-                                                                               @Named( "enhanced" ) LocalRepositoryManagerFactory enhanced )
+                                                                               @Named( "enhanced" ) LocalRepositoryManagerFactory enhanced,
+                                                                               @Named( "content-addressed" ) LocalRepositoryManagerFactory contentAddressed,
+                                                                               @Named( "indexed" ) LocalRepositoryManagerFactory indexed )
     {
         Set<LocalRepositoryManagerFactory> factories = new HashSet<LocalRepositoryManagerFactory>();
         factories.add( simple );
         factories.add( enhanced );
+        factories.add( contentAddressed );
+        factories.add( indexed );
         return Collections.unmodifiableSet( factories );
     }
 
@@ -21,12 +21,14 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.internal.impl.ContentAddressedLocalRepositoryManagerFactory;
 import org.eclipse.aether.internal.impl.DefaultArtifactResolver;
 import org.eclipse.aether.internal.impl.DefaultChecksumPolicyProvider;
 import org.eclipse.aether.internal.impl.DefaultDependencyCollector;
 import org.eclipse.aether.internal.impl.DefaultDeployer;
 import org.eclipse.aether.internal.impl.DefaultFileProcessor;
 import org.eclipse.aether.internal.impl.DefaultInstaller;
+import org.eclipse.aether.internal.impl.DefaultLocalRepositoryGarbageCollector;
 import org.eclipse.aether.internal.impl.DefaultLocalRepositoryProvider;
 import org.eclipse.aether.internal.impl.DefaultMetadataResolver;
 import org.eclipse.aether.internal.impl.DefaultOfflineController;
@@ -40,6 +42,7 @@ import org.eclipse.aether.internal.impl.DefaultTransporterProvider;
 import org.eclipse.aether.internal.impl.DefaultUpdateCheckManager;
 import org.eclipse.aether.internal.impl.DefaultUpdatePolicyAnalyzer;
 import org.eclipse.aether.internal.impl.EnhancedLocalRepositoryManagerFactory;
+import org.eclipse.aether.internal.impl.IndexedLocalRepositoryManagerFactory;
 import org.eclipse.aether.internal.impl.Maven2RepositoryLayoutFactory;
 import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
 import org.eclipse.aether.internal.impl.Slf4jLoggerFactory;
@@ -215,8 +218,11 @@ public final class DefaultServiceLocator
         addService( RepositoryEventDispatcher.class, DefaultRepositoryEventDispatcher.class );
         addService( OfflineController.class, DefaultOfflineController.class );
         addService( LocalRepositoryProvider.class, DefaultLocalRepositoryProvider.class );
+        addService( LocalRepositoryGarbageCollector.class, DefaultLocalRepositoryGarbageCollector.class );
         addService( LocalRepositoryManagerFactory.class, SimpleLocalRepositoryManagerFactory.class );
         addService( LocalRepositoryManagerFactory.class, EnhancedLocalRepositoryManagerFactory.class );
+        addService( LocalRepositoryManagerFactory.class, ContentAddressedLocalRepositoryManagerFactory.class );
+        addService( LocalRepositoryManagerFactory.class, IndexedLocalRepositoryManagerFactory.class );
         if ( Slf4jLoggerFactory.isSlf4jAvailable() )
         {
             addService( LoggerFactory.class, Slf4jLoggerFactory.class );
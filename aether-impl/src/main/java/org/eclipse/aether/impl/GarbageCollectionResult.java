@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.impl;
+
+/**
+ * The outcome of a garbage collection in the local repository.
+ * 
+ * @see LocalRepositoryGarbageCollector#collect(org.eclipse.aether.RepositorySystemSession)
+ */
+public final class GarbageCollectionResult
+{
+
+    private int deletedFiles;
+
+    private long freedBytes;
+
+    private long repositorySize;
+
+    /**
+     * Gets the number of files that were deleted.
+     * 
+     * @return The number of deleted files.
+     */
+    public int getDeletedFiles()
+    {
+        return deletedFiles;
+    }
+
+    /**
+     * Sets the number of files that were deleted.
+     * 
+     * @param deletedFiles The number of deleted files.
+     * @return This result for chaining.
+     */
+    public GarbageCollectionResult setDeletedFiles( int deletedFiles )
+    {
+        this.deletedFiles = deletedFiles;
+        return this;
+    }
+
+    /**
+     * Gets the total size of the files that were deleted.
+     * 
+     * @return The number of freed bytes.
+     */
+    public long getFreedBytes()
+    {
+        return freedBytes;
+    }
+
+    /**
+     * Sets the total size of the files that were deleted.
+     * 
+     * @param freedBytes The number of freed bytes.
+     * @return This result for chaining.
+     */
+    public GarbageCollectionResult setFreedBytes( long freedBytes )
+    {
+        this.freedBytes = freedBytes;
+        return this;
+    }
+
+    /**
+     * Gets the total size of the artifacts that remain in the local repository.
+     * 
+     * @return The size of the remaining artifacts in bytes.
+     */
+    public long getRepositorySize()
+    {
+        return repositorySize;
+    }
+
+    /**
+     * Sets the total size of the artifacts that remain in the local repository.
+     * 
+     * @param repositorySize The size of the remaining artifacts in bytes.
+     * @return This result for chaining.
+     */
+    public GarbageCollectionResult setRepositorySize( long repositorySize )
+    {
+        this.repositorySize = repositorySize;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "deleted " + deletedFiles + " files (" + freedBytes + " bytes), " + repositorySize + " bytes remaining";
+    }
+
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.impl;
+
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * Removes files from the local repository that are no longer worth keeping: leftovers of interrupted downloads and
+ * temporary files, stale update check records, outdated timestamped snapshots and, if the repository exceeds a size
+ * budget, the least recently used artifacts. Artifacts are only deleted while holding an exclusive
+ * {@link org.eclipse.aether.SyncContext sync context} for them, i.e. not while other threads or processes resolve or
+ * install them. The collection is configured via the following properties of the session:
+ * <ul>
+ * <li>{@code aether.localRepository.gc.maxSize}: The size budget in bytes for the artifacts of the repository,
+ * {@code -1} (the default) for no budget.</li>
+ * <li>{@code aether.localRepository.gc.snapshots}: The number of timestamped snapshots to keep per artifact,
+ * {@code -1} to keep all, defaults to {@code 1}.</li>
+ * <li>{@code aether.localRepository.gc.staleAge}: The age in milliseconds after which leftovers and update check
+ * records are deleted, defaults to one day.</li>
+ * </ul>
+ * The last access to an artifact is taken from the access log that local repository managers maintain if the
+ * property {@code aether.localRepository.accessLog} is set to {@code true}, otherwise from its last-modified
+ * timestamp.
+ * 
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @noextend This interface is not intended to be extended by clients.
+ */
+public interface LocalRepositoryGarbageCollector
+{
+
+    /**
+     * Collects the garbage of the local repository of the specified session. Files that cannot be deleted are skipped.
+     * 
+     * @param session The repository session, must not be {@code null}.
+     * @return The outcome of the collection, never {@code null}.
+     */
+    GarbageCollectionResult collect( RepositorySystemSession session );
+
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.aether.impl;
 
+import java.util.Collection;
+
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.metadata.Metadata;
@@ -17,7 +19,8 @@ import org.eclipse.aether.transfer.ArtifactTransferException;
 import org.eclipse.aether.transfer.MetadataTransferException;
 
 /**
- * Determines if updates of artifacts and metadata from remote repositories are needed.
+ * Determines if updates of artifacts and metadata from remote repositories are needed. Custom implementations should
+ * extend {@link AbstractUpdateCheckManager} to stay compatible with methods added to this interface.
  * 
  * @noimplement This interface is not intended to be implemented by clients.
  * @noextend This interface is not intended to be extended by clients.
@@ -33,6 +36,21 @@ public interface UpdateCheckManager
      */
     void checkArtifact( RepositorySystemSession session, UpdateCheck<Artifact, ArtifactTransferException> check );
 
+    /**
+     * Checks whether the specified artifacts have to be updated from remote repositories. This is equivalent to
+     * calling {@link #checkArtifact(RepositorySystemSession, UpdateCheck)} for each check but allows to share the
+     * evaluation costs among the checks, e.g. when the artifacts are located in the same directories or are to be
+     * fetched from the same repository.
+     * <p>
+     * <em>Note:</em> This method was added to an already published interface, implementations that do not extend
+     * {@link AbstractUpdateCheckManager} need to provide it themselves.
+     * 
+     * @param session The repository system session during which the request is made, must not be {@code null}.
+     * @param checks The update check requests, must not be {@code null}.
+     */
+    void checkArtifacts( RepositorySystemSession session,
+                         Collection<? extends UpdateCheck<Artifact, ArtifactTransferException>> checks );
+
     /**
      * Updates the timestamp for the artifact contained in the update check.
      * 
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A log of the accesses to the artifacts of a local repository, used to find the least recently used artifacts. Each
+ * line holds the time of an access (in hex) followed by the path of the artifact relative to the local repository.
+ * Lines are appended with a single write to a file opened for appending such that concurrent processes do not
+ * interleave them, and this JVM logs an artifact at most once per hour to keep the log compact. Readers skip lines
+ * that are malformed (e.g. due to a crash during a write), the garbage collector eventually rewrites the log with one
+ * line per remaining artifact. Instances are shared by all users of the same local repository within a JVM.
+ */
+final class AccessLog
+{
+
+    static final String CONFIG_PROP_ENABLED = "aether.localRepository.accessLog";
+
+    static final String FILENAME = "_access.log";
+
+    private static final long GRANULARITY = 60 * 60 * 1000L;
+
+    private static final int MAX_CACHED_LOGS = 16;
+
+    private static final int MAX_RECORDED_PATHS = 16 * 1024;
+
+    private static final Map<File, AccessLog> LOGS = new LinkedHashMap<File, AccessLog>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<File, AccessLog> eldest )
+        {
+            return size() > MAX_CACHED_LOGS;
+        }
+    };
+
+    private final File file;
+
+    private final Map<String, Long> recorded = new HashMap<String, Long>();
+
+    /**
+     * Gets the access log of the specified local repository.
+     * 
+     * @param basedir The base directory of the local repository, must not be {@code null}.
+     * @return The access log, never {@code null}.
+     */
+    public static AccessLog get( File basedir )
+    {
+        File key = basedir.getAbsoluteFile();
+        synchronized ( LOGS )
+        {
+            AccessLog log = LOGS.get( key );
+            if ( log == null )
+            {
+                log = new AccessLog( new File( key, FILENAME ) );
+                LOGS.put( key, log );
+            }
+            return log;
+        }
+    }
+
+    private AccessLog( File file )
+    {
+        this.file = file;
+    }
+
+    /**
+     * Records an access to the specified artifact. Failures to write the log are silently ignored, access tracking is
+     * best effort.
+     * 
+     * @param path The path of the artifact relative to the local repository, must not be {@code null}.
+     * @param time The time of the access.
+     */
+    public void record( String path, long time )
+    {
+        synchronized ( recorded )
+        {
+            Long last = recorded.get( path );
+            if ( last != null && time >= last.longValue() && time - last.longValue() < GRANULARITY )
+            {
+                return;
+            }
+            if ( recorded.size() >= MAX_RECORDED_PATHS )
+            {
+                recorded.clear();
+            }
+            recorded.put( path, Long.valueOf( time ) );
+        }
+
+        try
+        {
+            byte[] line = ( Long.toHexString( time ) + ' ' + path + '\n' ).getBytes( "UTF-8" );
+            FileOutputStream fos = new FileOutputStream( file, true );
+            try
+            {
+                fos.write( line );
+            }
+            finally
+            {
+                fos.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            // irrelevant
+        }
+    }
+
+    /**
+     * Reads the log.
+     * 
+     * @return The time of the last recorded access by artifact path, never {@code null}.
+     * @throws IOException If the log could not be read.
+     */
+    public Map<String, Long> read()
+        throws IOException
+    {
+        Map<String, Long> accesses = new HashMap<String, Long>();
+
+        FileInputStream fis;
+        try
+        {
+            fis = new FileInputStream( file );
+        }
+        catch ( FileNotFoundException e )
+        {
+            return accesses;
+        }
+
+        try
+        {
+            BufferedReader reader = new BufferedReader( new InputStreamReader( fis, "UTF-8" ) );
+            for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+            {
+                int space = line.indexOf( ' ' );
+                if ( space <= 0 || space >= line.length() - 1 )
+                {
+                    continue;
+                }
+                long time;
+                try
+                {
+                    time = Long.parseLong( line.substring( 0, space ), 16 );
+                }
+                catch ( NumberFormatException e )
+                {
+                    continue;
+                }
+                String path = line.substring( space + 1 );
+                Long last = accesses.get( path );
+                if ( last == null || last.longValue() < time )
+                {
+                    accesses.put( path, Long.valueOf( time ) );
+                }
+            }
+        }
+        finally
+        {
+            close( fis );
+        }
+
+        return accesses;
+    }
+
+    /**
+     * Replaces the log with the specified accesses. Accesses that other processes record while the log is rewritten
+     * may get lost.
+     * 
+     * @param accesses The time of the last access by artifact path, must not be {@code null}.
+     * @throws IOException If the log could not be written.
+     */
+    public void rewrite( Map<String, Long> accesses )
+        throws IOException
+    {
+        File tmp = new File( file.getPath() + ".tmp" );
+
+        Writer writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( tmp ), "UTF-8" ) );
+        try
+        {
+            for ( Map.Entry<String, Long> access : accesses.entrySet() )
+            {
+                writer.write( Long.toHexString( access.getValue().longValue() ) );
+                writer.write( ' ' );
+                writer.write( access.getKey() );
+                writer.write( '\n' );
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        if ( !tmp.renameTo( file ) )
+        {
+            file.delete();
+            if ( !tmp.renameTo( file ) )
+            {
+                tmp.delete();
+                throw new IOException( "Could not replace " + file );
+            }
+        }
+    }
+
+    private static void close( FileInputStream fis )
+    {
+        try
+        {
+            fis.close();
+        }
+        catch ( IOException e )
+        {
+            // irrelevant
+        }
+    }
+
+}
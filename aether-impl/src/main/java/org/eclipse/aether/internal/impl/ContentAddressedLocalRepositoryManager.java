@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.util.ChecksumUtils;
+
+/**
+ * These are implementation details for the content-addressed local repository manager, subject to change without prior
+ * notice. Besides the tracking done by the enhanced local repository manager, each registered artifact file is stored
+ * once in a blob store below <code>.blobs/</code>, keyed by the SHA-1 of its contents. The file at the regular
+ * repository path is a hard link to that blob, so identical files that are published under different coordinates (e.g.
+ * timestamped and normalized snapshots, relocated artifacts) occupy disk space only once. If the Java runtime cannot
+ * create hard links, the repository simply behaves like the enhanced local repository.
+ * 
+ * @see ContentAddressedLocalRepositoryManagerFactory
+ */
+class ContentAddressedLocalRepositoryManager
+    extends EnhancedLocalRepositoryManager
+{
+
+    static final String TYPE = "content-addressed";
+
+    static final String BLOBS_DIR = ".blobs";
+
+    private static final String ALGO = "SHA-1";
+
+    private static final int MAX_DEDUPED_FILES = 4096;
+
+    /*
+     * NOTE: Files already linked to their blob (and blobs whose contents were verified), keyed by path with their
+     * length and last-modified timestamp, such that repeated registrations of unchanged files do not re-read them.
+     */
+    private static final Map<File, String> DEDUPED = new LinkedHashMap<File, String>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<File, String> eldest )
+        {
+            return size() > MAX_DEDUPED_FILES;
+        }
+    };
+
+    private Logger logger = NullLoggerFactory.LOGGER;
+
+    public ContentAddressedLocalRepositoryManager( File basedir, RepositorySystemSession session )
+    {
+        super( basedir, TYPE, session );
+    }
+
+    @Override
+    public ContentAddressedLocalRepositoryManager setLogger( Logger logger )
+    {
+        super.setLogger( logger );
+        this.logger = ( logger != null ) ? logger : NullLoggerFactory.LOGGER;
+        return this;
+    }
+
+    @Override
+    public void add( RepositorySystemSession session, LocalArtifactRegistration request )
+    {
+        super.add( session, request );
+
+        Artifact artifact = request.getArtifact();
+        String path = getPathForArtifact( artifact, request.getRepository() == null );
+        dedupe( new File( getRepository().getBasedir(), path ) );
+    }
+
+    /**
+     * Gets the blob file for the specified checksum.
+     * 
+     * @param sha1 The hex-encoded SHA-1 checksum of the content, must not be {@code null}.
+     * @return The blob file, never {@code null}.
+     */
+    File getBlob( String sha1 )
+    {
+        File dir = new File( getRepository().getBasedir(), BLOBS_DIR );
+        return new File( new File( dir, sha1.substring( 0, 2 ) ), sha1 );
+    }
+
+    private void dedupe( File file )
+    {
+        if ( !HardLinks.isSupported() || !file.isFile() || isDeduped( file ) )
+        {
+            return;
+        }
+
+        String sha1 = sha1( file );
+        if ( sha1 == null )
+        {
+            return;
+        }
+
+        File blob = getBlob( sha1 );
+
+        if ( !blob.isFile() )
+        {
+            blob.getParentFile().mkdirs();
+            if ( HardLinks.link( file, blob ) )
+            {
+                setDeduped( file );
+                return;
+            }
+            else if ( !blob.isFile() )
+            {
+                logger.debug( "Failed to create blob " + blob + " for " + file );
+                return;
+            }
+            // concurrently created by another process, use that one instead
+        }
+
+        if ( !isDeduped( blob ) && !sha1.equals( sha1( blob ) ) )
+        {
+            logger.debug( "Blob " + blob + " is corrupt, replacing it with " + file );
+            if ( HardLinks.replace( file, blob ) )
+            {
+                setDeduped( blob );
+                setDeduped( file );
+            }
+            return;
+        }
+        setDeduped( blob );
+
+        if ( HardLinks.replace( blob, file ) )
+        {
+            setDeduped( file );
+        }
+        else
+        {
+            logger.debug( "Failed to link " + file + " to blob " + blob );
+        }
+    }
+
+    private String sha1( File file )
+    {
+        Object sha1;
+        try
+        {
+            sha1 = ChecksumUtils.calc( file, Collections.singleton( ALGO ) ).get( ALGO );
+        }
+        catch ( IOException e )
+        {
+            sha1 = e;
+        }
+        if ( !( sha1 instanceof String ) )
+        {
+            logger.debug( "Could not calculate checksum of " + file + ", skipping deduplication", (Throwable) sha1 );
+            return null;
+        }
+        return (String) sha1;
+    }
+
+    private static String getStamp( File file )
+    {
+        return file.length() + ":" + file.lastModified();
+    }
+
+    private static boolean isDeduped( File file )
+    {
+        String stamp = getStamp( file );
+        synchronized ( DEDUPED )
+        {
+            return stamp.equals( DEDUPED.get( file.getAbsoluteFile() ) );
+        }
+    }
+
+    private static void setDeduped( File file )
+    {
+        String stamp = getStamp( file );
+        synchronized ( DEDUPED )
+        {
+            DEDUPED.put( file.getAbsoluteFile(), stamp );
+        }
+    }
+
+}
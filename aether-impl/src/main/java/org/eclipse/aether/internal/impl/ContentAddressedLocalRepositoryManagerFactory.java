@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import javax.inject.Named;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.NoLocalRepositoryManagerException;
+import org.eclipse.aether.spi.localrepo.LocalRepositoryManagerFactory;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.spi.log.LoggerFactory;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+
+/**
+ * Creates content-addressed local repository managers for repository type {@code "content-addressed"}. This local
+ * repository manager extends the enhanced local repository manager and additionally stores identical artifact files
+ * only once by hard-linking them to a shared blob keyed by their SHA-1 checksum. As this repository layout is opt-in,
+ * the factory does not claim the default or automatic repository types.
+ */
+@Named( "content-addressed" )
+@Component( role = LocalRepositoryManagerFactory.class, hint = "content-addressed" )
+public class ContentAddressedLocalRepositoryManagerFactory
+    implements LocalRepositoryManagerFactory, Service
+{
+
+    @Requirement( role = LoggerFactory.class )
+    private Logger logger = NullLoggerFactory.LOGGER;
+
+    private float priority = 10;
+
+    public LocalRepositoryManager newInstance( RepositorySystemSession session, LocalRepository repository )
+        throws NoLocalRepositoryManagerException
+    {
+        if ( ContentAddressedLocalRepositoryManager.TYPE.equals( repository.getContentType() ) )
+        {
+            return new ContentAddressedLocalRepositoryManager( repository.getBasedir(), session ).setLogger( logger );
+        }
+        else
+        {
+            throw new NoLocalRepositoryManagerException( repository );
+        }
+    }
+
+    public void initService( ServiceLocator locator )
+    {
+        setLoggerFactory( locator.getService( LoggerFactory.class ) );
+    }
+
+    public ContentAddressedLocalRepositoryManagerFactory setLoggerFactory( LoggerFactory loggerFactory )
+    {
+        this.logger = NullLoggerFactory.getSafeLogger( loggerFactory, ContentAddressedLocalRepositoryManager.class );
+        return this;
+    }
+
+    void setLogger( LoggerFactory loggerFactory )
+    {
+        // plexus support
+        setLoggerFactory( loggerFactory );
+    }
+
+    public float getPriority()
+    {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this component.
+     * 
+     * @param priority The priority.
+     * @return This component for chaining, never {@code null}.
+     */
+    public ContentAddressedLocalRepositoryManagerFactory setPriority( float priority )
+    {
+        this.priority = priority;
+        return this;
+    }
+
+}
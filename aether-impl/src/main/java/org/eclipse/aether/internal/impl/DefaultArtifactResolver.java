@@ -17,6 +17,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
@@ -69,6 +74,8 @@ import org.eclipse.aether.transfer.ArtifactTransferException;
 import org.eclipse.aether.transfer.NoRepositoryConnectorException;
 import org.eclipse.aether.transfer.RepositoryOfflineException;
 import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.concurrency.RunnableErrorForwarder;
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
 
 /**
  */
@@ -80,6 +87,17 @@ public class DefaultArtifactResolver
 
     private static final String CONFIG_PROP_SNAPSHOT_NORMALIZATION = "aether.artifactResolver.snapshotNormalization";
 
+    /*
+     * NOTE: Concurrent local lookups are opt-in. With more than one thread, the ARTIFACT_RESOLVING events of a large
+     * batch are all fired before the lookups start instead of right before the lookup of each artifact.
+     */
+    private static final String CONFIG_PROP_THREADS = "aether.artifactResolver.threads";
+
+    /*
+     * NOTE: Below this size, handing the local lookups of a batch over to worker threads costs more than it saves.
+     */
+    private static final int MIN_PARALLEL_LOOKUPS = 32;
+
     @Requirement( role = LoggerFactory.class )
     private Logger logger = NullLoggerFactory.LOGGER;
 
@@ -281,17 +299,39 @@ public class DefaultArtifactResolver
 
         List<ResolutionGroup> groups = new ArrayList<ResolutionGroup>();
 
-        for ( ArtifactRequest request : requests )
+        List<ArtifactRequest> requestList = new ArrayList<ArtifactRequest>( requests );
+        RequestTrace[] traces = new RequestTrace[requestList.size()];
+        for ( int i = 0; i < traces.length; i++ )
+        {
+            ArtifactRequest request = requestList.get( i );
+            traces[i] = RequestTrace.newChild( request.getTrace(), request );
+        }
+
+        LocalLookup[] lookups = null;
+        int threads = ConfigUtils.getInteger( session, 1, CONFIG_PROP_THREADS );
+        if ( threads > 1 && requestList.size() >= MIN_PARALLEL_LOOKUPS )
+        {
+            for ( int i = 0; i < traces.length; i++ )
+            {
+                artifactResolving( session, traces[i], requestList.get( i ).getArtifact() );
+            }
+            lookups = lookup( session, requestList, traces, threads );
+        }
+
+        for ( int i = 0; i < traces.length; i++ )
         {
-            RequestTrace trace = RequestTrace.newChild( request.getTrace(), request );
+            ArtifactRequest request = requestList.get( i );
+            RequestTrace trace = traces[i];
 
             ArtifactResult result = new ArtifactResult( request );
             results.add( result );
 
             Artifact artifact = request.getArtifact();
-            List<RemoteRepository> repos = request.getRepositories();
 
-            artifactResolving( session, trace, artifact );
+            if ( lookups == null )
+            {
+                artifactResolving( session, trace, artifact );
+            }
 
             String localPath = artifact.getProperty( ArtifactProperties.LOCAL_PATH, null );
             if ( localPath != null )
@@ -312,48 +352,27 @@ public class DefaultArtifactResolver
                 continue;
             }
 
-            VersionResult versionResult;
-            try
-            {
-                VersionRequest versionRequest = new VersionRequest( artifact, repos, request.getRequestContext() );
-                versionRequest.setTrace( trace );
-                versionResult = versionResolver.resolveVersion( session, versionRequest );
-            }
-            catch ( VersionResolutionException e )
+            LocalLookup lookup = ( lookups != null ) ? lookups[i] : lookup( session, request, trace );
+            if ( lookup.exception != null )
             {
-                result.addException( e );
+                result.addException( lookup.exception );
                 continue;
             }
 
-            artifact = artifact.setVersion( versionResult.getVersion() );
-
-            if ( versionResult.getRepository() != null )
-            {
-                if ( versionResult.getRepository() instanceof RemoteRepository )
-                {
-                    repos = Collections.singletonList( (RemoteRepository) versionResult.getRepository() );
-                }
-                else
-                {
-                    repos = Collections.emptyList();
-                }
-            }
+            artifact = lookup.artifact;
+            List<RemoteRepository> repos = lookup.repositories;
+            VersionResult versionResult = lookup.versionResult;
 
-            if ( workspace != null )
+            if ( lookup.workspaceFile != null )
             {
-                File file = workspace.findArtifact( artifact );
-                if ( file != null )
-                {
-                    artifact = artifact.setFile( file );
-                    result.setArtifact( artifact );
-                    result.setRepository( workspace.getRepository() );
-                    artifactResolved( session, trace, artifact, result.getRepository(), null );
-                    continue;
-                }
+                artifact = artifact.setFile( lookup.workspaceFile );
+                result.setArtifact( artifact );
+                result.setRepository( workspace.getRepository() );
+                artifactResolved( session, trace, artifact, result.getRepository(), null );
+                continue;
             }
 
-            LocalArtifactResult local =
-                lrm.find( session, new LocalArtifactRequest( artifact, repos, request.getRequestContext() ) );
+            LocalArtifactResult local = lookup.local;
             if ( isLocallyInstalled( local, versionResult ) )
             {
                 if ( local.getRepository() != null )
@@ -465,6 +484,122 @@ public class DefaultArtifactResolver
         return results;
     }
 
+    private LocalLookup[] lookup( final RepositorySystemSession session, final List<ArtifactRequest> requests,
+                                  final RequestTrace[] traces, int threads )
+    {
+        final LocalLookup[] lookups = new LocalLookup[requests.size()];
+
+        Executor executor = getExecutor( Math.min( requests.size(), threads ) );
+        try
+        {
+            RunnableErrorForwarder errorForwarder = new RunnableErrorForwarder();
+
+            for ( int i = 0; i < lookups.length; i++ )
+            {
+                final int index = i;
+                final ArtifactRequest request = requests.get( index );
+                if ( request.getArtifact().getProperty( ArtifactProperties.LOCAL_PATH, null ) != null )
+                {
+                    continue;
+                }
+                executor.execute( errorForwarder.wrap( new Runnable()
+                {
+                    public void run()
+                    {
+                        lookups[index] = lookup( session, request, traces[index] );
+                    }
+                } ) );
+            }
+
+            errorForwarder.await();
+        }
+        finally
+        {
+            shutdown( executor );
+        }
+
+        return lookups;
+    }
+
+    private LocalLookup lookup( RepositorySystemSession session, ArtifactRequest request, RequestTrace trace )
+    {
+        LocalLookup lookup = new LocalLookup();
+
+        Artifact artifact = request.getArtifact();
+        List<RemoteRepository> repos = request.getRepositories();
+
+        try
+        {
+            VersionRequest versionRequest = new VersionRequest( artifact, repos, request.getRequestContext() );
+            versionRequest.setTrace( trace );
+            lookup.versionResult = versionResolver.resolveVersion( session, versionRequest );
+        }
+        catch ( VersionResolutionException e )
+        {
+            lookup.exception = e;
+            return lookup;
+        }
+
+        artifact = artifact.setVersion( lookup.versionResult.getVersion() );
+
+        if ( lookup.versionResult.getRepository() != null )
+        {
+            if ( lookup.versionResult.getRepository() instanceof RemoteRepository )
+            {
+                repos = Collections.singletonList( (RemoteRepository) lookup.versionResult.getRepository() );
+            }
+            else
+            {
+                repos = Collections.emptyList();
+            }
+        }
+
+        lookup.artifact = artifact;
+        lookup.repositories = repos;
+
+        WorkspaceReader workspace = session.getWorkspaceReader();
+        if ( workspace != null )
+        {
+            lookup.workspaceFile = workspace.findArtifact( artifact );
+            if ( lookup.workspaceFile != null )
+            {
+                return lookup;
+            }
+        }
+
+        LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+        lookup.local = lrm.find( session, new LocalArtifactRequest( artifact, repos, request.getRequestContext() ) );
+
+        return lookup;
+    }
+
+    private Executor getExecutor( int threads )
+    {
+        if ( threads <= 1 )
+        {
+            return new Executor()
+            {
+                public void execute( Runnable command )
+                {
+                    command.run();
+                }
+            };
+        }
+        else
+        {
+            return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                           new WorkerThreadFactory( null ) );
+        }
+    }
+
+    private void shutdown( Executor executor )
+    {
+        if ( executor instanceof ExecutorService )
+        {
+            ( (ExecutorService) executor ).shutdown();
+        }
+    }
+
     private boolean isLocallyInstalled( LocalArtifactResult lar, VersionResult vr )
     {
         if ( lar.isAvailable() )
@@ -497,11 +632,16 @@ public class DefaultArtifactResolver
             File dst = new File( file.getParent(), name );
 
             boolean copy = dst.length() != file.length() || dst.lastModified() != file.lastModified();
+            if ( copy && isContentAddressed( session ) && HardLinks.replace( file, dst ) )
+            {
+                // the normalized snapshot shares its content with the timestamped one
+                copy = false;
+            }
             if ( copy )
             {
                 try
                 {
-                    fileProcessor.copy( file, dst );
+                    fileProcessor.forSession( session ).copy( file, dst );
                     dst.setLastModified( file.lastModified() );
                 }
                 catch ( IOException e )
@@ -516,6 +656,13 @@ public class DefaultArtifactResolver
         return file;
     }
 
+    private static boolean isContentAddressed( RepositorySystemSession session )
+    {
+        LocalRepository localRepository = session.getLocalRepository();
+        return localRepository != null
+            && ContentAddressedLocalRepositoryManager.TYPE.equals( localRepository.getContentType() );
+    }
+
     private void performDownloads( RepositorySystemSession session, ResolutionGroup group )
     {
         List<ArtifactDownload> downloads = gatherDownloads( session, group );
@@ -556,7 +703,9 @@ public class DefaultArtifactResolver
     private List<ArtifactDownload> gatherDownloads( RepositorySystemSession session, ResolutionGroup group )
     {
         LocalRepositoryManager lrm = session.getLocalRepositoryManager();
-        List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
+        List<ResolutionItem> items = new ArrayList<ResolutionItem>();
+        List<UpdateCheck<Artifact, ArtifactTransferException>> checks =
+            new ArrayList<UpdateCheck<Artifact, ArtifactTransferException>>();
 
         for ( ResolutionItem item : group.items )
         {
@@ -600,18 +749,32 @@ public class DefaultArtifactResolver
                 check.setRepository( group.repository );
                 check.setPolicy( policy.getUpdatePolicy() );
                 item.updateCheck = check;
-                updateCheckManager.checkArtifact( session, check );
-                if ( !check.isRequired() )
-                {
-                    item.result.addException( check.getException() );
-                    continue;
-                }
+                checks.add( check );
             }
 
             download.setChecksumPolicy( policy.getChecksumPolicy() );
             download.setRepositories( item.repository.getMirroredRepositories() );
-            downloads.add( download );
             item.download = download;
+            items.add( item );
+        }
+
+        if ( !checks.isEmpty() )
+        {
+            updateCheckManager.checkArtifacts( session, checks );
+        }
+
+        List<ArtifactDownload> downloads = new ArrayList<ArtifactDownload>();
+
+        for ( ResolutionItem item : items )
+        {
+            UpdateCheck<Artifact, ArtifactTransferException> check = item.updateCheck;
+            if ( check != null && !check.isRequired() )
+            {
+                item.result.addException( check.getException() );
+                item.download = null;
+                continue;
+            }
+            downloads.add( item.download );
         }
 
         return downloads;
@@ -723,6 +886,27 @@ public class DefaultArtifactResolver
         repositoryEventDispatcher.dispatch( event.build() );
     }
 
+    /**
+     * The outcome of the local lookup for a single artifact request, i.e. everything that can be determined without
+     * accessing remote repositories.
+     */
+    static class LocalLookup
+    {
+
+        Artifact artifact;
+
+        List<RemoteRepository> repositories;
+
+        VersionResult versionResult;
+
+        VersionResolutionException exception;
+
+        File workspaceFile;
+
+        LocalArtifactResult local;
+
+    }
+
     static class ResolutionGroup
     {
 
@@ -490,7 +490,7 @@ public class DefaultDeployer
             }
             try
             {
-                fileProcessor.copy( metadata.getFile(), dstFile );
+                fileProcessor.forSession( session ).copy( metadata.getFile(), dstFile );
             }
             catch ( IOException e )
             {
@@ -17,15 +17,25 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
 
 import javax.inject.Named;
 
 import org.codehaus.plexus.component.annotations.Component;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.spi.io.BufferPool;
 import org.eclipse.aether.spi.io.FileProcessor;
+import org.eclipse.aether.util.ConfigUtils;
 
 /**
- * A utility class helping with file-based operations.
+ * A utility class helping with file-based operations. Files are always written to a temporary file first which is then
+ * renamed to the target file, so readers never observe partially written files. Whether written files are forced to
+ * the storage device is controlled via {@link #setSync(boolean)}, whose default can be set by the system property
+ * {@code aether.fileProcessor.sync}. The configuration property of the same name overrides this for the file
+ * processors obtained via {@link #forSession(RepositorySystemSession)}.
  */
 @Named
 @Component( role = FileProcessor.class )
@@ -33,6 +43,43 @@ public class DefaultFileProcessor
     implements FileProcessor
 {
 
+    static final String CONFIG_PROP_SYNC = "aether.fileProcessor.sync";
+
+    private static final boolean WINDOWS =
+        System.getProperty( "os.name", "" ).toLowerCase( Locale.ENGLISH ).startsWith( "windows" );
+
+    private volatile boolean sync;
+
+    public DefaultFileProcessor()
+    {
+        this( ConfigUtils.getBoolean( System.getProperties(), false, CONFIG_PROP_SYNC ) );
+    }
+
+    private DefaultFileProcessor( boolean sync )
+    {
+        this.sync = sync;
+    }
+
+    /**
+     * Controls whether written files are forced to the storage device before they replace their target. Syncing makes
+     * the local repository robust against system crashes at the expense of I/O performance, which is mostly desirable
+     * for shared caches but unnecessary for throw-away build environments.
+     * 
+     * @param sync {@code true} to sync written files, {@code false} to leave that to the operating system.
+     * @return This component for chaining, never {@code null}.
+     */
+    public DefaultFileProcessor setSync( boolean sync )
+    {
+        this.sync = sync;
+        return this;
+    }
+
+    public FileProcessor forSession( RepositorySystemSession session )
+    {
+        boolean sync = ConfigUtils.getBoolean( session, this.sync, CONFIG_PROP_SYNC );
+        return ( sync == this.sync ) ? this : new DefaultFileProcessor( sync );
+    }
+
     private static void close( Closeable closeable )
     {
         if ( closeable != null )
@@ -64,71 +111,160 @@ public class DefaultFileProcessor
             return false;
         }
 
-        if ( directory.exists() )
+        /*
+         * NOTE: Directories are deliberately not cached as known to exist, they can be deleted at any time (e.g. by a
+         * garbage collection of the local repository) and confirming a cache hit costs as much as this check.
+         */
+        File dir = directory.getAbsoluteFile();
+        if ( dir.exists() )
         {
             return false;
         }
-        if ( directory.mkdir() )
+        if ( dir.mkdir() )
         {
             return true;
         }
 
-        File canonDir;
         try
         {
-            canonDir = directory.getCanonicalFile();
+            return mkdirsCanonical( dir.getCanonicalFile() );
         }
         catch ( IOException e )
         {
             return false;
         }
+    }
+
+    private static boolean mkdirsCanonical( File canonDir )
+    {
+        if ( canonDir.exists() )
+        {
+            return false;
+        }
+        if ( canonDir.mkdir() )
+        {
+            return true;
+        }
 
         File parentDir = canonDir.getParentFile();
-        return ( parentDir != null && ( mkdirs( parentDir ) || parentDir.exists() ) && canonDir.mkdir() );
+        return ( parentDir != null && ( mkdirsCanonical( parentDir ) || parentDir.exists() ) && canonDir.mkdir() );
+    }
+
+    /**
+     * Creates a temporary file next to the specified target file, to be eventually renamed to the target.
+     */
+    private File newTempFile( File target )
+        throws IOException
+    {
+        File dir = target.getAbsoluteFile().getParentFile();
+        mkdirs( dir );
+        try
+        {
+            return File.createTempFile( "." + target.getName() + ".", ".tmp", dir );
+        }
+        catch ( IOException e )
+        {
+            // directory might have been deleted concurrently
+            mkdirs( dir );
+            return File.createTempFile( "." + target.getName() + ".", ".tmp", dir );
+        }
+    }
+
+    private void sync( FileOutputStream fos )
+        throws IOException
+    {
+        if ( sync )
+        {
+            fos.getChannel().force( true );
+        }
+    }
+
+    /**
+     * Replaces the target file with the (completely written) temporary file.
+     */
+    private static void rename( File tmp, File target )
+        throws IOException
+    {
+        /*
+         * NOTE: Unlike overwriting the target, renaming leaves other paths that are hard-linked to the current target
+         * (cf. ContentAddressedLocalRepositoryManager) untouched and keeps the current target if the write fails.
+         */
+        if ( tmp.renameTo( target ) )
+        {
+            return;
+        }
+        if ( !WINDOWS || !target.exists() )
+        {
+            throw new IOException( "Could not rename " + tmp + " to " + target );
+        }
+
+        // Windows refuses to rename onto an existing file, so move the target aside and restore it on failure
+        File backup = File.createTempFile( "." + target.getName() + ".", ".old.tmp", tmp.getParentFile() );
+        backup.delete();
+        if ( !target.renameTo( backup ) )
+        {
+            throw new IOException( "Could not rename " + tmp + " to " + target );
+        }
+        if ( !tmp.renameTo( target ) )
+        {
+            backup.renameTo( target );
+            throw new IOException( "Could not rename " + tmp + " to " + target );
+        }
+        backup.delete();
     }
 
     public void write( File target, String data )
         throws IOException
     {
-        mkdirs( target.getAbsoluteFile().getParentFile() );
+        File tmp = newTempFile( target );
 
-        OutputStream fos = null;
+        FileOutputStream fos = null;
         try
         {
-            fos = new FileOutputStream( target );
+            fos = new FileOutputStream( tmp );
 
             if ( data != null )
             {
                 fos.write( data.getBytes( "UTF-8" ) );
             }
 
+            sync( fos );
+
             // allow output to report any flush/close errors
             fos.close();
+
+            rename( tmp, target );
         }
         finally
         {
             close( fos );
+            tmp.delete();
         }
     }
 
     public void write( File target, InputStream source )
         throws IOException
     {
-        mkdirs( target.getAbsoluteFile().getParentFile() );
+        File tmp = newTempFile( target );
 
-        OutputStream fos = null;
+        FileOutputStream fos = null;
         try
         {
-            fos = new FileOutputStream( target );
+            fos = new FileOutputStream( tmp );
 
             copy( fos, source, null );
 
+            sync( fos );
+
             // allow output to report any flush/close errors
             fos.close();
+
+            rename( tmp, target );
         }
         finally
         {
             close( fos );
+            tmp.delete();
         }
     }
 
@@ -143,25 +279,34 @@ public class DefaultFileProcessor
     {
         long total = 0;
 
-        InputStream fis = null;
-        OutputStream fos = null;
+        FileInputStream fis = null;
+        FileOutputStream fos = null;
+        File tmp = null;
         try
         {
             fis = new FileInputStream( source );
 
-            mkdirs( target.getAbsoluteFile().getParentFile() );
+            tmp = newTempFile( target );
+
+            fos = new FileOutputStream( tmp );
 
-            fos = new FileOutputStream( target );
+            total = copy( fos.getChannel(), fis.getChannel(), listener );
 
-            total = copy( fos, fis, listener );
+            sync( fos );
 
             // allow output to report any flush/close errors
             fos.close();
+
+            rename( tmp, target );
         }
         finally
         {
             close( fis );
             close( fos );
+            if ( tmp != null )
+            {
+                tmp.delete();
+            }
         }
 
         return total;
@@ -172,35 +317,107 @@ public class DefaultFileProcessor
     {
         long total = 0;
 
-        ByteBuffer buffer = ByteBuffer.allocate( 1024 * 32 );
-        byte[] array = buffer.array();
-
-        while ( true )
+        ByteBuffer buffer = BufferPool.acquire( -1 );
+        try
         {
-            int bytes = is.read( array );
-            if ( bytes < 0 )
+            byte[] array = buffer.array();
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+
+            while ( true )
             {
-                break;
+                int bytes = is.read( array );
+                if ( bytes < 0 )
+                {
+                    break;
+                }
+
+                os.write( array, 0, bytes );
+
+                total += bytes;
+
+                if ( listener != null && bytes > 0 )
+                {
+                    try
+                    {
+                        view.clear();
+                        view.limit( bytes );
+                        listener.progressed( view );
+                    }
+                    catch ( Exception e )
+                    {
+                        // too bad
+                    }
+                }
             }
+        }
+        finally
+        {
+            BufferPool.release( buffer );
+        }
 
-            os.write( array, 0, bytes );
+        return total;
+    }
+
+    private long copy( FileChannel dst, FileChannel src, ProgressListener listener )
+        throws IOException
+    {
+        long total = 0;
+        long length = src.size();
 
-            total += bytes;
+        if ( listener == null )
+        {
+            while ( total < length )
+            {
+                long bytes = src.transferTo( total, Math.min( 1024 * 1024, length - total ), dst );
+                if ( bytes <= 0 )
+                {
+                    throw new IOException( "Failed to copy data at offset " + total + " of " + length + " bytes" );
+                }
+                total += bytes;
+            }
+            return total;
+        }
 
-            if ( listener != null && bytes > 0 )
+        /*
+         * NOTE: The listener needs to see the data, so read it once into a pooled heap buffer. Mapping the source
+         * instead would pin the file (and lock it on Windows) until the mapped buffers get garbage collected.
+         */
+        ByteBuffer buffer = BufferPool.acquire( length );
+        try
+        {
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            while ( total < length )
             {
+                buffer.clear();
+                int bytes = src.read( buffer, total );
+                if ( bytes <= 0 )
+                {
+                    throw new IOException( "Failed to copy data at offset " + total + " of " + length + " bytes" );
+                }
+                buffer.flip();
+                while ( buffer.hasRemaining() )
+                {
+                    dst.write( buffer );
+                }
+
                 try
                 {
-                    buffer.rewind();
-                    buffer.limit( bytes );
-                    listener.progressed( buffer );
+                    view.clear();
+                    view.limit( bytes );
+                    listener.progressed( view );
                 }
                 catch ( Exception e )
                 {
                     // too bad
                 }
+
+                total += bytes;
             }
         }
+        finally
+        {
+            BufferPool.release( buffer );
+        }
 
         return total;
     }
@@ -208,6 +425,22 @@ public class DefaultFileProcessor
     public void move( File source, File target )
         throws IOException
     {
+        if ( sync )
+        {
+            // the source need not be writable
+            RandomAccessFile raf = new RandomAccessFile( source, "r" );
+            try
+            {
+                raf.getChannel().force( true );
+            }
+            finally
+            {
+                close( raf );
+            }
+        }
+
+        mkdirs( target.getAbsoluteFile().getParentFile() );
+
         if ( !source.renameTo( target ) )
         {
             copy( source, target );
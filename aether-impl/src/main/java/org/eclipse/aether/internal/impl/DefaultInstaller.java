@@ -16,6 +16,12 @@ import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -47,6 +53,8 @@ import org.eclipse.aether.spi.locator.ServiceLocator;
 import org.eclipse.aether.spi.log.Logger;
 import org.eclipse.aether.spi.log.LoggerFactory;
 import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
 
 /**
  */
@@ -56,6 +64,10 @@ public class DefaultInstaller
     implements Installer, Service
 {
 
+    private static final String CONFIG_PROP_THREADS = "aether.installer.threads";
+
+    private static final String CONFIG_PROP_HARD_LINKS = "aether.installer.hardLinks";
+
     @Requirement( role = LoggerFactory.class )
     private Logger logger = NullLoggerFactory.LOGGER;
 
@@ -200,13 +212,6 @@ public class DefaultInstaller
 
         syncContext.acquire( artifacts, Utils.combine( request.getMetadata(), metadatas ) );
 
-        for ( Metadata metadata : metadatas )
-        {
-            install( session, trace, metadata );
-            processedMetadata.put( metadata, null );
-            result.addMetadata( metadata );
-        }
-
         for ( int i = 0; i < artifacts.size(); i++ )
         {
             Artifact artifact = artifacts.get( i );
@@ -217,9 +222,66 @@ public class DefaultInstaller
             }
 
             artifacts.set( i, artifact );
+        }
+
+        boolean hardLinks = ConfigUtils.getBoolean( session, false, CONFIG_PROP_HARD_LINKS );
+        FileProcessor fileProcessor = this.fileProcessor.forSession( session );
+
+        List<ArtifactCopy> copies = new ArrayList<ArtifactCopy>( artifacts.size() );
+        for ( Artifact artifact : artifacts )
+        {
+            copies.add( new ArtifactCopy( session, artifact, fileProcessor, hardLinks ) );
+        }
 
-            install( session, trace, artifact );
-            result.addArtifact( artifact );
+        int threads = Math.min( artifacts.size(), ConfigUtils.getInteger( session, 1, CONFIG_PROP_THREADS ) );
+        ExecutorService executor = null;
+        try
+        {
+            if ( threads > 1 )
+            {
+                /*
+                 * NOTE: Only the file copies are handed to the workers, everything that is visible to listeners or
+                 * the local repository manager happens on this thread and in the original order of the artifacts.
+                 * As a copy must not start before its ARTIFACT_INSTALLING event, all these events are fired before
+                 * the copies are handed out and hence precede the events of the metadata, which is merged while the
+                 * workers copy.
+                 */
+                executor = getExecutor( threads );
+                for ( ArtifactCopy copy : copies )
+                {
+                    announce( session, trace, copy );
+                    executor.execute( copy );
+                }
+            }
+
+            for ( Metadata metadata : metadatas )
+            {
+                install( session, trace, metadata );
+                processedMetadata.put( metadata, null );
+                result.addMetadata( metadata );
+            }
+
+            for ( ArtifactCopy copy : copies )
+            {
+                install( session, trace, copy );
+                result.addArtifact( copy.artifact );
+            }
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                shutdown( executor, copies );
+            }
+            for ( ArtifactCopy copy : copies )
+            {
+                if ( copy.announced && !copy.finished )
+                {
+                    Exception exception =
+                        new InstallationException( "Failed to install artifact " + copy.artifact + ": aborted" );
+                    artifactInstalled( session, trace, copy.artifact, copy.dstFile, exception );
+                }
+            }
         }
 
         metadatas = Utils.finishMetadata( generators, artifacts );
@@ -265,38 +327,40 @@ public class DefaultInstaller
         return generators;
     }
 
-    private void install( RepositorySystemSession session, RequestTrace trace, Artifact artifact )
+    private ExecutorService getExecutor( int threads )
+    {
+        return new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                       new WorkerThreadFactory( null ) );
+    }
+
+    private void shutdown( ExecutorService executor, List<ArtifactCopy> copies )
+    {
+        for ( ArtifactCopy copy : copies )
+        {
+            copy.cancel();
+        }
+        executor.shutdown();
+        for ( ArtifactCopy copy : copies )
+        {
+            // the sync context must not be released while a worker still writes into the local repository
+            copy.awaitUninterruptibly();
+        }
+    }
+
+    private void install( RepositorySystemSession session, RequestTrace trace, ArtifactCopy copy )
         throws InstallationException
     {
         LocalRepositoryManager lrm = session.getLocalRepositoryManager();
 
-        File srcFile = artifact.getFile();
-
-        File dstFile = new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalArtifact( artifact ) );
+        Artifact artifact = copy.artifact;
 
-        artifactInstalling( session, trace, artifact, dstFile );
+        announce( session, trace, copy );
 
         Exception exception = null;
         try
         {
-            if ( dstFile.equals( srcFile ) )
-            {
-                throw new IllegalArgumentException( "Cannot install " + dstFile + " to same path" );
-            }
-
-            boolean copy =
-                "pom".equals( artifact.getExtension() ) || srcFile.lastModified() != dstFile.lastModified()
-                    || srcFile.length() != dstFile.length() || !srcFile.exists();
-
-            if ( copy )
-            {
-                fileProcessor.copy( srcFile, dstFile );
-                dstFile.setLastModified( srcFile.lastModified() );
-            }
-            else
-            {
-                logger.debug( "Skipped re-installing " + srcFile + " to " + dstFile + ", seems unchanged" );
-            }
+            copy.run();
+            copy.await();
 
             lrm.add( session, new LocalArtifactRegistration( artifact ) );
         }
@@ -307,7 +371,47 @@ public class DefaultInstaller
         }
         finally
         {
-            artifactInstalled( session, trace, artifact, dstFile, exception );
+            copy.finished = true;
+            artifactInstalled( session, trace, artifact, copy.dstFile, exception );
+        }
+    }
+
+    private void announce( RepositorySystemSession session, RequestTrace trace, ArtifactCopy copy )
+    {
+        if ( !copy.announced )
+        {
+            copy.announced = true;
+            artifactInstalling( session, trace, copy.artifact, copy.dstFile );
+        }
+    }
+
+    private void copy( Artifact artifact, File srcFile, File dstFile, FileProcessor fileProcessor, boolean hardLinks )
+        throws Exception
+    {
+        if ( dstFile.equals( srcFile ) )
+        {
+            throw new IllegalArgumentException( "Cannot install " + dstFile + " to same path" );
+        }
+
+        boolean copy =
+            "pom".equals( artifact.getExtension() ) || srcFile.lastModified() != dstFile.lastModified()
+                || srcFile.length() != dstFile.length() || !srcFile.exists();
+
+        if ( copy )
+        {
+            if ( hardLinks && srcFile.isFile() && HardLinks.replace( srcFile, dstFile ) )
+            {
+                logger.debug( "Installed " + srcFile + " to " + dstFile + " as hard link" );
+            }
+            else
+            {
+                fileProcessor.copy( srcFile, dstFile );
+                dstFile.setLastModified( srcFile.lastModified() );
+            }
+        }
+        else
+        {
+            logger.debug( "Skipped re-installing " + srcFile + " to " + dstFile + ", seems unchanged" );
         }
     }
 
@@ -333,7 +437,7 @@ public class DefaultInstaller
                 {
                     throw new IllegalArgumentException( "Cannot install " + dstFile + " to same path" );
                 }
-                fileProcessor.copy( metadata.getFile(), dstFile );
+                fileProcessor.forSession( session ).copy( metadata.getFile(), dstFile );
             }
 
             lrm.add( session, new LocalMetadataRegistration( metadata ) );
@@ -349,6 +453,106 @@ public class DefaultInstaller
         }
     }
 
+    /**
+     * The copy of a single artifact into the local repository. A copy is performed at most once, either by a worker
+     * thread or, if no worker has picked it up yet, by the thread that installs the artifact.
+     */
+    private final class ArtifactCopy
+        implements Runnable
+    {
+
+        final Artifact artifact;
+
+        final File dstFile;
+
+        private final FileProcessor fileProcessor;
+
+        private final boolean hardLinks;
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private final CountDownLatch done = new CountDownLatch( 1 );
+
+        private volatile Exception exception;
+
+        /*
+         * NOTE: Only accessed by the thread that installs the artifacts.
+         */
+        boolean announced;
+
+        boolean finished;
+
+        public ArtifactCopy( RepositorySystemSession session, Artifact artifact, FileProcessor fileProcessor,
+                             boolean hardLinks )
+        {
+            LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+            this.artifact = artifact;
+            this.dstFile = new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalArtifact( artifact ) );
+            this.fileProcessor = fileProcessor;
+            this.hardLinks = hardLinks;
+        }
+
+        public void run()
+        {
+            if ( !started.compareAndSet( false, true ) )
+            {
+                return;
+            }
+            try
+            {
+                copy( artifact, artifact.getFile(), dstFile, fileProcessor, hardLinks );
+            }
+            catch ( Exception e )
+            {
+                exception = e;
+            }
+            finally
+            {
+                done.countDown();
+            }
+        }
+
+        public void cancel()
+        {
+            if ( started.compareAndSet( false, true ) )
+            {
+                done.countDown();
+            }
+        }
+
+        public void await()
+            throws Exception
+        {
+            awaitUninterruptibly();
+            if ( exception != null )
+            {
+                throw exception;
+            }
+        }
+
+        public void awaitUninterruptibly()
+        {
+            boolean interrupted = false;
+            while ( true )
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
     private void artifactInstalling( RepositorySystemSession session, RequestTrace trace, Artifact artifact,
                                      File dstFile )
     {
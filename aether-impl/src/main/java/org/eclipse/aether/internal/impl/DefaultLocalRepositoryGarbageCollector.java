@@ -0,0 +1,886 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SyncContext;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.impl.GarbageCollectionResult;
+import org.eclipse.aether.impl.LocalRepositoryGarbageCollector;
+import org.eclipse.aether.impl.SyncContextFactory;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.spi.log.LoggerFactory;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * A garbage collector for local repositories that use the Maven 2 layout. Besides its use as a component, it can be
+ * run from the command line with the base directory of the local repository as the only argument, the configuration
+ * properties are then taken from the system properties.
+ */
+@Named
+@Component( role = LocalRepositoryGarbageCollector.class )
+public class DefaultLocalRepositoryGarbageCollector
+    implements LocalRepositoryGarbageCollector, Service
+{
+
+    static final String CONFIG_PROP_MAX_SIZE = "aether.localRepository.gc.maxSize";
+
+    static final String CONFIG_PROP_SNAPSHOTS = "aether.localRepository.gc.snapshots";
+
+    static final String CONFIG_PROP_STALE_AGE = "aether.localRepository.gc.staleAge";
+
+    private static final String EXT_PART = ".part";
+
+    private static final String EXT_LOCK = ".lock";
+
+    private static final String EXT_CHECKPOINT = ".digest";
+
+    private static final String EXT_LAST_UPDATED = ".lastUpdated";
+
+    private static final String[] EXTS_CHECKSUM = { ".sha1", ".md5" };
+
+    private static final Set<String> TRACKING_FILES =
+        new HashSet<String>( Arrays.asList( "_remote.repositories", "_maven.repositories" ) );
+
+    private static final Pattern SNAPSHOT_TIMESTAMP = Pattern.compile( "([0-9]{8}\\.[0-9]{6})-([0-9]+)" );
+
+    @Requirement( role = LoggerFactory.class )
+    private Logger logger = NullLoggerFactory.LOGGER;
+
+    @Requirement
+    private SyncContextFactory syncContextFactory;
+
+    public DefaultLocalRepositoryGarbageCollector()
+    {
+        // enables default constructor
+    }
+
+    @Inject
+    DefaultLocalRepositoryGarbageCollector( SyncContextFactory syncContextFactory, LoggerFactory loggerFactory )
+    {
+        setSyncContextFactory( syncContextFactory );
+        setLoggerFactory( loggerFactory );
+    }
+
+    public void initService( ServiceLocator locator )
+    {
+        setLoggerFactory( locator.getService( LoggerFactory.class ) );
+        setSyncContextFactory( locator.getService( SyncContextFactory.class ) );
+    }
+
+    public DefaultLocalRepositoryGarbageCollector setLoggerFactory( LoggerFactory loggerFactory )
+    {
+        this.logger = NullLoggerFactory.getSafeLogger( loggerFactory, getClass() );
+        return this;
+    }
+
+    void setLogger( LoggerFactory loggerFactory )
+    {
+        // plexus support
+        setLoggerFactory( loggerFactory );
+    }
+
+    public DefaultLocalRepositoryGarbageCollector setSyncContextFactory( SyncContextFactory syncContextFactory )
+    {
+        if ( syncContextFactory == null )
+        {
+            throw new IllegalArgumentException( "sync context factory has not been specified" );
+        }
+        this.syncContextFactory = syncContextFactory;
+        return this;
+    }
+
+    public GarbageCollectionResult collect( RepositorySystemSession session )
+    {
+        if ( session.getLocalRepository() == null )
+        {
+            throw new IllegalArgumentException( "local repository has not been specified" );
+        }
+
+        Sweep sweep = new Sweep( session );
+        sweep.scan( sweep.basedir, "" );
+        sweep.evict();
+        sweep.prune();
+        sweep.compactIndex();
+        sweep.sweepLocks();
+        sweep.rewriteAccessLog();
+
+        return sweep.result;
+    }
+
+    public static void main( String[] args )
+    {
+        if ( args.length != 1 )
+        {
+            System.err.println( "Usage: " + DefaultLocalRepositoryGarbageCollector.class.getName()
+                + " <local repository>" );
+            return;
+        }
+
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setConfigProperties( System.getProperties() );
+        session.setLocalRepositoryManager( new SimpleLocalRepositoryManager( args[0] ) );
+
+        DefaultLocalRepositoryGarbageCollector collector = new DefaultLocalRepositoryGarbageCollector();
+        collector.setSyncContextFactory( new DefaultSyncContextFactory() );
+
+        System.out.println( session.getLocalRepository().getBasedir() + ": " + collector.collect( session ) );
+    }
+
+    private static final class Entry
+    {
+
+        final File file;
+
+        final String path;
+
+        final Artifact artifact;
+
+        final boolean timestamped;
+
+        final List<File> checksums = new ArrayList<File>( 2 );
+
+        long size;
+
+        Blob blob;
+
+        long lastAccess;
+
+        Entry( File file, String path, Artifact artifact, boolean timestamped )
+        {
+            this.file = file;
+            this.path = path;
+            this.artifact = artifact;
+            this.timestamped = timestamped;
+            this.size = file.length();
+        }
+
+    }
+
+    /**
+     * A file of the blob store of a content-addressed local repository, the artifact files are hard links to it.
+     */
+    private static final class Blob
+    {
+
+        final File file;
+
+        final long size;
+
+        boolean deleted;
+
+        Blob( File file )
+        {
+            this.file = file;
+            this.size = file.length();
+        }
+
+    }
+
+    /**
+     * Orders timestamped snapshots of the same artifact from newest to oldest.
+     */
+    private static final Comparator<Entry> NEWEST_FIRST = new Comparator<Entry>()
+    {
+        public int compare( Entry e1, Entry e2 )
+        {
+            Matcher m1 = SNAPSHOT_TIMESTAMP.matcher( e1.artifact.getVersion() );
+            Matcher m2 = SNAPSHOT_TIMESTAMP.matcher( e2.artifact.getVersion() );
+            if ( !m1.find() || !m2.find() )
+            {
+                return e2.artifact.getVersion().compareTo( e1.artifact.getVersion() );
+            }
+            int rel = m2.group( 1 ).compareTo( m1.group( 1 ) );
+            if ( rel == 0 )
+            {
+                rel = Long.valueOf( m2.group( 2 ) ).compareTo( Long.valueOf( m1.group( 2 ) ) );
+            }
+            return rel;
+        }
+    };
+
+    /**
+     * Orders artifacts from least to most recently used.
+     */
+    private static final Comparator<Entry> LEAST_RECENTLY_USED_FIRST = new Comparator<Entry>()
+    {
+        public int compare( Entry e1, Entry e2 )
+        {
+            return ( e1.lastAccess < e2.lastAccess ) ? -1 : ( ( e1.lastAccess == e2.lastAccess ) ? 0 : 1 );
+        }
+    };
+
+    private final class Sweep
+    {
+
+        final RepositorySystemSession session;
+
+        final File basedir;
+
+        final GarbageCollectionResult result = new GarbageCollectionResult();
+
+        private final long now = System.currentTimeMillis();
+
+        private final long maxSize;
+
+        private final int snapshots;
+
+        private final long staleAge;
+
+        private final AccessLog accessLog;
+
+        private final Map<String, Long> accesses;
+
+        private final List<Entry> entries = new ArrayList<Entry>();
+
+        private final Set<File> touched = new HashSet<File>();
+
+        private final List<File> blobFiles = new ArrayList<File>();
+
+        private boolean contentAddressed;
+
+        Sweep( RepositorySystemSession session )
+        {
+            this.session = session;
+            basedir = session.getLocalRepository().getBasedir().getAbsoluteFile();
+            maxSize = ConfigUtils.getLong( session, -1, CONFIG_PROP_MAX_SIZE );
+            snapshots = ConfigUtils.getInteger( session, 1, CONFIG_PROP_SNAPSHOTS );
+            staleAge = ConfigUtils.getLong( session, 24 * 60 * 60 * 1000L, CONFIG_PROP_STALE_AGE );
+            accessLog = AccessLog.get( basedir );
+            Map<String, Long> accesses;
+            try
+            {
+                accesses = accessLog.read();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to read access log of " + basedir + ", using last-modified timestamps: " + e );
+                accesses = Collections.emptyMap();
+            }
+            this.accesses = accesses;
+        }
+
+        void scan( File dir, String path )
+        {
+            File[] files = dir.listFiles();
+            if ( files == null )
+            {
+                return;
+            }
+
+            Map<String, Entry> artifacts = new HashMap<String, Entry>();
+            List<File> checksums = new ArrayList<File>();
+
+            for ( File file : files )
+            {
+                String name = file.getName();
+                if ( file.isDirectory() )
+                {
+                    // skips hidden directories (e.g. of the sync context) but not the blob store with its temp files
+                    boolean blobs =
+                        path.length() <= 0 && name.equals( ContentAddressedLocalRepositoryManager.BLOBS_DIR );
+                    contentAddressed |= blobs;
+                    if ( !name.startsWith( "." ) || blobs )
+                    {
+                        scan( file, ( path.length() <= 0 ) ? name : path + '/' + name );
+                    }
+                }
+                else if ( name.endsWith( EXT_PART ) )
+                {
+                    if ( isStale( file ) )
+                    {
+                        File lockFile = new File( file.getPath() + EXT_LOCK );
+                        deleteUnlocked( lockFile, file, new File( file.getPath() + EXT_CHECKPOINT ), lockFile );
+                    }
+                }
+                else if ( name.endsWith( EXT_PART + EXT_LOCK ) || name.endsWith( EXT_PART + EXT_CHECKPOINT ) )
+                {
+                    String partName = name.substring( 0, name.lastIndexOf( EXT_PART ) + EXT_PART.length() );
+                    File partFile = new File( dir, partName );
+                    if ( isStale( file ) && !partFile.exists() )
+                    {
+                        deleteUnlocked( new File( partFile.getPath() + EXT_LOCK ), file );
+                    }
+                }
+                else if ( name.endsWith( EXT_LAST_UPDATED ) || name.endsWith( HardLinks.EXT_TMP )
+                    || ( name.startsWith( "." ) && name.endsWith( ".tmp" ) ) )
+                {
+                    if ( isStale( file ) )
+                    {
+                        delete( file );
+                    }
+                }
+                else if ( path.startsWith( ContentAddressedLocalRepositoryManager.BLOBS_DIR + '/' ) )
+                {
+                    blobFiles.add( file );
+                }
+                else if ( isChecksum( name ) )
+                {
+                    checksums.add( file );
+                }
+                else
+                {
+                    Entry entry = newEntry( file, path );
+                    if ( entry != null )
+                    {
+                        artifacts.put( name, entry );
+                    }
+                }
+            }
+
+            for ( File checksum : checksums )
+            {
+                String name = checksum.getName();
+                Entry entry = artifacts.get( name.substring( 0, name.lastIndexOf( '.' ) ) );
+                if ( entry != null )
+                {
+                    entry.checksums.add( checksum );
+                    entry.size += checksum.length();
+                }
+            }
+
+            if ( snapshots >= 0 && path.endsWith( "-SNAPSHOT" ) )
+            {
+                removeOldSnapshots( artifacts.values() );
+            }
+            else
+            {
+                entries.addAll( artifacts.values() );
+            }
+        }
+
+        private Entry newEntry( File file, String dirPath )
+        {
+            int slash = dirPath.lastIndexOf( '/' );
+            if ( slash <= 0 )
+            {
+                return null;
+            }
+            String version = dirPath.substring( slash + 1 );
+            String rest = dirPath.substring( 0, slash );
+            slash = rest.lastIndexOf( '/' );
+            if ( slash <= 0 )
+            {
+                return null;
+            }
+            String artifactId = rest.substring( slash + 1 );
+            String groupId = rest.substring( 0, slash ).replace( '/', '.' );
+
+            String name = file.getName();
+            if ( !name.startsWith( artifactId + '-' ) )
+            {
+                return null;
+            }
+            String tail = name.substring( artifactId.length() + 1 );
+
+            String fileVersion;
+            if ( tail.startsWith( version ) )
+            {
+                fileVersion = version;
+            }
+            else if ( version.endsWith( "-SNAPSHOT" ) )
+            {
+                String base = version.substring( 0, version.length() - "SNAPSHOT".length() );
+                if ( !tail.startsWith( base ) )
+                {
+                    return null;
+                }
+                Matcher matcher = SNAPSHOT_TIMESTAMP.matcher( tail.substring( base.length() ) );
+                if ( !matcher.lookingAt() )
+                {
+                    return null;
+                }
+                fileVersion = base + matcher.group();
+            }
+            else
+            {
+                return null;
+            }
+            tail = tail.substring( fileVersion.length() );
+
+            String classifier = "";
+            String extension;
+            if ( tail.startsWith( "-" ) )
+            {
+                int dot = tail.indexOf( '.' );
+                if ( dot < 0 )
+                {
+                    return null;
+                }
+                classifier = tail.substring( 1, dot );
+                extension = tail.substring( dot + 1 );
+            }
+            else if ( tail.startsWith( "." ) )
+            {
+                extension = tail.substring( 1 );
+            }
+            else
+            {
+                return null;
+            }
+            if ( extension.length() <= 0 )
+            {
+                return null;
+            }
+
+            Artifact artifact = new DefaultArtifact( groupId, artifactId, classifier, extension, fileVersion );
+            Entry entry = new Entry( file, dirPath + '/' + name, artifact, !fileVersion.equals( version ) );
+            entry.lastAccess = file.lastModified();
+            Long access = accesses.get( entry.path );
+            if ( access != null && access.longValue() > entry.lastAccess )
+            {
+                entry.lastAccess = access.longValue();
+            }
+            return entry;
+        }
+
+        private void removeOldSnapshots( Iterable<Entry> artifacts )
+        {
+            Map<String, List<Entry>> timestamped = new HashMap<String, List<Entry>>();
+            for ( Entry entry : artifacts )
+            {
+                if ( !entry.timestamped )
+                {
+                    entries.add( entry );
+                    continue;
+                }
+                String key = entry.artifact.getClassifier() + ':' + entry.artifact.getExtension();
+                List<Entry> builds = timestamped.get( key );
+                if ( builds == null )
+                {
+                    builds = new ArrayList<Entry>();
+                    timestamped.put( key, builds );
+                }
+                builds.add( entry );
+            }
+
+            for ( List<Entry> builds : timestamped.values() )
+            {
+                Collections.sort( builds, NEWEST_FIRST );
+                for ( int i = 0; i < builds.size(); i++ )
+                {
+                    Entry entry = builds.get( i );
+                    if ( i < snapshots || !delete( entry ) )
+                    {
+                        entries.add( entry );
+                    }
+                }
+            }
+        }
+
+        /**
+         * Evicts the least recently used artifacts until the repository fits the configured maximum size. In a
+         * content-addressed repository, an artifact linked to a blob occupies no space of its own, each blob is counted
+         * once and gets deleted along with its last artifact.
+         */
+        void evict()
+        {
+            Collection<Blob> blobs = contentAddressed ? resolveBlobs() : Collections.<Blob> emptyList();
+
+            long size = 0;
+            for ( Entry entry : entries )
+            {
+                if ( entry.blob == null )
+                {
+                    size += entry.size;
+                }
+            }
+            if ( blobs != null )
+            {
+                for ( Blob blob : blobs )
+                {
+                    size += blob.size;
+                }
+            }
+
+            if ( maxSize >= 0 && size > maxSize && blobs == null )
+            {
+                logger.warn( "Cannot evict artifacts from content-addressed local repository " + basedir
+                    + ", the link counts of its files are not available" );
+            }
+            else if ( maxSize >= 0 && size > maxSize )
+            {
+                List<Entry> candidates = new ArrayList<Entry>( entries );
+                Collections.sort( candidates, LEAST_RECENTLY_USED_FIRST );
+                entries.clear();
+                for ( Entry entry : candidates )
+                {
+                    if ( size > maxSize && delete( entry ) )
+                    {
+                        size -= ( entry.blob != null ) ? deleteUnlinked( entry.blob ) : entry.size;
+                    }
+                    else
+                    {
+                        entries.add( entry );
+                    }
+                }
+            }
+
+            if ( blobs != null )
+            {
+                for ( Blob blob : blobs )
+                {
+                    size -= deleteUnlinked( blob );
+                }
+            }
+
+            result.setRepositorySize( size );
+        }
+
+        /**
+         * Associates the artifacts with the blobs they are linked to.
+         * 
+         * @return The blobs or {@code null} if the file system does not tell which files are links to a blob.
+         */
+        private Collection<Blob> resolveBlobs()
+        {
+            Map<Object, Blob> blobs = new HashMap<Object, Blob>();
+            for ( File file : blobFiles )
+            {
+                Object key = HardLinks.getFileKey( file );
+                if ( key == null || HardLinks.getLinkCount( file ) < 0 )
+                {
+                    return null;
+                }
+                blobs.put( key, new Blob( file ) );
+            }
+            if ( !blobs.isEmpty() )
+            {
+                for ( Entry entry : entries )
+                {
+                    Object key = HardLinks.getFileKey( entry.file );
+                    if ( key == null )
+                    {
+                        return null;
+                    }
+                    entry.blob = blobs.get( key );
+                }
+            }
+            return blobs.values();
+        }
+
+        /**
+         * Deletes the specified blob if no artifact links to it anymore.
+         * 
+         * @return The number of bytes freed.
+         */
+        private long deleteUnlinked( Blob blob )
+        {
+            if ( blob.deleted || HardLinks.getLinkCount( blob.file ) != 1 || !delete( blob.file ) )
+            {
+                return 0;
+            }
+            blob.deleted = true;
+            return blob.size;
+        }
+
+        /**
+         * Deletes the tracking files of directories that no longer contain anything else, along with the directories.
+         */
+        void prune()
+        {
+            for ( File dir : new ArrayList<File>( touched ) )
+            {
+                File[] files = dir.listFiles();
+                if ( files == null )
+                {
+                    continue;
+                }
+                boolean empty = true;
+                for ( File file : files )
+                {
+                    String name = file.getName();
+                    if ( !TRACKING_FILES.contains( name ) && !name.endsWith( EXT_LAST_UPDATED ) )
+                    {
+                        empty = false;
+                        break;
+                    }
+                }
+                if ( !empty )
+                {
+                    continue;
+                }
+                for ( File file : files )
+                {
+                    delete( file );
+                }
+                for ( File parent = dir; parent != null && !parent.equals( basedir ) && parent.delete(); )
+                {
+                    parent = parent.getParentFile();
+                }
+            }
+        }
+
+        /**
+         * Drops the entries of deleted files from the tracking index of the local repository, if there is one.
+         */
+        void compactIndex()
+        {
+            File file = new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME );
+            if ( result.getDeletedFiles() <= 0 || !file.isFile() )
+            {
+                return;
+            }
+            try
+            {
+                TrackingIndex.get( file ).compact();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to compact tracking index " + file + ": " + e );
+            }
+        }
+
+        /**
+         * Deletes the lock files of the sync context that are not locked by any thread or process. Each file is deleted
+         * while holding its lock and then marked as deleted by writing into it (lock files are empty otherwise), a
+         * process that opened the file before its deletion and locks it afterwards notices that and locks a new file.
+         */
+        void sweepLocks()
+        {
+            File[] files = new File( basedir, DefaultSyncContextFactory.LOCKS_DIR ).listFiles();
+            if ( files == null )
+            {
+                return;
+            }
+            for ( File file : files )
+            {
+                if ( !file.getName().endsWith( EXT_LOCK ) )
+                {
+                    continue;
+                }
+                FileLock lock = tryLock( file );
+                if ( lock != null )
+                {
+                    try
+                    {
+                        if ( file.delete() )
+                        {
+                            lock.channel().write( ByteBuffer.wrap( DefaultSyncContextFactory.DELETED_LOCK ), 0 );
+                        }
+                        else
+                        {
+                            logger.debug( "Failed to delete " + file );
+                        }
+                    }
+                    catch ( IOException e )
+                    {
+                        logger.warn( "Failed to mark deleted lock file " + file + ": " + e );
+                    }
+                    finally
+                    {
+                        unlock( lock );
+                    }
+                }
+            }
+        }
+
+        void rewriteAccessLog()
+        {
+            if ( accesses.isEmpty() )
+            {
+                return;
+            }
+            Map<String, Long> retained = new HashMap<String, Long>();
+            for ( Entry entry : entries )
+            {
+                Long access = accesses.get( entry.path );
+                if ( access != null )
+                {
+                    retained.put( entry.path, access );
+                }
+            }
+            try
+            {
+                accessLog.rewrite( retained );
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to rewrite access log of " + basedir + ": " + e );
+            }
+        }
+
+        private boolean isStale( File file )
+        {
+            return now - file.lastModified() > staleAge;
+        }
+
+        private boolean isChecksum( String name )
+        {
+            for ( String ext : EXTS_CHECKSUM )
+            {
+                if ( name.endsWith( ext ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Deletes the specified files while holding an exclusive lock on the given lock file, unless the lock file is
+         * locked by some thread or process. If the lock file does not exist, the files are deleted without locking.
+         */
+        private void deleteUnlocked( File lockFile, File... files )
+        {
+            FileLock lock = null;
+            if ( lockFile.exists() )
+            {
+                lock = tryLock( lockFile );
+                if ( lock == null )
+                {
+                    return;
+                }
+            }
+            try
+            {
+                for ( File file : files )
+                {
+                    if ( file.exists() )
+                    {
+                        delete( file );
+                    }
+                }
+            }
+            finally
+            {
+                unlock( lock );
+            }
+        }
+
+        private FileLock tryLock( File lockFile )
+        {
+            try
+            {
+                RandomAccessFile raf = new RandomAccessFile( lockFile, "rw" );
+                FileLock lock = null;
+                try
+                {
+                    lock = raf.getChannel().tryLock();
+                    return lock;
+                }
+                catch ( OverlappingFileLockException e )
+                {
+                    // locked by another thread of this JVM
+                    return null;
+                }
+                finally
+                {
+                    if ( lock == null )
+                    {
+                        raf.close();
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                logger.debug( "Failed to lock " + lockFile + ": " + e );
+                return null;
+            }
+        }
+
+        private void unlock( FileLock lock )
+        {
+            if ( lock != null )
+            {
+                try
+                {
+                    lock.release();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant, the lock is gone when the file is closed
+                }
+                try
+                {
+                    lock.channel().close();
+                }
+                catch ( IOException e )
+                {
+                    // too bad but who cares
+                }
+            }
+        }
+
+        private boolean delete( Entry entry )
+        {
+            SyncContext syncContext = syncContextFactory.newInstance( session, false );
+            try
+            {
+                syncContext.acquire( Collections.singleton( entry.artifact ), null );
+                for ( File checksum : entry.checksums )
+                {
+                    delete( checksum );
+                }
+                return delete( entry.file, ( entry.blob != null ) ? 0 : entry.file.length() );
+            }
+            catch ( IllegalStateException e )
+            {
+                // still in use after the lock timeout, keep it
+                logger.debug( "Failed to lock " + entry.file + ": " + e.getMessage() );
+                return false;
+            }
+            finally
+            {
+                syncContext.close();
+            }
+        }
+
+        private boolean delete( File file )
+        {
+            return delete( file, file.length() );
+        }
+
+        private boolean delete( File file, long length )
+        {
+            if ( !file.delete() && file.exists() )
+            {
+                logger.debug( "Failed to delete " + file );
+                return false;
+            }
+            result.setDeletedFiles( result.getDeletedFiles() + 1 );
+            result.setFreedBytes( result.getFreedBytes() + length );
+            touched.add( file.getParentFile() );
+            return true;
+        }
+
+    }
+
+}
@@ -10,42 +10,598 @@
  *******************************************************************************/
 package org.eclipse.aether.internal.impl;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.SyncContext;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.impl.SyncContextFactory;
 import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.spi.locator.Service;
+import org.eclipse.aether.spi.locator.ServiceLocator;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.spi.log.LoggerFactory;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.eclipse.aether.util.ConfigUtils;
 
 /**
- * A factory to create synchronization contexts. This default implementation actually does not provide any real
- * synchronization but merely completes the repository system.
+ * A factory to create synchronization contexts. The contexts lock individual artifacts and metadata of the local
+ * repository, using read/write locks to coordinate the threads of this JVM and file locks on (hashed) lock files in
+ * the {@code .locks} directory of the local repository to coordinate with other processes.
+ * <p>
+ * All resources held by the contexts of a thread are locked in the same order, artifacts before metadata and sorted by
+ * coordinates. A later call on a context that adds resources sorting before those it already holds releases its
+ * resources and reacquires all of them in order. A resource sorting before one held by an outer context of the same
+ * thread cannot be handled like this, it is only waited for a short time and {@code acquire()} fails with an
+ * {@link IllegalStateException} if it is not available by then. Likewise, a thread holding a resource shared cannot
+ * upgrade to exclusive access, which the contract of {@link SyncContext} forbids anyway.
+ * <p>
+ * Waiting for the file lock of another process is limited by {@code aether.syncContext.lockTimeout} (in milliseconds,
+ * default 5 minutes) and can be interrupted, {@code acquire()} then fails as well, it never returns without holding
+ * every requested resource. The lock files themselves are kept, deleting them while other processes wait on them
+ * would break the mutual exclusion. Removal of unused lock files is left to the local repository garbage collector,
+ * which marks each deleted file by writing into it such that a process that opened the file before its deletion does
+ * not keep using it.
  */
 @Named
 @Component( role = SyncContextFactory.class )
 public class DefaultSyncContextFactory
-    implements SyncContextFactory
+    implements SyncContextFactory, Service
 {
 
+    static final String CONFIG_PROP_FILE_LOCKS = "aether.syncContext.fileLocks";
+
+    static final String CONFIG_PROP_LOCK_TIMEOUT = "aether.syncContext.lockTimeout";
+
+    static final String LOCKS_DIR = ".locks";
+
+    /**
+     * The content written into a lock file after its deletion, the lock files in use are empty.
+     */
+    static final byte[] DELETED_LOCK = { 'X' };
+
+    private static final long MAX_OUT_OF_ORDER_WAIT = 10 * 1000;
+
+    private static final long FILE_LOCK_POLL = 50;
+
+    private static final Map<String, ResourceLock> LOCKS = new HashMap<String, ResourceLock>();
+
+    /**
+     * The keys of the resources held by the contexts of the current thread, used to keep the lock order across nested
+     * contexts.
+     */
+    private static final ThreadLocal<TreeMap<String, Integer>> THREAD_KEYS = new ThreadLocal<TreeMap<String, Integer>>()
+    {
+        @Override
+        protected TreeMap<String, Integer> initialValue()
+        {
+            return new TreeMap<String, Integer>();
+        }
+    };
+
+    @Requirement( role = LoggerFactory.class )
+    private Logger logger = NullLoggerFactory.LOGGER;
+
+    public DefaultSyncContextFactory()
+    {
+        // enables default constructor
+    }
+
+    @Inject
+    DefaultSyncContextFactory( LoggerFactory loggerFactory )
+    {
+        setLoggerFactory( loggerFactory );
+    }
+
+    public void initService( ServiceLocator locator )
+    {
+        setLoggerFactory( locator.getService( LoggerFactory.class ) );
+    }
+
+    public DefaultSyncContextFactory setLoggerFactory( LoggerFactory loggerFactory )
+    {
+        this.logger = NullLoggerFactory.getSafeLogger( loggerFactory, getClass() );
+        return this;
+    }
+
+    void setLogger( LoggerFactory loggerFactory )
+    {
+        // plexus support
+        setLoggerFactory( loggerFactory );
+    }
+
     public SyncContext newInstance( RepositorySystemSession session, boolean shared )
     {
-        return new DefaultSyncContext();
+        File lockDir = null;
+        LocalRepository localRepo = session.getLocalRepository();
+        if ( localRepo != null && ConfigUtils.getBoolean( session, true, CONFIG_PROP_FILE_LOCKS ) )
+        {
+            lockDir = new File( localRepo.getBasedir(), LOCKS_DIR );
+        }
+        String scope = ( localRepo != null ) ? localRepo.getBasedir().getAbsolutePath() : "";
+        long lockTimeout = ConfigUtils.getLong( session, 5 * 60 * 1000, CONFIG_PROP_LOCK_TIMEOUT );
+        return new DefaultSyncContext( scope, lockDir, shared, lockTimeout, logger );
+    }
+
+    static String getName( Artifact artifact )
+    {
+        return "artifact:" + artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getExtension()
+            + ':' + artifact.getClassifier() + ':' + artifact.getBaseVersion();
+    }
+
+    static String getName( Metadata metadata )
+    {
+        return "metadata:" + metadata.getGroupId() + ':' + metadata.getArtifactId() + ':' + metadata.getVersion()
+            + ':' + metadata.getType();
+    }
+
+    static String getLockFileName( String name )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            return ChecksumUtils.toHexString( digest.digest( name.getBytes( "UTF-8" ) ) ) + ".lock";
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static ResourceLock lookup( String key )
+    {
+        synchronized ( LOCKS )
+        {
+            ResourceLock lock = LOCKS.get( key );
+            if ( lock == null )
+            {
+                lock = new ResourceLock( key );
+                LOCKS.put( key, lock );
+            }
+            lock.refs++;
+            return lock;
+        }
+    }
+
+    private static void dispose( ResourceLock lock )
+    {
+        synchronized ( LOCKS )
+        {
+            if ( --lock.refs <= 0 )
+            {
+                LOCKS.remove( lock.key );
+            }
+        }
+    }
+
+    /**
+     * The JVM-wide lock for a single resource. The file lock is shared by all threads of this JVM holding the resource
+     * since the JVM does not allow overlapping file locks.
+     */
+    static final class ResourceLock
+    {
+
+        final String key;
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        int refs;
+
+        private int fileRefs;
+
+        private RandomAccessFile file;
+
+        private FileLock fileLock;
+
+        private boolean locking;
+
+        private final Map<Thread, Integer> readers = new HashMap<Thread, Integer>();
+
+        ResourceLock( String key )
+        {
+            this.key = key;
+        }
+
+        boolean isReadLockedByCurrentThread()
+        {
+            synchronized ( readers )
+            {
+                return readers.containsKey( Thread.currentThread() );
+            }
+        }
+
+        void readLocked( boolean locked )
+        {
+            Thread thread = Thread.currentThread();
+            synchronized ( readers )
+            {
+                Integer count = readers.get( thread );
+                int n = ( count != null ? count : 0 ) + ( locked ? 1 : -1 );
+                if ( n > 0 )
+                {
+                    readers.put( thread, n );
+                }
+                else
+                {
+                    readers.remove( thread );
+                }
+            }
+        }
+
+        /**
+         * Locks the specified file unless it is already locked by another thread of this JVM holding the resource. The
+         * file lock is polled for rather than waited for such that the wait can be bounded and interrupted, releasing
+         * the monitor in between.
+         * 
+         * @return {@code true} if the file is locked, {@code false} if the timeout elapsed.
+         */
+        synchronized boolean lockFile( File lockFile, boolean shared, long timeout )
+            throws IOException, InterruptedException
+        {
+            long deadline = System.currentTimeMillis() + Math.max( 0, timeout );
+            while ( fileRefs <= 0 && locking )
+            {
+                // another reader of this JVM is already polling for the file lock
+                long remaining = deadline - System.currentTimeMillis();
+                if ( remaining <= 0 )
+                {
+                    return false;
+                }
+                wait( remaining );
+            }
+            if ( fileRefs <= 0 )
+            {
+                locking = true;
+                try
+                {
+                    for ( FileLock lock = tryLockFile( lockFile, shared ); lock == null; lock =
+                        tryLockFile( lockFile, shared ) )
+                    {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if ( remaining <= 0 )
+                        {
+                            return false;
+                        }
+                        wait( Math.min( remaining, FILE_LOCK_POLL ) );
+                    }
+                }
+                finally
+                {
+                    locking = false;
+                    notifyAll();
+                }
+            }
+            fileRefs++;
+            return true;
+        }
+
+        private FileLock tryLockFile( File lockFile, boolean shared )
+            throws IOException
+        {
+            lockFile.getParentFile().mkdirs();
+            RandomAccessFile raf = new RandomAccessFile( lockFile, "rw" );
+            try
+            {
+                FileLock lock;
+                try
+                {
+                    lock = raf.getChannel().tryLock( 0, Long.MAX_VALUE, shared );
+                }
+                catch ( OverlappingFileLockException e )
+                {
+                    // locked by another component of this JVM, e.g. the garbage collector, treat like another process
+                    lock = null;
+                }
+                if ( lock != null && ( raf.length() > 0 || !lockFile.exists() ) )
+                {
+                    // lock file deleted by a cleanup while we were opening it, locking it would exclude nobody
+                    lock.release();
+                    lock = null;
+                }
+                if ( lock != null )
+                {
+                    fileLock = lock;
+                    file = raf;
+                }
+                return lock;
+            }
+            finally
+            {
+                if ( file != raf )
+                {
+                    close( raf );
+                }
+            }
+        }
+
+        synchronized void unlockFile()
+        {
+            if ( --fileRefs <= 0 )
+            {
+                fileRefs = 0;
+                if ( fileLock != null )
+                {
+                    try
+                    {
+                        fileLock.release();
+                    }
+                    catch ( IOException e )
+                    {
+                        // irrelevant, the lock is gone when the file is closed
+                    }
+                    fileLock = null;
+                }
+                close( file );
+                file = null;
+            }
+        }
+
+        private static void close( RandomAccessFile file )
+        {
+            if ( file != null )
+            {
+                try
+                {
+                    file.close();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant
+                }
+            }
+        }
+
     }
 
     static class DefaultSyncContext
         implements SyncContext
     {
 
-        public void acquire( Collection<? extends Artifact> artifact, Collection<? extends Metadata> metadata )
+        private final String scope;
+
+        private final File lockDir;
+
+        private final boolean shared;
+
+        private final long lockTimeout;
+
+        private final Logger logger;
+
+        private final SortedSet<String> acquired = new TreeSet<String>();
+
+        private final List<Held> held = new ArrayList<Held>();
+
+        DefaultSyncContext( String scope, File lockDir, boolean shared, long lockTimeout, Logger logger )
+        {
+            this.scope = scope;
+            this.lockDir = lockDir;
+            this.shared = shared;
+            this.lockTimeout = lockTimeout;
+            this.logger = logger;
+        }
+
+        public void acquire( Collection<? extends Artifact> artifacts, Collection<? extends Metadata> metadatas )
+        {
+            // the names are prefixed with their kind such that artifacts sort before metadata
+            SortedSet<String> names = new TreeSet<String>();
+            if ( artifacts != null )
+            {
+                for ( Artifact artifact : artifacts )
+                {
+                    names.add( getName( artifact ) );
+                }
+            }
+            if ( metadatas != null )
+            {
+                for ( Metadata metadata : metadatas )
+                {
+                    names.add( getName( metadata ) );
+                }
+            }
+            names.removeAll( acquired );
+            if ( names.isEmpty() )
+            {
+                return;
+            }
+            if ( !acquired.isEmpty() && names.first().compareTo( acquired.last() ) < 0 )
+            {
+                // waiting out of order risks a deadlock, start over with everything in order instead
+                logger.debug( "Reacquiring " + acquired + " to lock " + names + " in order" );
+                names.addAll( acquired );
+                close();
+            }
+            try
+            {
+                for ( String name : names )
+                {
+                    held.add( lock( name ) );
+                    acquired.add( name );
+                }
+            }
+            catch ( RuntimeException e )
+            {
+                close();
+                throw e;
+            }
+        }
+
+        private Held lock( String name )
         {
+            String key = scope + '!' + name;
+            ResourceLock resource = lookup( key );
+            Lock lock = shared ? resource.lock.readLock() : resource.lock.writeLock();
+            long timeout = lockTimeout;
+            boolean locked;
+            if ( THREAD_KEYS.get().containsKey( key ) )
+            {
+                if ( !shared && !resource.lock.isWriteLockedByCurrentThread() )
+                {
+                    // a read lock cannot be upgraded, waiting for the write lock would wait for this thread itself
+                    dispose( resource );
+                    throw new IllegalStateException( "Cannot lock " + name
+                        + " exclusively while the current thread holds it shared" );
+                }
+                // reentrant, does not wait
+                lock.lock();
+                locked = true;
+            }
+            else if ( THREAD_KEYS.get().isEmpty() || key.compareTo( THREAD_KEYS.get().lastKey() ) > 0 )
+            {
+                lock.lock();
+                locked = true;
+            }
+            else
+            {
+                // an outer context of this thread holds a resource sorting after this one, only wait a short time
+                timeout = Math.min( lockTimeout, MAX_OUT_OF_ORDER_WAIT );
+                try
+                {
+                    locked = lock.tryLock( timeout, TimeUnit.MILLISECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    dispose( resource );
+                    throw new IllegalStateException( "Interrupted while locking " + name, e );
+                }
+            }
+            if ( !locked )
+            {
+                dispose( resource );
+                throw new IllegalStateException( "Could not lock " + name + " within " + timeout
+                    + " ms, it sorts before resources already held by the current thread" );
+            }
+            Held held = new Held( key, resource, lock );
+            try
+            {
+                if ( lockDir != null )
+                {
+                    File lockFile = new File( lockDir, getLockFileName( name ) );
+                    try
+                    {
+                        if ( !resource.lockFile( lockFile, shared, timeout ) )
+                        {
+                            throw new IllegalStateException( "Could not lock " + lockFile + " for " + name + " within "
+                                + timeout + " ms" );
+                        }
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException( "Interrupted while locking " + lockFile + " for " + name, e );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new IllegalStateException( "Could not lock " + lockFile + " for " + name
+                            + ", file locks can be disabled via " + CONFIG_PROP_FILE_LOCKS, e );
+                    }
+                    held.fileLocked = true;
+                }
+                return held;
+            }
+            catch ( RuntimeException e )
+            {
+                held.release();
+                throw e;
+            }
         }
 
         public void close()
         {
+            for ( int i = held.size() - 1; i >= 0; i-- )
+            {
+                held.get( i ).release();
+            }
+            held.clear();
+            acquired.clear();
+        }
+
+    }
+
+    /**
+     * A resource held by a context, registered with the current thread until released.
+     */
+    private static final class Held
+    {
+
+        private final String key;
+
+        private final ResourceLock resource;
+
+        private final Lock lock;
+
+        boolean fileLocked;
+
+        Held( String key, ResourceLock resource, Lock lock )
+        {
+            this.key = key;
+            this.resource = resource;
+            this.lock = lock;
+            if ( lock == resource.lock.readLock() )
+            {
+                resource.readLocked( true );
+            }
+            Map<String, Integer> keys = THREAD_KEYS.get();
+            Integer count = keys.get( key );
+            keys.put( key, ( count != null ? count : 0 ) + 1 );
+        }
+
+        void release()
+        {
+            try
+            {
+                if ( fileLocked )
+                {
+                    resource.unlockFile();
+                }
+            }
+            finally
+            {
+                Map<String, Integer> keys = THREAD_KEYS.get();
+                Integer count = keys.get( key );
+                if ( count == null || count <= 1 )
+                {
+                    keys.remove( key );
+                }
+                else
+                {
+                    keys.put( key, count - 1 );
+                }
+                if ( lock == resource.lock.readLock() )
+                {
+                    resource.readLocked( false );
+                }
+                lock.unlock();
+                dispose( resource );
+            }
         }
 
     }
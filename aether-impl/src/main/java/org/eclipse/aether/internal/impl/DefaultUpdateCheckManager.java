@@ -11,8 +11,12 @@
 package org.eclipse.aether.internal.impl;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -117,6 +121,22 @@ public class DefaultUpdateCheckManager
     }
 
     public void checkArtifact( RepositorySystemSession session, UpdateCheck<Artifact, ArtifactTransferException> check )
+    {
+        checkArtifact( session, check, new CheckContext( session, false ) );
+    }
+
+    public void checkArtifacts( RepositorySystemSession session,
+                                Collection<? extends UpdateCheck<Artifact, ArtifactTransferException>> checks )
+    {
+        CheckContext context = new CheckContext( session, true );
+        for ( UpdateCheck<Artifact, ArtifactTransferException> check : checks )
+        {
+            checkArtifact( session, check, context );
+        }
+    }
+
+    private void checkArtifact( RepositorySystemSession session,
+                                UpdateCheck<Artifact, ArtifactTransferException> check, CheckContext context )
     {
         if ( check.getLocalLastUpdated() != 0
             && !isUpdatedRequired( session, check.getLocalLastUpdated(), check.getPolicy() ) )
@@ -140,13 +160,13 @@ public class DefaultUpdateCheckManager
             throw new IllegalArgumentException( String.format( "The artifact '%s' has no file attached", artifact ) );
         }
 
-        boolean fileExists = check.isFileValid() && artifactFile.exists();
+        boolean fileExists = check.isFileValid() && context.exists( artifactFile );
 
         File touchFile = getTouchFile( artifact, artifactFile );
-        Properties props = read( touchFile );
+        Properties props = context.read( touchFile );
 
-        String updateKey = getUpdateKey( session, artifactFile, repository );
-        String dataKey = getDataKey( artifact, artifactFile, repository );
+        String updateKey = getUpdateKey( artifactFile, context.getRepoKey( repository ) );
+        String dataKey = context.getDataKey( artifact, artifactFile, repository );
 
         String error = getError( props, dataKey );
 
@@ -172,7 +192,7 @@ public class DefaultUpdateCheckManager
         else
         {
             // artifact could not be transferred
-            String transferKey = getTransferKey( session, artifact, artifactFile, repository );
+            String transferKey = context.getRepoKey( repository );
             lastUpdated = getLastUpdated( props, transferKey );
         }
 
@@ -479,7 +499,12 @@ public class DefaultUpdateCheckManager
 
     private String getUpdateKey( RepositorySystemSession session, File file, RemoteRepository repository )
     {
-        return file.getAbsolutePath() + '|' + getRepoKey( session, repository );
+        return getUpdateKey( file, getRepoKey( session, repository ) );
+    }
+
+    private String getUpdateKey( File file, String repoKey )
+    {
+        return file.getAbsolutePath() + '|' + repoKey;
     }
 
     private int getSessionState( RepositorySystemSession session )
@@ -628,4 +653,115 @@ public class DefaultUpdateCheckManager
         return new TrackingFileManager().setLogger( logger ).update( touchFile, updates );
     }
 
+    /**
+     * Shares the evaluation costs among the update checks of a single call.
+     */
+    private final class CheckContext
+    {
+
+        private final RepositorySystemSession session;
+
+        private final Map<File, Listing> listings;
+
+        private final Map<RemoteRepository, String> dataKeys = new HashMap<RemoteRepository, String>();
+
+        private final Map<RemoteRepository, String> repoKeys = new HashMap<RemoteRepository, String>();
+
+        CheckContext( RepositorySystemSession session, boolean listDirectories )
+        {
+            this.session = session;
+            listings = listDirectories ? new HashMap<File, Listing>() : null;
+        }
+
+        public boolean exists( File file )
+        {
+            if ( listings == null )
+            {
+                return file.exists();
+            }
+            File dir = file.getParentFile();
+            Listing listing = listings.get( dir );
+            if ( listing == null )
+            {
+                listing = new Listing( ( dir != null ) ? dir.list() : null );
+                listings.put( dir, listing );
+            }
+            String name = file.getName();
+            if ( listing.names.contains( name ) )
+            {
+                return true;
+            }
+            /*
+             * NOTE: On a case-insensitive file system, the file might be listed under a name that differs in case, so
+             * let the file system decide if the listing has a name that matches when ignoring the case.
+             */
+            return listing.foldedNames.contains( fold( name ) ) && file.exists();
+        }
+
+        public Properties read( File touchFile )
+        {
+            if ( listings != null && !exists( touchFile ) )
+            {
+                return new Properties();
+            }
+            return DefaultUpdateCheckManager.this.read( touchFile );
+        }
+
+        public String getDataKey( Artifact artifact, File artifactFile, RemoteRepository repository )
+        {
+            // NOTE: the data key of an artifact only depends on the repository
+            String key = dataKeys.get( repository );
+            if ( key == null )
+            {
+                key = DefaultUpdateCheckManager.this.getDataKey( artifact, artifactFile, repository );
+                dataKeys.put( repository, key );
+            }
+            return key;
+        }
+
+        public String getRepoKey( RemoteRepository repository )
+        {
+            String key = repoKeys.get( repository );
+            if ( key == null )
+            {
+                key = DefaultUpdateCheckManager.this.getRepoKey( session, repository );
+                repoKeys.put( repository, key );
+            }
+            return key;
+        }
+
+    }
+
+    private static String fold( String name )
+    {
+        return name.toLowerCase( Locale.ENGLISH );
+    }
+
+    private static final class Listing
+    {
+
+        final Set<String> names;
+
+        final Set<String> foldedNames;
+
+        Listing( String[] files )
+        {
+            if ( files != null )
+            {
+                names = new HashSet<String>( Arrays.asList( files ) );
+                foldedNames = new HashSet<String>( names.size() * 2 );
+                for ( String file : files )
+                {
+                    foldedNames.add( fold( file ) );
+                }
+            }
+            else
+            {
+                names = Collections.emptySet();
+                foldedNames = Collections.emptySet();
+            }
+        }
+
+    }
+
 }
@@ -58,7 +58,12 @@ class EnhancedLocalRepositoryManager
 
     public EnhancedLocalRepositoryManager( File basedir, RepositorySystemSession session )
     {
-        super( basedir, "enhanced" );
+        this( basedir, "enhanced", session );
+    }
+
+    EnhancedLocalRepositoryManager( File basedir, String type, RepositorySystemSession session )
+    {
+        super( basedir, type );
         String filename = ConfigUtils.getString( session, "", "aether.enhancedLocalRepository.trackingFilename" );
         if ( filename.length() <= 0 || filename.contains( "/" ) || filename.contains( "\\" )
             || filename.contains( ".." ) )
@@ -119,6 +124,11 @@ class EnhancedLocalRepositoryManager
                     result.setAvailable( true );
                 }
             }
+
+            if ( result.isAvailable() )
+            {
+                accessed( session, path );
+            }
         }
 
         return result;
@@ -165,7 +175,7 @@ class EnhancedLocalRepositoryManager
         addRepo( file, repositories );
     }
 
-    private Properties readRepos( File artifactFile )
+    Properties readRepos( File artifactFile )
     {
         File trackingFile = getTrackingFile( artifactFile );
 
@@ -174,7 +184,7 @@ class EnhancedLocalRepositoryManager
         return ( props != null ) ? props : new Properties();
     }
 
-    private void addRepo( File artifactFile, Collection<String> repositories )
+    void addRepo( File artifactFile, Collection<String> repositories )
     {
         Map<String, String> updates = new HashMap<String, String>();
         for ( String repository : repositories )
@@ -192,7 +202,7 @@ class EnhancedLocalRepositoryManager
         return new File( artifactFile.getParentFile(), trackingFilename );
     }
 
-    private String getKey( File file, String repository )
+    String getKey( File file, String repository )
     {
         return file.getName() + '>' + repository;
     }
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2010, 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * Creates hard links between files if the Java runtime supports it. As this code base needs to run on Java 5, the
+ * NIO.2 file system API is accessed reflectively and all operations degrade to no-ops when it is not available.
+ */
+final class HardLinks
+{
+
+    /**
+     * The file extension of the temporary links created by {@link #replace(File, File)}.
+     */
+    static final String EXT_TMP = ".lnk";
+
+    private static final boolean WINDOWS =
+        System.getProperty( "os.name", "" ).toLowerCase( Locale.ENGLISH ).startsWith( "windows" );
+
+    private static final Method TO_PATH;
+
+    private static final Method CREATE_LINK;
+
+    private static final Method GET_ATTRIBUTE;
+
+    private static final Object NO_LINK_OPTIONS;
+
+    static
+    {
+        Method toPath = null;
+        Method createLink = null;
+        Method getAttribute = null;
+        Object noLinkOptions = null;
+        try
+        {
+            toPath = File.class.getMethod( "toPath" );
+            Class<?> pathClass = toPath.getReturnType();
+            Class<?> filesClass = Class.forName( "java.nio.file.Files" );
+            createLink = filesClass.getMethod( "createLink", pathClass, pathClass );
+            noLinkOptions = Array.newInstance( Class.forName( "java.nio.file.LinkOption" ), 0 );
+            getAttribute = filesClass.getMethod( "getAttribute", pathClass, String.class, noLinkOptions.getClass() );
+        }
+        catch ( Exception e )
+        {
+            // pre Java 7 runtime
+            createLink = null;
+            getAttribute = null;
+        }
+        TO_PATH = toPath;
+        CREATE_LINK = createLink;
+        GET_ATTRIBUTE = getAttribute;
+        NO_LINK_OPTIONS = noLinkOptions;
+    }
+
+    private HardLinks()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Indicates whether hard links can be created by the current Java runtime.
+     * 
+     * @return {@code true} if hard links are supported, {@code false} otherwise.
+     */
+    public static boolean isSupported()
+    {
+        return CREATE_LINK != null;
+    }
+
+    /**
+     * Creates a new hard link to the specified file.
+     * 
+     * @param existing The existing file to link to, must not be {@code null}.
+     * @param link The path of the link to create, must not be {@code null} and must not exist yet.
+     * @return {@code true} if the link was created, {@code false} otherwise.
+     */
+    public static boolean link( File existing, File link )
+    {
+        if ( !isSupported() )
+        {
+            return false;
+        }
+        try
+        {
+            CREATE_LINK.invoke( null, TO_PATH.invoke( link ), TO_PATH.invoke( existing ) );
+            return true;
+        }
+        catch ( Exception e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of hard links to the specified file.
+     * 
+     * @param file The file to inspect, must not be {@code null}.
+     * @return The number of links (including the file itself) or {@code -1} if unknown, e.g. because the runtime or
+     *         the file system does not expose it.
+     */
+    public static int getLinkCount( File file )
+    {
+        Object count = getAttribute( file, "unix:nlink" );
+        return ( count instanceof Number ) ? ( (Number) count ).intValue() : -1;
+    }
+
+    /**
+     * Gets an object that uniquely identifies the specified file within the file system, such that all hard links to
+     * the same file yield equal keys.
+     * 
+     * @param file The file to inspect, must not be {@code null}.
+     * @return The file key or {@code null} if unknown.
+     */
+    public static Object getFileKey( File file )
+    {
+        return getAttribute( file, "basic:fileKey" );
+    }
+
+    private static Object getAttribute( File file, String attribute )
+    {
+        if ( GET_ATTRIBUTE == null )
+        {
+            return null;
+        }
+        try
+        {
+            return GET_ATTRIBUTE.invoke( null, TO_PATH.invoke( file ), attribute, NO_LINK_OPTIONS );
+        }
+        catch ( Exception e )
+        {
+            // unsupported attribute view or file gone
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the specified target file with a hard link to another file. The link is first created under a temporary
+     * name next to the target and then renamed, so the target is never observed in a partially written state.
+     * 
+     * @param existing The existing file to link to, must not be {@code null}.
+     * @param target The file to replace, must not be {@code null}. Need not exist yet.
+     * @return {@code true} if the target is now a link to the existing file, {@code false} otherwise.
+     */
+    public static boolean replace( File existing, File target )
+    {
+        if ( !isSupported() )
+        {
+            return false;
+        }
+
+        File dir = target.getAbsoluteFile().getParentFile();
+        if ( dir != null )
+        {
+            dir.mkdirs();
+        }
+
+        File tmp = new File( dir, target.getName() + "." + Long.toHexString( System.nanoTime() ) + EXT_TMP );
+        try
+        {
+            if ( !link( existing, tmp ) )
+            {
+                return false;
+            }
+            if ( tmp.renameTo( target ) )
+            {
+                return true;
+            }
+            if ( !WINDOWS || !target.exists() )
+            {
+                return false;
+            }
+            // Windows refuses to rename onto an existing file, so move the target aside and restore it on failure
+            File backup =
+                new File( dir, target.getName() + "." + Long.toHexString( System.nanoTime() ) + ".old" + EXT_TMP );
+            if ( !target.renameTo( backup ) )
+            {
+                return false;
+            }
+            if ( !tmp.renameTo( target ) )
+            {
+                backup.renameTo( target );
+                return false;
+            }
+            backup.delete();
+            return true;
+        }
+        finally
+        {
+            tmp.delete();
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.spi.log.NullLoggerFactory;
+
+/**
+ * These are implementation details for the indexed local repository manager, subject to change without prior notice.
+ * Instead of a <code>_remote.repositories</code> file per directory, the repositories from which cached artifacts were
+ * resolved are tracked in a single index file <code>_remote.index</code> in the root of the local repository, which is
+ * kept in memory and shared by all managers using the same local repository. The existing tracking files of a
+ * directory are imported into the index the first time an artifact from that directory is looked up or added, they
+ * are no longer updated afterwards. A lookup in a directory without tracking files does not write to the index. Should
+ * the index be unusable (e.g. in a read-only local repository), the manager falls back to the tracking files and
+ * reports the problem once.
+ * 
+ * @see IndexedLocalRepositoryManagerFactory
+ */
+class IndexedLocalRepositoryManager
+    extends EnhancedLocalRepositoryManager
+{
+
+    static final String TYPE = "indexed";
+
+    static final String INDEX_FILENAME = "_remote.index";
+
+    private final TrackingIndex index;
+
+    private Logger logger = NullLoggerFactory.LOGGER;
+
+    public IndexedLocalRepositoryManager( File basedir, RepositorySystemSession session )
+    {
+        super( basedir, TYPE, session );
+        index = TrackingIndex.get( new File( getRepository().getBasedir(), INDEX_FILENAME ) );
+    }
+
+    @Override
+    public IndexedLocalRepositoryManager setLogger( Logger logger )
+    {
+        super.setLogger( logger );
+        this.logger = ( logger != null ) ? logger : NullLoggerFactory.LOGGER;
+        return this;
+    }
+
+    @Override
+    Properties readRepos( File artifactFile )
+    {
+        String path = getIndexPath( artifactFile );
+        try
+        {
+            String directory = getIndexDirectory( path );
+            if ( !index.isImported( directory ) )
+            {
+                Map<String, Collection<String>> imports = importRepos( artifactFile, directory );
+                if ( imports.isEmpty() )
+                {
+                    index.setImported( directory );
+                }
+                else
+                {
+                    index.update( imports, directory );
+                }
+            }
+
+            Properties props = new Properties();
+            for ( String repository : index.get( path ) )
+            {
+                props.setProperty( getKey( artifactFile, repository ), "" );
+            }
+            return props;
+        }
+        catch ( IOException e )
+        {
+            reportFailure( "Failed to read tracking index " + index + ": " + e.getMessage() );
+            return super.readRepos( artifactFile );
+        }
+    }
+
+    @Override
+    void addRepo( File artifactFile, Collection<String> repositories )
+    {
+        String path = getIndexPath( artifactFile );
+        try
+        {
+            String directory = getIndexDirectory( path );
+            Map<String, Collection<String>> updates;
+            if ( index.isImported( directory ) )
+            {
+                updates = new HashMap<String, Collection<String>>();
+                updates.put( path, repositories );
+            }
+            else
+            {
+                updates = importRepos( artifactFile, directory );
+                Collection<String> repos = updates.get( path );
+                if ( repos == null )
+                {
+                    updates.put( path, repositories );
+                }
+                else
+                {
+                    repos.addAll( repositories );
+                }
+            }
+            index.update( updates, directory );
+        }
+        catch ( IOException e )
+        {
+            reportFailure( "Failed to update tracking index " + index + ": " + e.getMessage() );
+            super.addRepo( artifactFile, repositories );
+        }
+    }
+
+    private void reportFailure( String message )
+    {
+        if ( index.reportFailure() )
+        {
+            logger.warn( message + ", falling back to tracking files" );
+        }
+        else
+        {
+            logger.debug( message );
+        }
+    }
+
+    private Map<String, Collection<String>> importRepos( File artifactFile, String directory )
+    {
+        Map<String, Collection<String>> repos = new HashMap<String, Collection<String>>();
+        for ( Object key : super.readRepos( artifactFile ).keySet() )
+        {
+            String entry = key.toString();
+            int sep = entry.lastIndexOf( '>' );
+            if ( sep <= 0 )
+            {
+                continue;
+            }
+            String path = directory + entry.substring( 0, sep );
+            Collection<String> ids = repos.get( path );
+            if ( ids == null )
+            {
+                ids = new HashSet<String>();
+                repos.put( path, ids );
+            }
+            ids.add( entry.substring( sep + 1 ) );
+        }
+        return repos;
+    }
+
+    private String getIndexPath( File artifactFile )
+    {
+        String basedir = getRepository().getBasedir().getPath();
+        String path = artifactFile.getPath();
+        if ( path.startsWith( basedir ) )
+        {
+            path = path.substring( basedir.length() );
+        }
+        path = path.replace( File.separatorChar, '/' );
+        while ( path.startsWith( "/" ) )
+        {
+            path = path.substring( 1 );
+        }
+        return path;
+    }
+
+    private static String getIndexDirectory( String path )
+    {
+        return path.substring( 0, path.lastIndexOf( '/' ) + 1 );
+    }
+
+}
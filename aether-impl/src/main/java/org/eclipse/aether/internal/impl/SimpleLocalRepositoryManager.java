@@ -27,6 +27,7 @@ import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.spi.log.Logger;
+import org.eclipse.aether.util.ConfigUtils;
 
 /**
  * A local repository manager that realizes the classical Maven 2.0 local repository.
@@ -208,11 +209,24 @@ class SimpleLocalRepositoryManager
         {
             result.setFile( file );
             result.setAvailable( true );
+            accessed( session, path );
         }
 
         return result;
     }
 
+    /**
+     * Records an access to the specified artifact if the session enables the access log used to garbage collect the
+     * least recently used artifacts.
+     */
+    void accessed( RepositorySystemSession session, String path )
+    {
+        if ( ConfigUtils.getBoolean( session, false, AccessLog.CONFIG_PROP_ENABLED ) )
+        {
+            AccessLog.get( getRepository().getBasedir() ).record( path, System.currentTimeMillis() );
+        }
+    }
+
     public void add( RepositorySystemSession session, LocalArtifactRegistration request )
     {
         // noop
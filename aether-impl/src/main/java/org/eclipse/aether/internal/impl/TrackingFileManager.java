@@ -20,18 +20,65 @@ import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.aether.spi.log.Logger;
 import org.eclipse.aether.spi.log.NullLoggerFactory;
 
 /**
- * Manages potentially concurrent accesses to a properties file.
+ * Manages potentially concurrent accesses to a properties file. Parsed files are cached per JVM and revalidated by
+ * their size and modification time, concurrent updates of the same file are coalesced into a single write.
  */
 class TrackingFileManager
 {
 
+    /*
+     * NOTE: Some file systems only store modification times with a resolution of 2 seconds, so a file whose timestamp
+     * is not older than that when it gets cached could still change without its timestamp changing.
+     */
+    private static final long MTIME_GRANULARITY = 2 * 1000;
+
+    private static final int MAX_CACHED_FILES = 1024;
+
+    private static final Map<String, CachedProperties> CACHE =
+        new LinkedHashMap<String, CachedProperties>( 256, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, CachedProperties> eldest )
+        {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+
+    private static final int MAX_CACHED_KEYS = 4096;
+
+    /*
+     * NOTE: The canonical paths of tracking files, keyed by their absolute paths. Canonicalizing a path requires file
+     * system calls, which are too costly to repeat for each access to a tracking file.
+     */
+    private static final ConcurrentMap<String, String> KEYS = new ConcurrentHashMap<String, String>();
+
+    private static final Object[] LOCKS = new Object[64];
+
+    static
+    {
+        for ( int i = 0; i < LOCKS.length; i++ )
+        {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private static final Map<String, List<PendingUpdate>> PENDING = new HashMap<String, List<PendingUpdate>>();
+
     private Logger logger = NullLoggerFactory.LOGGER;
 
     public TrackingFileManager setLogger( Logger logger )
@@ -42,14 +89,24 @@ class TrackingFileManager
 
     public Properties read( File file )
     {
-        synchronized ( getLock( file ) )
+        String key = getKey( file );
+        synchronized ( getLock( key ) )
         {
+            long length = file.length();
+            long lastModified = file.lastModified();
+            Properties props = getCached( key, length, lastModified );
+            if ( props != null )
+            {
+                return props;
+            }
+
             FileLock lock = null;
             FileInputStream stream = null;
             try
             {
                 if ( !file.exists() )
                 {
+                    uncache( key );
                     return null;
                 }
 
@@ -57,9 +114,11 @@ class TrackingFileManager
 
                 lock = lock( stream.getChannel(), Math.max( 1, file.length() ), true );
 
-                Properties props = new Properties();
+                props = new Properties();
                 props.load( stream );
 
+                cache( key, length, lastModified, props );
+
                 return props;
             }
             catch ( IOException e )
@@ -78,36 +137,78 @@ class TrackingFileManager
 
     public Properties update( File file, Map<String, String> updates )
     {
-        Properties props = new Properties();
+        String key = getKey( file );
 
-        synchronized ( getLock( file ) )
+        PendingUpdate pending = new PendingUpdate( updates );
+        synchronized ( PENDING )
         {
-            File directory = file.getParentFile();
-            if ( !directory.mkdirs() && !directory.exists() )
+            List<PendingUpdate> queue = PENDING.get( key );
+            if ( queue == null )
             {
-                logger.warn( "Failed to create parent directories for tracking file " + file );
-                return props;
+                queue = new ArrayList<PendingUpdate>();
+                PENDING.put( key, queue );
+            }
+            queue.add( pending );
+        }
+
+        synchronized ( getLock( key ) )
+        {
+            if ( pending.result != null )
+            {
+                // already written along with the updates of another thread
+                return copy( pending.result );
             }
 
-            RandomAccessFile raf = null;
-            FileLock lock = null;
-            try
+            List<PendingUpdate> batch;
+            synchronized ( PENDING )
             {
-                raf = new RandomAccessFile( file, "rw" );
-                lock = lock( raf.getChannel(), Math.max( 1, raf.length() ), false );
+                batch = PENDING.remove( key );
+            }
 
-                if ( file.canRead() )
-                {
-                    byte[] buffer = new byte[(int) raf.length()];
+            Properties props = write( file, key, batch );
 
-                    raf.readFully( buffer );
+            for ( PendingUpdate update : batch )
+            {
+                update.result = props;
+            }
+
+            return copy( props );
+        }
+    }
 
-                    ByteArrayInputStream stream = new ByteArrayInputStream( buffer );
+    private Properties write( File file, String key, List<PendingUpdate> batch )
+    {
+        Properties props = new Properties();
 
-                    props.load( stream );
-                }
+        File directory = file.getParentFile();
+        if ( !directory.mkdirs() && !directory.exists() )
+        {
+            logger.warn( "Failed to create parent directories for tracking file " + file );
+            return props;
+        }
+
+        RandomAccessFile raf = null;
+        FileLock lock = null;
+        boolean written = true;
+        try
+        {
+            raf = new RandomAccessFile( file, "rw" );
+            lock = lock( raf.getChannel(), Math.max( 1, raf.length() ), false );
+
+            if ( file.canRead() )
+            {
+                byte[] buffer = new byte[(int) raf.length()];
 
-                for ( Map.Entry<String, String> update : updates.entrySet() )
+                raf.readFully( buffer );
+
+                ByteArrayInputStream stream = new ByteArrayInputStream( buffer );
+
+                props.load( stream );
+            }
+
+            for ( PendingUpdate pending : batch )
+            {
+                for ( Map.Entry<String, String> update : pending.updates.entrySet() )
                 {
                     if ( update.getValue() == null )
                     {
@@ -118,26 +219,36 @@ class TrackingFileManager
                         props.setProperty( update.getKey(), update.getValue() );
                     }
                 }
+            }
 
-                ByteArrayOutputStream stream = new ByteArrayOutputStream( 1024 * 2 );
+            ByteArrayOutputStream stream = new ByteArrayOutputStream( 1024 * 2 );
 
-                logger.debug( "Writing tracking file " + file );
-                props.store( stream, "NOTE: This is an Aether internal implementation file"
-                    + ", its format can be changed without prior notice." );
+            logger.debug( "Writing tracking file " + file );
+            props.store( stream, "NOTE: This is an Aether internal implementation file"
+                + ", its format can be changed without prior notice." );
 
-                raf.seek( 0 );
-                raf.write( stream.toByteArray() );
-                raf.setLength( raf.getFilePointer() );
-            }
-            catch ( IOException e )
-            {
-                logger.warn( "Failed to write tracking file " + file, e );
-            }
-            finally
-            {
-                release( lock, file );
-                close( raf, file );
-            }
+            raf.seek( 0 );
+            raf.write( stream.toByteArray() );
+            raf.setLength( raf.getFilePointer() );
+        }
+        catch ( IOException e )
+        {
+            logger.warn( "Failed to write tracking file " + file, e );
+            written = false;
+        }
+        finally
+        {
+            release( lock, file );
+            close( raf, file );
+        }
+
+        if ( written )
+        {
+            cache( key, file.length(), file.lastModified(), props );
+        }
+        else
+        {
+            uncache( key );
         }
 
         return props;
@@ -173,22 +284,78 @@ class TrackingFileManager
         }
     }
 
-    private Object getLock( File file )
+    private static Properties getCached( String key, long length, long lastModified )
     {
-        /*
-         * NOTE: Locks held by one JVM must not overlap and using the canonical path is our best bet, still another
-         * piece of code might have locked the same file (unlikely though) or the canonical path fails to capture file
-         * identity sufficiently as is the case with Java 1.6 and symlinks on Windows.
-         */
-        try
+        CachedProperties cached;
+        synchronized ( CACHE )
         {
-            return file.getCanonicalPath().intern();
+            cached = CACHE.get( key );
         }
-        catch ( IOException e )
+        if ( cached != null && cached.isValid( length, lastModified ) )
+        {
+            return copy( cached.props );
+        }
+        return null;
+    }
+
+    private static void cache( String key, long length, long lastModified, Properties props )
+    {
+        CachedProperties cached = new CachedProperties( length, lastModified, copy( props ) );
+        synchronized ( CACHE )
+        {
+            CACHE.put( key, cached );
+        }
+    }
+
+    private static void uncache( String key )
+    {
+        synchronized ( CACHE )
+        {
+            CACHE.remove( key );
+        }
+    }
+
+    private static Properties copy( Properties props )
+    {
+        Properties copy = new Properties();
+        copy.putAll( props );
+        return copy;
+    }
+
+    private String getKey( File file )
+    {
+        String path = file.getAbsolutePath();
+        String key = KEYS.get( path );
+        if ( key == null )
         {
-            logger.warn( "Failed to canonicalize path " + file + ": " + e.getMessage() );
-            return file.getAbsolutePath().intern();
+            /*
+             * NOTE: Locks held by one JVM must not overlap and using the canonical path is our best bet, still another
+             * piece of code might have locked the same file (unlikely though) or the canonical path fails to capture
+             * file identity sufficiently as is the case with Java 1.6 and symlinks on Windows.
+             */
+            try
+            {
+                key = file.getCanonicalPath();
+            }
+            catch ( IOException e )
+            {
+                logger.warn( "Failed to canonicalize path " + file + ": " + e.getMessage() );
+                return path;
+            }
+            if ( KEYS.size() >= MAX_CACHED_KEYS )
+            {
+                KEYS.clear();
+            }
+            KEYS.put( path, key );
         }
+        return key;
+    }
+
+    private static Object getLock( String key )
+    {
+        int hash = key.hashCode();
+        hash ^= ( hash >>> 16 );
+        return LOCKS[hash & ( LOCKS.length - 1 )];
     }
 
     private FileLock lock( FileChannel channel, long size, boolean shared )
@@ -228,4 +395,45 @@ class TrackingFileManager
         return lock;
     }
 
+    private static final class CachedProperties
+    {
+
+        final long length;
+
+        final long lastModified;
+
+        final long timestamp;
+
+        final Properties props;
+
+        CachedProperties( long length, long lastModified, Properties props )
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.timestamp = System.currentTimeMillis();
+            this.props = props;
+        }
+
+        boolean isValid( long length, long lastModified )
+        {
+            return lastModified != 0 && this.length == length && this.lastModified == lastModified
+                && timestamp - lastModified > MTIME_GRANULARITY;
+        }
+
+    }
+
+    private static final class PendingUpdate
+    {
+
+        final Map<String, String> updates;
+
+        Properties result;
+
+        PendingUpdate( Map<String, String> updates )
+        {
+            this.updates = updates;
+        }
+
+    }
+
 }
@@ -0,0 +1,651 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only index of the repositories from which the files of a local repository were obtained. The index is a
+ * single file made up of checksummed frames, each holding one batch of updates. Readers read whatever was appended
+ * since they last looked and merge it into an in-memory hash table, writers append complete frames while
+ * holding an exclusive file lock. A frame that is incomplete or corrupt (e.g. due to a crash during a write) ends the
+ * index and is overwritten by the next update. Entries of deleted files are only dropped by a compaction, which
+ * writes the index under a new generation to a temporary file and renames that over the index, readers notice the new
+ * generation and discard what they read before. The replaced file is marked before its lock is released such that
+ * writers which opened it in the meantime retry with the new file. Instances are shared by all users of the same index
+ * file within a JVM.
+ */
+final class TrackingIndex
+{
+
+    private static final int MAGIC = 0x41544932;
+
+    private static final int REPLACED = 0x41544930;
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static final byte RECORD_ENTRY = 1;
+
+    private static final byte RECORD_IMPORTED = 2;
+
+    private static final int MAX_CACHED_INDEXES = 16;
+
+    private static final Map<File, TrackingIndex> INDEXES = new LinkedHashMap<File, TrackingIndex>( 16, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1;
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<File, TrackingIndex> eldest )
+        {
+            return size() > MAX_CACHED_INDEXES;
+        }
+    };
+
+    private final File file;
+
+    private final Map<String, Set<String>> entries = new HashMap<String, Set<String>>();
+
+    private final Set<String> imported = new HashSet<String>();
+
+    private long generation;
+
+    private long offset;
+
+    private long length = -1;
+
+    private boolean failureReported;
+
+    /**
+     * Gets the index that is stored in the specified file.
+     * 
+     * @param file The index file, must not be {@code null}.
+     * @return The index, never {@code null}.
+     */
+    public static TrackingIndex get( File file )
+    {
+        File key;
+        try
+        {
+            key = file.getCanonicalFile();
+        }
+        catch ( IOException e )
+        {
+            key = file.getAbsoluteFile();
+        }
+        synchronized ( INDEXES )
+        {
+            TrackingIndex index = INDEXES.get( key );
+            if ( index == null )
+            {
+                index = new TrackingIndex( key );
+                INDEXES.put( key, index );
+            }
+            return index;
+        }
+    }
+
+    private TrackingIndex( File file )
+    {
+        this.file = file;
+    }
+
+    /**
+     * Gets the keys of the repositories from which the specified file was obtained.
+     * 
+     * @param path The path of the file relative to the local repository, must not be {@code null}.
+     * @return The (read-only) repository keys, never {@code null}.
+     * @throws IOException If the index could not be read.
+     */
+    public synchronized Collection<String> get( String path )
+        throws IOException
+    {
+        refresh();
+        Set<String> repositories = entries.get( path );
+        if ( repositories == null )
+        {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableCollection( new ArrayList<String>( repositories ) );
+    }
+
+    /**
+     * Determines whether the tracking data of the specified directory has already been imported into the index.
+     * 
+     * @param directory The path of the directory relative to the local repository, must not be {@code null}.
+     * @return {@code true} if the directory was imported, {@code false} otherwise.
+     * @throws IOException If the index could not be read.
+     */
+    public synchronized boolean isImported( String directory )
+        throws IOException
+    {
+        refresh();
+        return imported.contains( directory );
+    }
+
+    /**
+     * Marks the specified directory as imported for the lifetime of this instance without persisting the mark. This is
+     * meant for directories without tracking data, for which writing the mark would cost more than looking again.
+     * 
+     * @param directory The path of the directory relative to the local repository, must not be {@code null}.
+     */
+    public synchronized void setImported( String directory )
+    {
+        imported.add( directory );
+    }
+
+    /**
+     * Records a failure to use this index and determines whether it is the first one, such that a problem with the
+     * index (e.g. a read-only local repository) is reported once instead of on every access.
+     * 
+     * @return {@code true} if this is the first failure, {@code false} otherwise.
+     */
+    public synchronized boolean reportFailure()
+    {
+        boolean first = !failureReported;
+        failureReported = true;
+        return first;
+    }
+
+    /**
+     * Atomically appends the specified updates to the index. Entries that are already known are skipped.
+     * 
+     * @param updates The repository keys to record, keyed by the path of the file relative to the local repository,
+     *            must not be {@code null}.
+     * @param importedDirectory The path of a directory whose tracking data is part of the updates and which should be
+     *            marked as imported, may be {@code null}.
+     * @throws IOException If the index could not be updated.
+     */
+    public synchronized void update( Map<String, ? extends Collection<String>> updates, String importedDirectory )
+        throws IOException
+    {
+        File directory = file.getParentFile();
+        if ( !directory.mkdirs() && !directory.exists() )
+        {
+            throw new IOException( "Could not create directory " + directory );
+        }
+
+        for ( ;; )
+        {
+            RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                FileLock lock = lock( channel );
+                try
+                {
+                    if ( !read( channel, channel.size() ) )
+                    {
+                        // replaced by a compaction after we opened it
+                        continue;
+                    }
+
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream( 1024 );
+                    DataOutputStream out = new DataOutputStream( bytes );
+                    int records = 0;
+                    out.writeInt( 0 );
+                    for ( Map.Entry<String, ? extends Collection<String>> update : updates.entrySet() )
+                    {
+                        Set<String> known = entries.get( update.getKey() );
+                        for ( String repository : update.getValue() )
+                        {
+                            if ( known == null || !known.contains( repository ) )
+                            {
+                                writeEntry( out, update.getKey(), repository );
+                                records++;
+                            }
+                        }
+                    }
+                    if ( importedDirectory != null && !imported.contains( importedDirectory ) )
+                    {
+                        writeImported( out, importedDirectory );
+                        records++;
+                    }
+                    if ( records <= 0 )
+                    {
+                        return;
+                    }
+                    out.close();
+
+                    boolean header = offset <= 0;
+                    if ( header )
+                    {
+                        generation = newGeneration( generation );
+                    }
+                    byte[] payload = bytes.toByteArray();
+                    ByteBuffer frame = newFrame( payload, records, header );
+
+                    long position = write( channel, frame, Math.max( offset, 0 ) );
+                    if ( channel.size() > position )
+                    {
+                        truncate( channel, position );
+                    }
+
+                    parse( payload );
+                    offset = position;
+                    length = channel.size();
+                    return;
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the index without the entries of files and the marks of directories that no longer exist in the local
+     * repository. The compacted index is written to a temporary file which then replaces the index, an in-place
+     * rewrite is only done if the platform refuses to rename over the index. The index is left untouched if there is
+     * nothing to drop.
+     * 
+     * @return {@code true} if the index was rewritten, {@code false} otherwise.
+     * @throws IOException If the index could not be compacted.
+     */
+    public synchronized boolean compact()
+        throws IOException
+    {
+        if ( !file.isFile() )
+        {
+            return false;
+        }
+
+        for ( ;; )
+        {
+            RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                FileLock lock = lock( channel );
+                try
+                {
+                    if ( !read( channel, channel.size() ) )
+                    {
+                        // replaced by another compaction after we opened it
+                        continue;
+                    }
+
+                    File basedir = file.getParentFile();
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream( 1024 * 64 );
+                    DataOutputStream out = new DataOutputStream( bytes );
+                    int records = 0;
+                    boolean dropped = false;
+                    out.writeInt( 0 );
+                    for ( Map.Entry<String, Set<String>> entry : entries.entrySet() )
+                    {
+                        if ( !new File( basedir, entry.getKey() ).isFile() )
+                        {
+                            dropped = true;
+                            continue;
+                        }
+                        for ( String repository : entry.getValue() )
+                        {
+                            writeEntry( out, entry.getKey(), repository );
+                            records++;
+                        }
+                    }
+                    for ( String directory : imported )
+                    {
+                        if ( !new File( basedir, directory ).isDirectory() )
+                        {
+                            dropped = true;
+                            continue;
+                        }
+                        writeImported( out, directory );
+                        records++;
+                    }
+                    if ( !dropped )
+                    {
+                        return false;
+                    }
+                    out.close();
+
+                    generation = newGeneration( generation );
+                    byte[] payload = bytes.toByteArray();
+                    ByteBuffer frame = newFrame( payload, records, true );
+
+                    long position = frame.remaining();
+                    if ( replace( frame.duplicate() ) )
+                    {
+                        // writers that opened the old file before the rename wait for our lock and must not use it
+                        write( channel, (ByteBuffer) ByteBuffer.allocate( 4 ).putInt( REPLACED ).flip(), 0 );
+                    }
+                    else
+                    {
+                        write( channel, frame, 0 );
+                        // unlike a torn frame, the remains of the old index would be valid frames
+                        channel.truncate( position );
+                    }
+
+                    entries.clear();
+                    imported.clear();
+                    parse( payload );
+                    offset = position;
+                    length = position;
+                    return true;
+                }
+                finally
+                {
+                    lock.release();
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+    }
+
+    private boolean replace( ByteBuffer frame )
+        throws IOException
+    {
+        String name = "." + file.getName() + "." + Long.toHexString( System.nanoTime() ) + ".tmp";
+        File tmp = new File( file.getParentFile(), name );
+        boolean renamed = false;
+        try
+        {
+            RandomAccessFile raf = new RandomAccessFile( tmp, "rw" );
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                write( channel, frame, 0 );
+                channel.force( false );
+            }
+            finally
+            {
+                raf.close();
+            }
+            renamed = tmp.renameTo( file );
+            return renamed;
+        }
+        finally
+        {
+            if ( !renamed )
+            {
+                tmp.delete();
+            }
+        }
+    }
+
+    private static long write( FileChannel channel, ByteBuffer buffer, long position )
+        throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            position += channel.write( buffer, position );
+        }
+        return position;
+    }
+
+    private static void writeEntry( DataOutputStream out, String path, String repository )
+        throws IOException
+    {
+        out.writeByte( RECORD_ENTRY );
+        out.writeUTF( path );
+        out.writeUTF( repository );
+    }
+
+    private static void writeImported( DataOutputStream out, String directory )
+        throws IOException
+    {
+        out.writeByte( RECORD_IMPORTED );
+        out.writeUTF( directory );
+    }
+
+    private ByteBuffer newFrame( byte[] payload, int records, boolean header )
+    {
+        ByteBuffer.wrap( payload ).putInt( 0, records );
+        CRC32 crc = new CRC32();
+        crc.update( payload );
+
+        ByteBuffer frame = ByteBuffer.allocate( HEADER_SIZE + FRAME_HEADER_SIZE + payload.length );
+        if ( header )
+        {
+            frame.putInt( MAGIC ).putLong( generation );
+        }
+        frame.putInt( payload.length ).putInt( (int) crc.getValue() ).put( payload );
+        frame.flip();
+        return frame;
+    }
+
+    private static long newGeneration( long previous )
+    {
+        long generation = System.currentTimeMillis() ^ System.nanoTime();
+        return ( generation != previous ) ? generation : generation + 1;
+    }
+
+    private void refresh()
+        throws IOException
+    {
+        for ( int attempts = 3;; attempts-- )
+        {
+            long current = file.length();
+            /*
+             * NOTE: An unread tail (e.g. a torn frame) is read again even if the size is unchanged, it might have been
+             * rewritten in the meantime.
+             */
+            if ( current == length && offset >= length )
+            {
+                return;
+            }
+            if ( current <= 0 )
+            {
+                length = current;
+                return;
+            }
+            RandomAccessFile raf = new RandomAccessFile( file, "r" );
+            try
+            {
+                if ( read( raf.getChannel(), raf.length() ) || attempts <= 0 )
+                {
+                    return;
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the frames appended since the last read.
+     * 
+     * @return {@code true} if the file was read, {@code false} if it was replaced by a compaction in the meantime and
+     *         needs to be opened again.
+     */
+    private boolean read( FileChannel channel, long size )
+        throws IOException
+    {
+        if ( offset > 0 )
+        {
+            ByteBuffer header = readBytes( channel, 0, HEADER_SIZE );
+            int magic = ( header.remaining() < HEADER_SIZE ) ? 0 : header.getInt();
+            if ( magic == REPLACED )
+            {
+                length = -1;
+                return false;
+            }
+            if ( magic != MAGIC || header.getLong() != generation )
+            {
+                // compacted since we last looked, what we read before is void
+                entries.clear();
+                imported.clear();
+                offset = 0;
+            }
+        }
+        length = size;
+        if ( size <= offset )
+        {
+            return true;
+        }
+
+        ByteBuffer buffer = readBytes( channel, offset, (int) Math.min( size - offset, Integer.MAX_VALUE ) );
+
+        if ( offset <= 0 )
+        {
+            if ( buffer.remaining() < HEADER_SIZE )
+            {
+                return true;
+            }
+            int magic = buffer.getInt();
+            if ( magic == REPLACED )
+            {
+                length = -1;
+                return false;
+            }
+            if ( magic != MAGIC )
+            {
+                throw new IOException( "Unsupported format of tracking index " + file );
+            }
+            generation = buffer.getLong();
+            offset = HEADER_SIZE;
+        }
+
+        while ( buffer.remaining() >= FRAME_HEADER_SIZE )
+        {
+            int frameSize = buffer.getInt();
+            int checksum = buffer.getInt();
+            if ( frameSize < 0 || frameSize > buffer.remaining() )
+            {
+                break;
+            }
+            byte[] payload = new byte[frameSize];
+            buffer.get( payload );
+            CRC32 crc = new CRC32();
+            crc.update( payload );
+            if ( (int) crc.getValue() != checksum )
+            {
+                break;
+            }
+            parse( payload );
+            offset += FRAME_HEADER_SIZE + frameSize;
+        }
+        return true;
+    }
+
+    private static ByteBuffer readBytes( FileChannel channel, long position, int size )
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( size );
+        while ( buffer.hasRemaining() )
+        {
+            int read = channel.read( buffer, position );
+            if ( read < 0 )
+            {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void parse( byte[] payload )
+        throws IOException
+    {
+        DataInputStream in = new DataInputStream( new ByteArrayInputStream( payload ) );
+        for ( int records = in.readInt(); records > 0; records-- )
+        {
+            byte type = in.readByte();
+            if ( type == RECORD_ENTRY )
+            {
+                String path = in.readUTF();
+                Set<String> repositories = entries.get( path );
+                if ( repositories == null )
+                {
+                    repositories = new HashSet<String>( 4 );
+                    entries.put( path, repositories );
+                }
+                repositories.add( in.readUTF() );
+            }
+            else if ( type == RECORD_IMPORTED )
+            {
+                imported.add( in.readUTF() );
+            }
+            else
+            {
+                throw new IOException( "Unsupported record type " + type + " in tracking index " + file );
+            }
+        }
+    }
+
+    private static void truncate( FileChannel channel, long size )
+    {
+        try
+        {
+            channel.truncate( size );
+        }
+        catch ( IOException e )
+        {
+            // irrelevant, readers stop at the first invalid frame anyway
+        }
+    }
+
+    private static FileLock lock( FileChannel channel )
+        throws IOException
+    {
+        for ( int attempts = 8;; attempts-- )
+        {
+            try
+            {
+                return channel.lock();
+            }
+            catch ( OverlappingFileLockException e )
+            {
+                if ( attempts <= 0 )
+                {
+                    throw (IOException) new IOException( "Could not lock tracking index" ).initCause( e );
+                }
+                try
+                {
+                    Thread.sleep( 50 );
+                }
+                catch ( InterruptedException e1 )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf( file );
+    }
+
+}
@@ -48,7 +48,7 @@ public class PlexusSupportTest
 
         List<LocalRepositoryManagerFactory> lrmfs = getContainer().lookupList( LocalRepositoryManagerFactory.class );
         assertNotNull( lrmfs );
-        assertEquals( 2, lrmfs.size() );
+        assertEquals( 4, lrmfs.size() );
 
         List<RepositoryLayoutFactory> rlfs = getContainer().lookupList( RepositoryLayoutFactory.class );
         assertNotNull( rlfs );
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContentAddressedLocalRepositoryManagerTest
+{
+
+    private static final String SHA1 = "413f6081d65ee6028d7cd5af9220270c83793dfb";
+
+    private File basedir;
+
+    private RepositorySystemSession session;
+
+    private ContentAddressedLocalRepositoryManager manager;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        basedir = TestFileUtils.createTempDir( "ca-repo" );
+        session = TestUtils.newSession();
+        manager = new ContentAddressedLocalRepositoryManager( basedir, session );
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.deleteFile( basedir );
+        manager = null;
+        session = null;
+    }
+
+    private File install( Artifact artifact, String content )
+        throws IOException
+    {
+        File file = new File( basedir, manager.getPathForLocalArtifact( artifact ) );
+        TestFileUtils.writeString( file, content );
+        manager.add( session, new LocalArtifactRegistration( artifact ) );
+        return file;
+    }
+
+    @Test
+    public void testRepositoryType()
+    {
+        assertEquals( "content-addressed", manager.getRepository().getContentType() );
+    }
+
+    @Test
+    public void testAddStoresBlob()
+        throws IOException
+    {
+        assumeTrue( HardLinks.isSupported() );
+
+        File file = install( new DefaultArtifact( "gid:aid:1" ), "Hallo World!" );
+
+        File blob = manager.getBlob( SHA1 );
+        assertTrue( blob.isFile() );
+        assertEquals( "Hallo World!", TestFileUtils.readString( blob ) );
+        assertEquals( "Hallo World!", TestFileUtils.readString( file ) );
+    }
+
+    @Test
+    public void testIdenticalContentSharesBlob()
+        throws IOException
+    {
+        assumeTrue( HardLinks.isSupported() );
+
+        File file1 = install( new DefaultArtifact( "gid:aid:1" ), "Hallo World!" );
+        File file2 = install( new DefaultArtifact( "gid:other:2" ), "Hallo World!" );
+
+        File[] blobs = manager.getBlob( SHA1 ).getParentFile().listFiles();
+        assertEquals( 1, blobs.length );
+        assertEquals( "Hallo World!", TestFileUtils.readString( file1 ) );
+        assertEquals( "Hallo World!", TestFileUtils.readString( file2 ) );
+
+        LocalArtifactResult result =
+            manager.find( session, new LocalArtifactRequest( new DefaultArtifact( "gid:other:2" ), null, null ) );
+        assertTrue( result.isAvailable() );
+        assertEquals( file2, result.getFile() );
+    }
+
+    @Test
+    public void testOverwritingLinkedFileDoesNotAffectOtherPaths()
+        throws IOException
+    {
+        assumeTrue( HardLinks.isSupported() );
+
+        File file1 = install( new DefaultArtifact( "gid:aid:1" ), "Hallo World!" );
+        File file2 = install( new DefaultArtifact( "gid:other:2" ), "Hallo World!" );
+
+        new DefaultFileProcessor().write( file2, "changed" );
+
+        assertEquals( "Hallo World!", TestFileUtils.readString( file1 ) );
+        assertEquals( "Hallo World!", TestFileUtils.readString( manager.getBlob( SHA1 ) ) );
+        assertEquals( "changed", TestFileUtils.readString( file2 ) );
+    }
+
+    @Test
+    public void testCorruptBlobOfSameLengthIsReplaced()
+        throws IOException
+    {
+        assumeTrue( HardLinks.isSupported() );
+
+        File blob = manager.getBlob( SHA1 );
+        TestFileUtils.writeString( blob, "Hallo Wrold!" );
+
+        File file = install( new DefaultArtifact( "gid:aid:1" ), "Hallo World!" );
+
+        assertEquals( "Hallo World!", TestFileUtils.readString( blob ) );
+        assertEquals( "Hallo World!", TestFileUtils.readString( file ) );
+        assertEquals( 1, blob.getParentFile().listFiles().length );
+    }
+
+    @Test
+    public void testAddWithoutFileIsTolerated()
+    {
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        manager.add( session, new LocalArtifactRegistration( artifact ) );
+        assertFalse( new File( basedir, ".blobs" ).exists() );
+    }
+
+}
@@ -14,6 +14,7 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -727,6 +728,85 @@ public class DefaultArtifactResolverTest
 
     }
 
+    private List<ArtifactRequest> newLocalBatch( int size )
+        throws IOException
+    {
+        RemoteRepository repo = new RemoteRepository.Builder( "id", "default", "file:///" ).build();
+        List<ArtifactRequest> requests = new ArrayList<ArtifactRequest>();
+        for ( int i = 0; i < size; i++ )
+        {
+            Artifact a = new DefaultArtifact( "gid", "aid" + i, "", "ext", "ver" );
+            TestFileUtils.writeString( new File( lrm.getRepository().getBasedir(), lrm.getPathForLocalArtifact( a ) ),
+                                       a.toString() );
+            ArtifactRequest request = new ArtifactRequest( a, null, "" );
+            request.addRepository( repo );
+            requests.add( request );
+        }
+        return requests;
+    }
+
+    private void assertLocalBatchResolved( List<ArtifactRequest> requests, List<ArtifactResult> results )
+        throws IOException
+    {
+        assertEquals( requests.size(), results.size() );
+        for ( int i = 0; i < results.size(); i++ )
+        {
+            ArtifactResult result = results.get( i );
+            assertSame( requests.get( i ), result.getRequest() );
+            assertTrue( result.getExceptions().isEmpty() );
+            assertEquals( requests.get( i ).getArtifact().toString(),
+                          TestFileUtils.readString( result.getArtifact().getFile() ) );
+        }
+    }
+
+    @Test
+    public void testResolveLargeBatchFromLocalRepository()
+        throws ArtifactResolutionException, IOException
+    {
+        RecordingRepositoryListener listener = new RecordingRepositoryListener();
+        session.setRepositoryListener( listener );
+
+        List<ArtifactRequest> requests = newLocalBatch( 40 );
+        List<ArtifactResult> results = resolver.resolveArtifacts( session, requests );
+        assertLocalBatchResolved( requests, results );
+
+        List<RepositoryEvent> events = listener.getEvents();
+        assertEquals( 2 * requests.size(), events.size() );
+        for ( int i = 0; i < requests.size(); i++ )
+        {
+            RepositoryEvent event = events.get( 2 * i );
+            assertEquals( EventType.ARTIFACT_RESOLVING, event.getType() );
+            assertEquals( requests.get( i ).getArtifact(), event.getArtifact() );
+            event = events.get( 2 * i + 1 );
+            assertEquals( EventType.ARTIFACT_RESOLVED, event.getType() );
+            assertEquals( requests.get( i ).getArtifact(), event.getArtifact().setFile( null ) );
+        }
+    }
+
+    @Test
+    public void testResolveLargeBatchFromLocalRepository_Concurrently()
+        throws ArtifactResolutionException, IOException
+    {
+        RecordingRepositoryListener listener = new RecordingRepositoryListener();
+        session.setRepositoryListener( listener );
+        session.setConfigProperty( "aether.artifactResolver.threads", 4 );
+
+        List<ArtifactRequest> requests = newLocalBatch( 40 );
+        List<ArtifactResult> results = resolver.resolveArtifacts( session, requests );
+        assertLocalBatchResolved( requests, results );
+
+        List<RepositoryEvent> events = listener.getEvents();
+        assertEquals( 2 * requests.size(), events.size() );
+        for ( int i = 0; i < requests.size(); i++ )
+        {
+            assertEquals( EventType.ARTIFACT_RESOLVING, events.get( i ).getType() );
+            assertEquals( requests.get( i ).getArtifact(), events.get( i ).getArtifact() );
+            RepositoryEvent event = events.get( requests.size() + i );
+            assertEquals( EventType.ARTIFACT_RESOLVED, event.getType() );
+            assertEquals( requests.get( i ).getArtifact(), event.getArtifact().setFile( null ) );
+        }
+    }
+
     @Test
     public void testFindInLocalRepositoryWhenVersionWasFoundInLocalRepository()
         throws ArtifactResolutionException
@@ -17,8 +17,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.internal.impl.DefaultFileProcessor;
 import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestUtils;
 import org.eclipse.aether.spi.io.FileProcessor.ProgressListener;
 import org.junit.After;
 import org.junit.Before;
@@ -116,4 +118,119 @@ public class DefaultFileProcessorTest
         target.delete();
     }
 
+    @Test
+    public void testCopyLargeFileInChunks()
+        throws IOException
+    {
+        File file = TestFileUtils.createTempFile( "0123456789abcdef".getBytes( "UTF-8" ), 200000 );
+        File target = new File( targetDir, "testCopyLargeFileInChunks" );
+        final AtomicInteger progressed = new AtomicInteger();
+        final AtomicInteger events = new AtomicInteger();
+        ProgressListener listener = new ProgressListener()
+        {
+            public void progressed( ByteBuffer buffer )
+                throws IOException
+            {
+                events.incrementAndGet();
+                progressed.addAndGet( buffer.remaining() );
+            }
+        };
+        assertEquals( file.length(), fileProcessor.copy( file, target, listener ) );
+        assertArrayEquals( TestFileUtils.readBytes( file ), TestFileUtils.readBytes( target ) );
+        assertEquals( file.length(), progressed.intValue() );
+        assertTrue( "Events: " + events.intValue(), events.intValue() > 1 );
+        file.delete();
+    }
+
+    @Test
+    public void testWriteLeavesNoTemporaryFiles()
+        throws IOException
+    {
+        File target = new File( targetDir, "sub/testWrite.txt" );
+
+        fileProcessor.write( target, "one" );
+        fileProcessor.write( target, "two" );
+        fileProcessor.copy( TestFileUtils.createTempFile( "three" ), target );
+
+        assertEquals( "three", TestFileUtils.readString( target ) );
+        assertArrayEquals( new String[] { target.getName() }, target.getParentFile().list() );
+    }
+
+    @Test
+    public void testMkdirsAfterDirectoryWasDeleted()
+        throws IOException
+    {
+        File dir = new File( targetDir, "sub" );
+        assertTrue( fileProcessor.mkdirs( dir ) );
+        assertFalse( fileProcessor.mkdirs( dir ) );
+
+        TestFileUtils.deleteFile( dir );
+
+        assertTrue( fileProcessor.mkdirs( dir ) );
+        assertTrue( dir.isDirectory() );
+    }
+
+    @Test
+    public void testWriteAfterDirectoryWasDeleted()
+        throws IOException
+    {
+        File dir = new File( targetDir, "sub" );
+        assertTrue( fileProcessor.mkdirs( dir ) );
+
+        TestFileUtils.deleteFile( dir );
+
+        File target = new File( dir, "testWrite.txt" );
+        fileProcessor.write( target, "data" );
+        assertEquals( "data", TestFileUtils.readString( target ) );
+    }
+
+    @Test
+    public void testSync()
+        throws IOException
+    {
+        fileProcessor.setSync( true );
+
+        File target = new File( targetDir, "testSync.txt" );
+        fileProcessor.write( target, "data" );
+        assertEquals( "data", TestFileUtils.readString( target ) );
+
+        File moved = new File( targetDir, "sub/testSync.txt" );
+        fileProcessor.move( target, moved );
+        assertFalse( target.exists() );
+        assertEquals( "data", TestFileUtils.readString( moved ) );
+    }
+
+    @Test
+    public void testSyncMoveReadOnlySource()
+        throws IOException
+    {
+        fileProcessor.setSync( true );
+
+        File source = new File( targetDir, "testSyncReadOnly.txt" );
+        fileProcessor.write( source, "data" );
+        assertTrue( source.setReadOnly() );
+
+        File moved = new File( targetDir, "sub/testSyncReadOnly.txt" );
+        fileProcessor.move( source, moved );
+        assertFalse( source.exists() );
+        assertEquals( "data", TestFileUtils.readString( moved ) );
+    }
+
+    @Test
+    public void testForSession()
+    {
+        DefaultRepositorySystemSession session = TestUtils.newSession();
+        assertSame( fileProcessor, fileProcessor.forSession( session ) );
+
+        session.setConfigProperty( "aether.fileProcessor.sync", Boolean.TRUE );
+        DefaultFileProcessor syncing = (DefaultFileProcessor) fileProcessor.forSession( session );
+        assertNotSame( fileProcessor, syncing );
+        assertSame( syncing, syncing.forSession( session ) );
+
+        fileProcessor.setSync( true );
+        assertSame( fileProcessor, fileProcessor.forSession( session ) );
+        session.setConfigProperty( "aether.fileProcessor.sync", Boolean.FALSE );
+        assertNotSame( fileProcessor, fileProcessor.forSession( session ) );
+    }
+
 }
@@ -11,17 +11,27 @@
 package org.eclipse.aether.internal.impl;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.*;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.RepositoryEvent;
 import org.eclipse.aether.RepositoryEvent.EventType;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.deployment.DeployRequest;
+import org.eclipse.aether.impl.MetadataGenerator;
+import org.eclipse.aether.impl.MetadataGeneratorFactory;
 import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallResult;
 import org.eclipse.aether.installation.InstallationException;
@@ -402,4 +412,273 @@ public class DefaultInstallerTest
         assertEquals( "artifact timestamp was not set to src file", artifact.getFile().lastModified(),
                       localArtifactFile.lastModified() );
     }
+
+    @Test
+    public void testConcurrentCopiesFollowInstallingEvents()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.installer.threads", 4 );
+        installer.setFileProcessor( new TestFileProcessor()
+        {
+            @Override
+            public long copy( File source, File target, ProgressListener listener )
+                throws IOException
+            {
+                if ( source.getName().startsWith( "slow" ) )
+                {
+                    try
+                    {
+                        Thread.sleep( 200 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IOException( e.getMessage() );
+                    }
+                }
+                return super.copy( source, target, listener );
+            }
+        } );
+
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            File file = TestFileUtils.createTempFile( "content-" + i );
+            if ( i == 0 )
+            {
+                File slow = new File( file.getParentFile(), "slow-" + file.getName() );
+                assertTrue( file.renameTo( slow ) );
+                file = slow;
+            }
+            Artifact a = new DefaultArtifact( "gid", "aid" + i, "jar", "ver" ).setFile( file );
+            artifacts.add( a );
+            request.addArtifact( a );
+        }
+
+        InstallResult result = installer.install( session, request );
+
+        assertEquals( artifacts, new ArrayList<Artifact>( result.getArtifacts() ) );
+
+        List<RepositoryEvent> events = listener.getEvents();
+        assertEquals( 2 * artifacts.size(), events.size() );
+        for ( int i = 0; i < artifacts.size(); i++ )
+        {
+            RepositoryEvent installing = events.get( i );
+            RepositoryEvent installed = events.get( artifacts.size() + i );
+            assertEquals( EventType.ARTIFACT_INSTALLING, installing.getType() );
+            assertEquals( EventType.ARTIFACT_INSTALLED, installed.getType() );
+            assertEquals( artifacts.get( i ), installing.getArtifact() );
+            assertEquals( artifacts.get( i ), installed.getArtifact() );
+            assertNull( installed.getException() );
+            assertEquals( "content-" + i, TestFileUtils.readString( installed.getFile() ) );
+        }
+    }
+
+    @Test
+    public void testConcurrentCopiesStartAfterInstallingEvent()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.installer.threads", 4 );
+        final List<File> unannounced = Collections.synchronizedList( new ArrayList<File>() );
+        installer.setFileProcessor( new TestFileProcessor()
+        {
+            @Override
+            public long copy( File source, File target, ProgressListener listener )
+                throws IOException
+            {
+                List<RepositoryEvent> events =
+                    new ArrayList<RepositoryEvent>( DefaultInstallerTest.this.listener.getEvents() );
+                boolean announced = false;
+                for ( RepositoryEvent event : events )
+                {
+                    announced |= EventType.ARTIFACT_INSTALLING.equals( event.getType() )
+                        && target.equals( event.getFile() );
+                }
+                if ( !announced )
+                {
+                    unannounced.add( target );
+                }
+                return super.copy( source, target, listener );
+            }
+        } );
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            File file = TestFileUtils.createTempFile( "content-" + i );
+            request.addArtifact( new DefaultArtifact( "gid", "aid" + i, "jar", "ver" ).setFile( file ) );
+        }
+
+        installer.install( session, request );
+
+        assertEquals( Collections.emptyList(), unannounced );
+    }
+
+    @Test
+    public void testConcurrentCopiesOverlapMetadata()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.installer.threads", 2 );
+        final CountDownLatch copying = new CountDownLatch( 1 );
+        installer.setFileProcessor( new TestFileProcessor()
+        {
+            @Override
+            public long copy( File source, File target, ProgressListener listener )
+                throws IOException
+            {
+                if ( source.equals( artifact.getFile() ) )
+                {
+                    copying.countDown();
+                }
+                else
+                {
+                    try
+                    {
+                        // the metadata is only installed while the artifact is being copied
+                        assertTrue( copying.await( 10, TimeUnit.SECONDS ) );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IOException( e.getMessage() );
+                    }
+                }
+                return super.copy( source, target, listener );
+            }
+        } );
+        installer.addMetadataGeneratorFactory( new MetadataGeneratorFactory()
+        {
+            public MetadataGenerator newInstance( RepositorySystemSession session, InstallRequest request )
+            {
+                return new MetadataGenerator()
+                {
+                    public Collection<? extends Metadata> prepare( Collection<? extends Artifact> artifacts )
+                    {
+                        return Collections.singleton( metadata );
+                    }
+
+                    public Artifact transformArtifact( Artifact artifact )
+                    {
+                        return artifact;
+                    }
+
+                    public Collection<? extends Metadata> finish( Collection<? extends Artifact> artifacts )
+                    {
+                        return Collections.emptySet();
+                    }
+                };
+            }
+
+            public MetadataGenerator newInstance( RepositorySystemSession session, DeployRequest request )
+            {
+                return null;
+            }
+
+            public float getPriority()
+            {
+                return 0;
+            }
+        } );
+
+        request.addArtifact( artifact );
+        request.addArtifact( new DefaultArtifact( "gid", "other", "jar", "ver" ).setFile( artifact.getFile() ) );
+
+        InstallResult result = installer.install( session, request );
+
+        assertEquals( 2, result.getArtifacts().size() );
+        assertEquals( Collections.singletonList( metadata ), new ArrayList<Metadata>( result.getMetadata() ) );
+        assertTrue( new File( session.getLocalRepository().getBasedir(), localMetadataPath ).isFile() );
+    }
+
+    @Test
+    public void testConcurrentCopiesPreserveInterrupt()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.installer.threads", 4 );
+        installer.setFileProcessor( new TestFileProcessor()
+        {
+            @Override
+            public long copy( File source, File target, ProgressListener listener )
+                throws IOException
+            {
+                if ( !Thread.currentThread().isInterrupted() )
+                {
+                    try
+                    {
+                        Thread.sleep( 100 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new IOException( e.getMessage() );
+                    }
+                }
+                return super.copy( source, target, listener );
+            }
+        } );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            File file = TestFileUtils.createTempFile( "content-" + i );
+            request.addArtifact( new DefaultArtifact( "gid", "aid" + i, "jar", "ver" ).setFile( file ) );
+        }
+
+        Thread.currentThread().interrupt();
+        try
+        {
+            InstallResult result = installer.install( session, request );
+            assertEquals( 4, result.getArtifacts().size() );
+            assertTrue( Thread.currentThread().isInterrupted() );
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testFailedConcurrentCopy()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.installer.threads", 4 );
+
+        Artifact missing = new DefaultArtifact( "gid", "missing", "jar", "ver" ).setFile( new File( "missing" ) );
+        request.addArtifact( artifact );
+        request.addArtifact( missing );
+        request.addArtifact( new DefaultArtifact( "gid", "other", "jar", "ver" ).setFile( artifact.getFile() ) );
+
+        try
+        {
+            installer.install( session, request );
+            fail( "expected exception" );
+        }
+        catch ( InstallationException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().contains( missing.toString() ) );
+        }
+
+        List<RepositoryEvent> events = listener.getEvents();
+        assertEquals( 6, events.size() );
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertEquals( EventType.ARTIFACT_INSTALLING, events.get( i ).getType() );
+            assertEquals( EventType.ARTIFACT_INSTALLED, events.get( 3 + i ).getType() );
+        }
+        assertNull( events.get( 3 ).getException() );
+        assertEquals( missing, events.get( 4 ).getArtifact() );
+        assertNotNull( events.get( 4 ).getException() );
+        assertNotNull( events.get( 5 ).getException() );
+        assertTrue( localArtifactFile.isFile() );
+    }
+
+    @Test
+    public void testInstallAsHardLink()
+        throws Exception
+    {
+        assumeTrue( HardLinks.isSupported() );
+        session.setConfigProperty( "aether.installer.hardLinks", true );
+
+        request.addArtifact( artifact );
+        installer.install( session, request );
+
+        assertEquals( "artifact", TestFileUtils.readString( localArtifactFile ) );
+        TestFileUtils.writeString( artifact.getFile(), "changed" );
+        assertEquals( "changed", TestFileUtils.readString( localArtifactFile ) );
+    }
 }
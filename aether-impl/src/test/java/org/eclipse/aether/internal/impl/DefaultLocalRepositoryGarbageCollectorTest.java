@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.SyncContext;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.impl.GarbageCollectionResult;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ChecksumUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultLocalRepositoryGarbageCollectorTest
+{
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private File basedir;
+
+    private DefaultRepositorySystemSession session;
+
+    private EnhancedLocalRepositoryManager manager;
+
+    private DefaultSyncContextFactory syncContextFactory;
+
+    private DefaultLocalRepositoryGarbageCollector collector;
+
+    private RemoteRepository central;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        basedir = TestFileUtils.createTempDir( "gc-repo" );
+        session = TestUtils.newSession();
+        manager = new EnhancedLocalRepositoryManager( basedir, session );
+        session.setLocalRepositoryManager( manager );
+        central = new RemoteRepository.Builder( "central", "default", "file:///central" ).build();
+        syncContextFactory = new DefaultSyncContextFactory();
+        collector = new DefaultLocalRepositoryGarbageCollector().setSyncContextFactory( syncContextFactory );
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.deleteFile( basedir );
+    }
+
+    private File install( Artifact artifact, String content, long age )
+        throws IOException
+    {
+        File file = new File( basedir, manager.getPathForLocalArtifact( artifact ) );
+        TestFileUtils.writeString( file, content );
+        assertTrue( file.setLastModified( System.currentTimeMillis() - age ) );
+        manager.add( session, new LocalArtifactRegistration( artifact ) );
+        return file;
+    }
+
+    private File download( Artifact artifact, String content, long age )
+        throws IOException
+    {
+        File file = new File( basedir, manager.getPathForRemoteArtifact( artifact, central, "" ) );
+        TestFileUtils.writeString( file, content );
+        assertTrue( file.setLastModified( System.currentTimeMillis() - age ) );
+        manager.add( session, new LocalArtifactRegistration( artifact, central, null ) );
+        return file;
+    }
+
+    private File create( File dir, String name, long age )
+        throws IOException
+    {
+        File file = new File( dir, name );
+        TestFileUtils.writeString( file, name );
+        assertTrue( file.setLastModified( System.currentTimeMillis() - age ) );
+        return file;
+    }
+
+    @Test
+    public void testDeleteStaleLeftovers()
+        throws Exception
+    {
+        File jar = install( new DefaultArtifact( "gid:aid:1.0" ), "jar", 0 );
+        File dir = jar.getParentFile();
+        File stalePart = create( dir, "aid-2.0.jar.part", 2 * DAY );
+        File staleCheckpoint = create( dir, "aid-2.0.jar.part.digest", 2 * DAY );
+        File staleLock = create( dir, "aid-3.0.jar.part.lock", 2 * DAY );
+        File orphanCheckpoint = create( dir, "aid-5.0.jar.part.digest", 2 * DAY );
+        File staleTmp = create( dir, ".aid-1.0.jar.12345.tmp", 2 * DAY );
+        File staleMarker = create( dir, "aid-1.0-sources.jar.lastUpdated", 2 * DAY );
+        File freshPart = create( dir, "aid-4.0.jar.part", 0 );
+        File freshMarker = create( dir, "aid-1.0-javadoc.jar.lastUpdated", 0 );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        assertEquals( 6, result.getDeletedFiles() );
+        assertFalse( stalePart.exists() );
+        assertFalse( staleCheckpoint.exists() );
+        assertFalse( staleLock.exists() );
+        assertFalse( orphanCheckpoint.exists() );
+        assertFalse( staleTmp.exists() );
+        assertFalse( staleMarker.exists() );
+        assertTrue( freshPart.exists() );
+        assertTrue( freshMarker.exists() );
+        assertTrue( jar.exists() );
+        assertEquals( jar.length(), result.getRepositorySize() );
+    }
+
+    @Test
+    public void testKeepLockedPartialFile()
+        throws Exception
+    {
+        File dir = new File( basedir, "gid/aid/1.0" );
+        File part = create( dir, "aid-1.0.jar.part", 2 * DAY );
+        File lockFile = create( dir, "aid-1.0.jar.part.lock", 2 * DAY );
+
+        RandomAccessFile raf = new RandomAccessFile( lockFile, "rw" );
+        try
+        {
+            FileLock lock = raf.getChannel().lock( 0, 1, false );
+            collector.collect( session );
+            lock.release();
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        assertTrue( part.exists() );
+        assertTrue( lockFile.exists() );
+
+        collector.collect( session );
+
+        assertFalse( part.exists() );
+        assertFalse( lockFile.exists() );
+    }
+
+    @Test
+    public void testRemoveOldSnapshots()
+        throws Exception
+    {
+        File old1 = download( new DefaultArtifact( "gid:aid:1.0-20130101.120000-1" ), "1", 3 * DAY );
+        File old2 = download( new DefaultArtifact( "gid:aid:1.0-20130101.120000-2" ), "2", 2 * DAY );
+        File latest = download( new DefaultArtifact( "gid:aid:1.0-20130102.120000-3" ), "3", 3 * DAY );
+        File sources = download( new DefaultArtifact( "gid:aid:jar:sources:1.0-20130101.120000-2" ), "s", DAY );
+        File local = install( new DefaultArtifact( "gid:aid:1.0-SNAPSHOT" ), "local", DAY );
+        File checksum = create( old1.getParentFile(), old1.getName() + ".sha1", DAY );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        assertEquals( 3, result.getDeletedFiles() );
+        assertFalse( old1.exists() );
+        assertFalse( checksum.exists() );
+        assertFalse( old2.exists() );
+        assertTrue( latest.exists() );
+        assertTrue( sources.exists() );
+        assertTrue( local.exists() );
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.localRepository.accessLog", true );
+        session.setConfigProperty( "aether.localRepository.gc.maxSize", 20 );
+
+        Artifact a = new DefaultArtifact( "gid:a:1.0" );
+        Artifact b = new DefaultArtifact( "gid:b:1.0" );
+        Artifact c = new DefaultArtifact( "gid:c:1.0" );
+        File fileA = install( a, "0123456789", 3 * DAY );
+        File fileB = install( b, "0123456789", 2 * DAY );
+        File fileC = install( c, "0123456789", DAY );
+
+        assertTrue( manager.find( session, new LocalArtifactRequest( a, null, "" ) ).isAvailable() );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        assertTrue( fileA.exists() );
+        assertFalse( fileB.exists() );
+        assertFalse( fileB.getParentFile().exists() );
+        assertTrue( fileC.exists() );
+        assertEquals( 20, result.getRepositorySize() );
+
+        Map<String, Long> accesses = AccessLog.get( basedir ).read();
+        assertEquals( Collections.singleton( manager.getPathForLocalArtifact( a ) ), accesses.keySet() );
+    }
+
+    private void useContentAddressedRepository()
+    {
+        manager = new ContentAddressedLocalRepositoryManager( basedir, session );
+        session.setLocalRepositoryManager( manager );
+    }
+
+    private File getBlob( File file )
+        throws IOException
+    {
+        String sha1 = (String) ChecksumUtils.calc( file, Collections.singleton( "SHA-1" ) ).get( "SHA-1" );
+        File blob = ( (ContentAddressedLocalRepositoryManager) manager ).getBlob( sha1 );
+        assumeTrue( blob.isFile() && HardLinks.getLinkCount( blob ) >= 0 );
+        return blob;
+    }
+
+    @Test
+    public void testEvictContentAddressedCountsBlobsOnce()
+        throws Exception
+    {
+        useContentAddressedRepository();
+        session.setConfigProperty( "aether.localRepository.gc.maxSize", 15 );
+
+        File fileC = install( new DefaultArtifact( "gid:c:1.0" ), "cccccccccc", 4 * DAY );
+        File fileA = install( new DefaultArtifact( "gid:a:1.0" ), "0123456789", DAY );
+        File fileB = install( new DefaultArtifact( "gid:b:1.0" ), "0123456789", DAY );
+        File blob = getBlob( fileA );
+        assertEquals( 3, HardLinks.getLinkCount( blob ) );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        // the blob shared by a and b occupies 10 bytes only, evicting c suffices
+        assertFalse( fileC.exists() );
+        assertTrue( fileA.exists() );
+        assertTrue( fileB.exists() );
+        assertTrue( blob.exists() );
+        assertEquals( 10, result.getRepositorySize() );
+    }
+
+    @Test
+    public void testEvictContentAddressedDeletesUnlinkedBlobs()
+        throws Exception
+    {
+        useContentAddressedRepository();
+        session.setConfigProperty( "aether.localRepository.gc.maxSize", 15 );
+
+        File fileA = install( new DefaultArtifact( "gid:a:1.0" ), "0123456789", 2 * DAY );
+        File fileB = install( new DefaultArtifact( "gid:b:1.0" ), "0123456789", 2 * DAY );
+        File fileC = install( new DefaultArtifact( "gid:c:1.0" ), "cccccccccc", DAY );
+        File blob = getBlob( fileA );
+        File blobC = getBlob( fileC );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        assertFalse( fileA.exists() );
+        assertFalse( fileB.exists() );
+        assertFalse( blob.exists() );
+        assertTrue( fileC.exists() );
+        assertTrue( blobC.exists() );
+        assertEquals( 10, result.getRepositorySize() );
+    }
+
+    @Test
+    public void testDeleteOrphanedBlobs()
+        throws Exception
+    {
+        useContentAddressedRepository();
+
+        File fileA = install( new DefaultArtifact( "gid:a:1.0" ), "0123456789", 0 );
+        File blob = getBlob( fileA );
+        assertTrue( fileA.delete() );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        assertFalse( blob.exists() );
+        assertEquals( 0, result.getRepositorySize() );
+    }
+
+    @Test
+    public void testAccessNotLoggedByDefault()
+        throws Exception
+    {
+        Artifact a = new DefaultArtifact( "gid:a:1.0" );
+        download( a, "a", 0 );
+
+        LocalArtifactRequest request = new LocalArtifactRequest( a, Collections.singletonList( central ), "" );
+        assertTrue( manager.find( session, request ).isAvailable() );
+
+        assertFalse( new File( basedir, AccessLog.FILENAME ).exists() );
+    }
+
+    @Test( timeout = 10000 )
+    public void testEvictionWaitsForSyncContext()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.localRepository.gc.maxSize", 0 );
+
+        Artifact artifact = new DefaultArtifact( "gid:aid:1.0" );
+        File file = install( artifact, "jar", 0 );
+
+        SyncContext syncContext = syncContextFactory.newInstance( session, true );
+        syncContext.acquire( Collections.singleton( artifact ), null );
+        Thread thread;
+        try
+        {
+            thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    collector.collect( session );
+                }
+            };
+            thread.start();
+            thread.join( 500 );
+            assertTrue( thread.isAlive() );
+            assertTrue( file.exists() );
+        }
+        finally
+        {
+            syncContext.close();
+        }
+        thread.join();
+
+        assertFalse( file.exists() );
+    }
+
+    @Test
+    public void testDeleteStaleTempLinks()
+        throws Exception
+    {
+        File jar = install( new DefaultArtifact( "gid:aid:1.0" ), "jar", 0 );
+        File staleLink = create( jar.getParentFile(), jar.getName() + ".1a2b" + HardLinks.EXT_TMP, 2 * DAY );
+        File freshLink = create( jar.getParentFile(), jar.getName() + ".3c4d" + HardLinks.EXT_TMP, 0 );
+        File blobs = new File( basedir, ContentAddressedLocalRepositoryManager.BLOBS_DIR );
+        File staleBlobLink = create( new File( blobs, "ab" ), "abcdef.5e6f" + HardLinks.EXT_TMP, 2 * DAY );
+        File blob = new File( new File( blobs, "ab" ), "abcdef" );
+        assumeTrue( HardLinks.link( jar, blob ) );
+
+        GarbageCollectionResult result = collector.collect( session );
+
+        assertEquals( 2, result.getDeletedFiles() );
+        assertFalse( staleLink.exists() );
+        assertTrue( freshLink.exists() );
+        assertFalse( staleBlobLink.exists() );
+        assertTrue( blob.exists() );
+        assertTrue( jar.exists() );
+    }
+
+    @Test
+    public void testDeleteUnlockedLockFilesOfSyncContext()
+        throws Exception
+    {
+        File locks = new File( basedir, DefaultSyncContextFactory.LOCKS_DIR );
+        File unlocked = create( locks, "0123.lock", 0 );
+        File locked = create( locks, "4567.lock", 0 );
+
+        RandomAccessFile raf = new RandomAccessFile( locked, "rw" );
+        try
+        {
+            FileLock lock = raf.getChannel().lock();
+            GarbageCollectionResult result = collector.collect( session );
+            lock.release();
+            assertEquals( 0, result.getDeletedFiles() );
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        assertFalse( unlocked.exists() );
+        assertTrue( locked.exists() );
+    }
+
+    @Test
+    public void testDeletedLockFilesAreMarked()
+        throws Exception
+    {
+        File locks = new File( basedir, DefaultSyncContextFactory.LOCKS_DIR );
+        File file = new File( locks, "0123.lock" );
+        assertTrue( locks.mkdirs() && file.createNewFile() );
+
+        // a process that opened the lock file before its deletion must be able to tell
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            collector.collect( session );
+            assertFalse( file.exists() );
+            assertEquals( DefaultSyncContextFactory.DELETED_LOCK.length, raf.length() );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testEvictionLeavesNoLockFiles()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.localRepository.gc.maxSize", 0 );
+        File file = install( new DefaultArtifact( "gid:aid:1.0" ), "jar", 0 );
+
+        collector.collect( session );
+
+        assertFalse( file.exists() );
+        File[] locks = new File( basedir, DefaultSyncContextFactory.LOCKS_DIR ).listFiles();
+        assertEquals( 0, ( locks != null ) ? locks.length : 0 );
+    }
+
+    @Test
+    public void testCompactTrackingIndexAfterEviction()
+        throws Exception
+    {
+        IndexedLocalRepositoryManager indexed = new IndexedLocalRepositoryManager( basedir, session );
+        session.setLocalRepositoryManager( indexed );
+        session.setConfigProperty( "aether.localRepository.gc.maxSize", 10 );
+
+        Artifact a = new DefaultArtifact( "gid:a:1.0" );
+        Artifact b = new DefaultArtifact( "gid:b:1.0" );
+        String pathA = indexed.getPathForRemoteArtifact( a, central, "" );
+        String pathB = indexed.getPathForRemoteArtifact( b, central, "" );
+        File fileA = new File( basedir, pathA );
+        File fileB = new File( basedir, pathB );
+        TestFileUtils.writeString( fileA, "0123456789" );
+        assertTrue( fileA.setLastModified( System.currentTimeMillis() - 2 * DAY ) );
+        TestFileUtils.writeString( fileB, "0123456789" );
+        assertTrue( fileB.setLastModified( System.currentTimeMillis() - DAY ) );
+        indexed.add( session, new LocalArtifactRegistration( a, central, Arrays.asList( "" ) ) );
+        indexed.add( session, new LocalArtifactRegistration( b, central, Arrays.asList( "" ) ) );
+
+        File indexFile = new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME );
+        long length = indexFile.length();
+        TrackingIndex index = TrackingIndex.get( indexFile );
+        assertFalse( index.get( pathA ).isEmpty() );
+
+        collector.collect( session );
+
+        assertFalse( fileA.exists() );
+        assertTrue( fileB.exists() );
+        assertTrue( indexFile.length() < length );
+        assertTrue( index.get( pathA ).isEmpty() );
+        assertFalse( index.get( pathB ).isEmpty() );
+        assertFalse( index.compact() );
+    }
+
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.SyncContext;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.metadata.DefaultMetadata;
+import org.eclipse.aether.metadata.Metadata;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultSyncContextFactoryTest
+{
+
+    private DefaultRepositorySystemSession session;
+
+    private DefaultSyncContextFactory factory;
+
+    private Artifact artifact;
+
+    private Metadata metadata;
+
+    private List<Thread> threads;
+
+    @Before
+    public void setup()
+    {
+        session = TestUtils.newSession();
+        factory = new DefaultSyncContextFactory();
+        artifact = new DefaultArtifact( "gid:aid:ext:ver" );
+        metadata = new DefaultMetadata( "gid", "aid", "ver", "maven-metadata.xml", Metadata.Nature.RELEASE );
+        threads = new ArrayList<Thread>();
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        for ( Thread thread : threads )
+        {
+            thread.join( 10000 );
+        }
+        TestFileUtils.deleteFile( session.getLocalRepository().getBasedir() );
+    }
+
+    private boolean acquireInOtherThread( final boolean shared, long timeout )
+        throws Exception
+    {
+        final CountDownLatch locked = new CountDownLatch( 1 );
+        final CountDownLatch done = new CountDownLatch( 1 );
+        final AtomicBoolean acquired = new AtomicBoolean();
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                SyncContext context = factory.newInstance( session, shared );
+                try
+                {
+                    context.acquire( Collections.singleton( artifact ), null );
+                    acquired.set( true );
+                    locked.countDown();
+                    done.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    // ignored
+                }
+                finally
+                {
+                    context.close();
+                }
+            }
+        };
+        thread.start();
+        threads.add( thread );
+        boolean result = locked.await( timeout, TimeUnit.MILLISECONDS );
+        done.countDown();
+        if ( result )
+        {
+            thread.join( 10000 );
+        }
+        // else the thread remains blocked until the caller releases its lock and then terminates immediately
+        return result && acquired.get();
+    }
+
+    @Test
+    public void testExclusiveBlocksOtherThreads()
+        throws Exception
+    {
+        SyncContext context = factory.newInstance( session, false );
+        try
+        {
+            context.acquire( Collections.singleton( artifact ), null );
+            assertFalse( acquireInOtherThread( false, 200 ) );
+        }
+        finally
+        {
+            context.close();
+        }
+        assertTrue( acquireInOtherThread( false, 10000 ) );
+    }
+
+    @Test
+    public void testSharedAllowsConcurrentReaders()
+        throws Exception
+    {
+        SyncContext context = factory.newInstance( session, true );
+        try
+        {
+            context.acquire( Collections.singleton( artifact ), null );
+            assertTrue( acquireInOtherThread( true, 10000 ) );
+            assertFalse( acquireInOtherThread( false, 200 ) );
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testNestedContexts()
+    {
+        SyncContext outer = factory.newInstance( session, false );
+        try
+        {
+            outer.acquire( Collections.singleton( artifact ), Collections.singleton( metadata ) );
+            SyncContext inner = factory.newInstance( session, false );
+            try
+            {
+                inner.acquire( Collections.singleton( artifact ), null );
+            }
+            finally
+            {
+                inner.close();
+            }
+            inner = factory.newInstance( session, true );
+            try
+            {
+                inner.acquire( null, Collections.singleton( metadata ) );
+            }
+            finally
+            {
+                inner.close();
+            }
+        }
+        finally
+        {
+            outer.close();
+        }
+    }
+
+    @Test( timeout = 10000 )
+    public void testUpgradeFromSharedFailsWithoutDeadlock()
+        throws Exception
+    {
+        SyncContext outer = factory.newInstance( session, true );
+        try
+        {
+            outer.acquire( Collections.singleton( artifact ), null );
+            SyncContext inner = factory.newInstance( session, false );
+            try
+            {
+                inner.acquire( Collections.singleton( artifact ), null );
+                fail( "upgrade of shared lock succeeded" );
+            }
+            catch ( IllegalStateException e )
+            {
+                assertTrue( e.getMessage(), e.getMessage().contains( "exclusively" ) );
+            }
+            finally
+            {
+                inner.close();
+            }
+        }
+        finally
+        {
+            outer.close();
+        }
+        assertTrue( acquireInOtherThread( false, 10000 ) );
+    }
+
+    private Thread lockArtifactThenMetadataInOtherThread( final AtomicBoolean acquired )
+    {
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                // locks the artifact and then waits for the metadata
+                SyncContext context = factory.newInstance( session, false );
+                context.acquire( Collections.singleton( artifact ), Collections.singleton( metadata ) );
+                acquired.set( true );
+                context.close();
+            }
+        };
+        thread.start();
+        threads.add( thread );
+        while ( thread.getState() != Thread.State.WAITING )
+        {
+            Thread.yield();
+        }
+        return thread;
+    }
+
+    @Test( timeout = 10000 )
+    public void testOutOfOrderAcquireReacquiresInOrder()
+        throws Exception
+    {
+        session.setConfigProperty( DefaultSyncContextFactory.CONFIG_PROP_LOCK_TIMEOUT, 200 );
+        SyncContext context = factory.newInstance( session, false );
+        try
+        {
+            context.acquire( null, Collections.singleton( metadata ) );
+
+            AtomicBoolean acquired = new AtomicBoolean();
+            lockArtifactThenMetadataInOtherThread( acquired );
+
+            // the artifact sorts before the metadata already held, the metadata is released to lock both in order
+            context.acquire( Collections.singleton( artifact ), null );
+            assertTrue( acquired.get() );
+            assertFalse( acquireInOtherThread( false, 200 ) );
+        }
+        finally
+        {
+            context.close();
+        }
+        assertTrue( acquireInOtherThread( false, 10000 ) );
+    }
+
+    @Test( timeout = 10000 )
+    public void testOutOfOrderAcquireInNestedContextFailsWithoutDeadlock()
+        throws Exception
+    {
+        session.setConfigProperty( DefaultSyncContextFactory.CONFIG_PROP_LOCK_TIMEOUT, 200 );
+        AtomicBoolean acquired = new AtomicBoolean();
+        SyncContext outer = factory.newInstance( session, false );
+        try
+        {
+            outer.acquire( null, Collections.singleton( metadata ) );
+            lockArtifactThenMetadataInOtherThread( acquired );
+
+            // the artifact sorts before the metadata held by the outer context which the inner one cannot release
+            SyncContext inner = factory.newInstance( session, false );
+            try
+            {
+                inner.acquire( Collections.singleton( artifact ), null );
+                fail( "out of order lock succeeded while held by other thread" );
+            }
+            catch ( IllegalStateException e )
+            {
+                assertTrue( e.getMessage(), e.getMessage().contains( "sorts before" ) );
+            }
+            finally
+            {
+                inner.close();
+            }
+            assertFalse( acquired.get() );
+        }
+        finally
+        {
+            outer.close();
+        }
+        threads.get( 0 ).join( 10000 );
+        assertTrue( acquired.get() );
+        assertTrue( acquireInOtherThread( false, 10000 ) );
+    }
+
+    @Test
+    public void testRepeatedAcquireAndClose()
+        throws Exception
+    {
+        SyncContext context = factory.newInstance( session, false );
+        context.acquire( Arrays.asList( artifact, artifact ), null );
+        context.acquire( Collections.singleton( artifact ), null );
+        context.close();
+        context.close();
+        assertTrue( acquireInOtherThread( false, 10000 ) );
+    }
+
+    @Test
+    public void testLockFiles()
+    {
+        File lockDir = new File( session.getLocalRepository().getBasedir(), DefaultSyncContextFactory.LOCKS_DIR );
+        SyncContext context = factory.newInstance( session, false );
+        try
+        {
+            context.acquire( Collections.singleton( artifact ), Collections.singleton( metadata ) );
+            String[] files = lockDir.list();
+            assertNotNull( files );
+            Arrays.sort( files );
+            String[] expected =
+                { DefaultSyncContextFactory.getLockFileName( DefaultSyncContextFactory.getName( artifact ) ),
+                    DefaultSyncContextFactory.getLockFileName( DefaultSyncContextFactory.getName( metadata ) ) };
+            Arrays.sort( expected );
+            assertArrayEquals( expected, files );
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+
+    @Test
+    public void testLockFilesDisabled()
+    {
+        session.setConfigProperty( DefaultSyncContextFactory.CONFIG_PROP_FILE_LOCKS, false );
+        File lockDir = new File( session.getLocalRepository().getBasedir(), DefaultSyncContextFactory.LOCKS_DIR );
+        SyncContext context = factory.newInstance( session, false );
+        try
+        {
+            context.acquire( Collections.singleton( artifact ), null );
+            assertFalse( lockDir.exists() );
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+
+}
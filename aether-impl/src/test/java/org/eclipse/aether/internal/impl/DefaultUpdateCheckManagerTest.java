@@ -14,6 +14,7 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
@@ -804,4 +805,54 @@ public class DefaultUpdateCheckManagerTest
         assertEquals( false, check.isRequired() );
     }
 
+    @Test
+    public void testCheckArtifacts()
+        throws Exception
+    {
+        artifact.getFile().delete();
+        session.setResolutionErrorPolicy( new SimpleResolutionErrorPolicy( true, false ) );
+
+        UpdateCheck<Artifact, ArtifactTransferException> check = newArtifactCheck();
+        check.setException( new ArtifactNotFoundException( artifact, repository ) );
+        manager.touchArtifact( session, check );
+        resetSessionData( session );
+
+        UpdateCheck<Artifact, ArtifactTransferException> notFound =
+            newArtifactCheck().setPolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+        UpdateCheck<Artifact, ArtifactTransferException> firstAttempt =
+            newArtifactCheck().setPolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+        firstAttempt.setFile( new File( artifact.getFile().getParentFile(), "other.txt" ) );
+        UpdateCheck<Artifact, ArtifactTransferException> missingDir =
+            newArtifactCheck().setPolicy( RepositoryPolicy.UPDATE_POLICY_DAILY );
+        missingDir.setFile( new File( artifact.getFile().getParentFile(), "missing/artifact.txt" ) );
+
+        manager.checkArtifacts( session, Arrays.asList( notFound, firstAttempt, missingDir ) );
+
+        assertEquals( false, notFound.isRequired() );
+        assertTrue( notFound.getException() instanceof ArtifactNotFoundException );
+        assertTrue( notFound.getException().isFromCache() );
+        assertEquals( true, firstAttempt.isRequired() );
+        assertNull( firstAttempt.getException() );
+        assertEquals( true, missingDir.isRequired() );
+        assertNull( missingDir.getException() );
+    }
+
+    @Test
+    public void testCheckArtifactsAgreesWithCheckArtifactOnFileNameCase()
+        throws Exception
+    {
+        File file = new File( artifact.getFile().getParentFile(), artifact.getFile().getName().toUpperCase() );
+
+        UpdateCheck<Artifact, ArtifactTransferException> single = newArtifactCheck();
+        single.setFile( file );
+        manager.checkArtifact( session, single );
+
+        UpdateCheck<Artifact, ArtifactTransferException> batched = newArtifactCheck();
+        batched.setFile( file );
+        manager.checkArtifacts( session, Arrays.asList( batched ) );
+
+        assertEquals( file.exists(), !single.isRequired() );
+        assertEquals( single.isRequired(), batched.isRequired() );
+    }
+
 }
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.internal.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.internal.test.util.TestFileUtils;
+import org.eclipse.aether.internal.test.util.TestUtils;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedLocalRepositoryManagerTest
+{
+
+    private File basedir;
+
+    private RepositorySystemSession session;
+
+    private RemoteRepository central;
+
+    private RemoteRepository other;
+
+    private IndexedLocalRepositoryManager manager;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        basedir = TestFileUtils.createTempDir( "indexed-repo" );
+        session = TestUtils.newSession();
+        central = new RemoteRepository.Builder( "central", "default", "file:///central" ).build();
+        other = new RemoteRepository.Builder( "other", "default", "file:///other" ).build();
+        manager = new IndexedLocalRepositoryManager( basedir, session );
+    }
+
+    @After
+    public void teardown()
+        throws Exception
+    {
+        TestFileUtils.deleteFile( basedir );
+        manager = null;
+        session = null;
+    }
+
+    private File install( Artifact artifact )
+        throws IOException
+    {
+        File file = new File( basedir, manager.getPathForLocalArtifact( artifact ) );
+        TestFileUtils.writeString( file, artifact.toString() );
+        manager.add( session, new LocalArtifactRegistration( artifact ) );
+        return file;
+    }
+
+    private File download( Artifact artifact, RemoteRepository repository )
+        throws IOException
+    {
+        File file = new File( basedir, manager.getPathForRemoteArtifact( artifact, repository, "" ) );
+        TestFileUtils.writeString( file, artifact.toString() );
+        manager.add( session, new LocalArtifactRegistration( artifact, repository, Arrays.asList( "" ) ) );
+        return file;
+    }
+
+    private LocalArtifactResult find( IndexedLocalRepositoryManager manager, Artifact artifact,
+                                      RemoteRepository repository )
+    {
+        LocalArtifactRequest request =
+            new LocalArtifactRequest( artifact, Collections.singletonList( repository ), "" );
+        return manager.find( session, request );
+    }
+
+    @Test
+    public void testRepositoryType()
+    {
+        assertEquals( "indexed", manager.getRepository().getContentType() );
+    }
+
+    @Test
+    public void testFindInstalledArtifact()
+        throws IOException
+    {
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        File file = install( artifact );
+
+        LocalArtifactResult result = find( manager, artifact, central );
+        assertTrue( result.isAvailable() );
+        assertEquals( file, result.getFile() );
+        assertTrue( new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME ).isFile() );
+        assertFalse( new File( file.getParentFile(), "_remote.repositories" ).exists() );
+    }
+
+    @Test
+    public void testFindDownloadedArtifactOnlyFromSourceRepository()
+        throws IOException
+    {
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        download( artifact, central );
+
+        assertTrue( find( manager, artifact, central ).isAvailable() );
+        assertFalse( find( manager, artifact, other ).isAvailable() );
+    }
+
+    @Test
+    public void testIndexSharedWithNewManager()
+        throws IOException
+    {
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        download( artifact, central );
+
+        IndexedLocalRepositoryManager manager2 = new IndexedLocalRepositoryManager( basedir, session );
+        assertTrue( find( manager2, artifact, central ).isAvailable() );
+        assertFalse( find( manager2, artifact, other ).isAvailable() );
+    }
+
+    @Test
+    public void testImportLegacyTrackingFile()
+        throws IOException
+    {
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        File file = new File( basedir, manager.getPathForLocalArtifact( artifact ) );
+        TestFileUtils.writeString( file, "artifact" );
+        File legacy = new File( file.getParentFile(), "_remote.repositories" );
+        TestFileUtils.writeString( legacy, file.getName() + ">central=\n" );
+
+        assertTrue( find( manager, artifact, central ).isAvailable() );
+        assertFalse( find( manager, artifact, other ).isAvailable() );
+
+        assertTrue( legacy.delete() );
+        assertTrue( find( manager, artifact, central ).isAvailable() );
+        assertFalse( find( manager, artifact, other ).isAvailable() );
+    }
+
+    @Test
+    public void testReadIndexFromDiskIgnoresTornFrame()
+        throws IOException
+    {
+        Artifact artifact1 = new DefaultArtifact( "gid:aid:1" );
+        Artifact artifact2 = new DefaultArtifact( "gid:aid:2" );
+        download( artifact1, central );
+
+        File index = new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME );
+        FileOutputStream fos = new FileOutputStream( index, true );
+        try
+        {
+            fos.write( new byte[] { 0, 0, 0, 100, 1, 2, 3, 4, 5 } );
+        }
+        finally
+        {
+            fos.close();
+        }
+
+        File basedir2 = TestFileUtils.createTempDir( "indexed-repo" );
+        try
+        {
+            String path1 = manager.getPathForRemoteArtifact( artifact1, central, "" );
+            TestFileUtils.copyFile( new File( basedir, path1 ), new File( basedir2, path1 ) );
+            TestFileUtils.copyFile( index, new File( basedir2, IndexedLocalRepositoryManager.INDEX_FILENAME ) );
+            IndexedLocalRepositoryManager manager2 = new IndexedLocalRepositoryManager( basedir2, session );
+            assertTrue( find( manager2, artifact1, central ).isAvailable() );
+
+            File file2 = new File( basedir2, manager2.getPathForRemoteArtifact( artifact2, other, "" ) );
+            TestFileUtils.writeString( file2, "artifact" );
+            manager2.add( session, new LocalArtifactRegistration( artifact2, other, Arrays.asList( "" ) ) );
+            assertTrue( find( manager2, artifact2, other ).isAvailable() );
+            assertFalse( find( manager2, artifact2, central ).isAvailable() );
+            assertTrue( find( manager2, artifact1, central ).isAvailable() );
+        }
+        finally
+        {
+            TestFileUtils.deleteFile( basedir2 );
+        }
+    }
+
+    @Test
+    public void testFindWithoutTrackingDataDoesNotWriteIndex()
+        throws IOException
+    {
+        Artifact artifact = new DefaultArtifact( "gid:aid:1" );
+        File file = new File( basedir, manager.getPathForLocalArtifact( artifact ) );
+        TestFileUtils.writeString( file, "artifact" );
+
+        assertTrue( find( manager, artifact, central ).isAvailable() );
+        assertTrue( find( manager, artifact, other ).isAvailable() );
+        assertFalse( new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME ).exists() );
+    }
+
+    @Test
+    public void testReadIndexFromDiskRereadsTornFrameRewrittenToSameLength()
+        throws IOException
+    {
+        Artifact artifact1 = new DefaultArtifact( "gid:aid:1" );
+        Artifact artifact2 = new DefaultArtifact( "gid:aid:2" );
+        File index = new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME );
+        download( artifact1, central );
+        byte[] bytes1 = TestFileUtils.readBytes( index );
+        download( artifact2, other );
+        byte[] bytes2 = TestFileUtils.readBytes( index );
+        assertTrue( bytes2.length > bytes1.length );
+
+        byte[] torn = bytes2.clone();
+        torn[torn.length - 1] ^= 0xFF;
+
+        File basedir2 = TestFileUtils.createTempDir( "indexed-repo" );
+        try
+        {
+            String path1 = manager.getPathForRemoteArtifact( artifact1, central, "" );
+            String path2 = manager.getPathForRemoteArtifact( artifact2, other, "" );
+            TestFileUtils.copyFile( new File( basedir, path1 ), new File( basedir2, path1 ) );
+            TestFileUtils.copyFile( new File( basedir, path2 ), new File( basedir2, path2 ) );
+            File index2 = new File( basedir2, IndexedLocalRepositoryManager.INDEX_FILENAME );
+            TestFileUtils.writeBytes( index2, torn, 1 );
+
+            IndexedLocalRepositoryManager manager2 = new IndexedLocalRepositoryManager( basedir2, session );
+            assertTrue( find( manager2, artifact1, central ).isAvailable() );
+            assertTrue( find( manager2, artifact2, central ).isAvailable() );
+
+            TestFileUtils.writeBytes( index2, bytes2, 1 );
+            assertEquals( torn.length, index2.length() );
+            assertFalse( find( manager2, artifact2, central ).isAvailable() );
+            assertTrue( find( manager2, artifact2, other ).isAvailable() );
+        }
+        finally
+        {
+            TestFileUtils.deleteFile( basedir2 );
+        }
+    }
+
+    @Test
+    public void testReadIndexFromDiskAfterCompaction()
+        throws IOException
+    {
+        Artifact artifact1 = new DefaultArtifact( "gid:aid:1" );
+        Artifact artifact2 = new DefaultArtifact( "gid:aid:2" );
+        Artifact artifact3 = new DefaultArtifact( "gid:aid:3" );
+        File file1 = download( artifact1, central );
+        download( artifact2, central );
+        File index = new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME );
+
+        File basedir2 = TestFileUtils.createTempDir( "indexed-repo" );
+        try
+        {
+            File index2 = new File( basedir2, IndexedLocalRepositoryManager.INDEX_FILENAME );
+            String path1 = manager.getPathForRemoteArtifact( artifact1, central, "" );
+            TestFileUtils.copyFile( file1, new File( basedir2, path1 ) );
+            TestFileUtils.copyFile( index, index2 );
+            IndexedLocalRepositoryManager manager2 = new IndexedLocalRepositoryManager( basedir2, session );
+            assertFalse( find( manager2, artifact1, other ).isAvailable() );
+
+            assertTrue( file1.delete() );
+            assertTrue( TrackingIndex.get( index ).compact() );
+            download( artifact3, central );
+
+            String path3 = manager.getPathForRemoteArtifact( artifact3, central, "" );
+            TestFileUtils.copyFile( new File( basedir, path3 ), new File( basedir2, path3 ) );
+            TestFileUtils.copyFile( index, index2 );
+            assertTrue( find( manager2, artifact3, central ).isAvailable() );
+            assertFalse( find( manager2, artifact3, other ).isAvailable() );
+            // the entry of the first artifact was dropped, so the file counts as locally installed now
+            assertTrue( find( manager2, artifact1, other ).isAvailable() );
+        }
+        finally
+        {
+            TestFileUtils.deleteFile( basedir2 );
+        }
+    }
+
+    @Test
+    public void testCompactionReplacesIndexFile()
+        throws IOException
+    {
+        Artifact artifact1 = new DefaultArtifact( "gid:aid:1" );
+        Artifact artifact2 = new DefaultArtifact( "gid:aid:2" );
+        Artifact artifact3 = new DefaultArtifact( "gid:aid:3" );
+        File file1 = download( artifact1, central );
+        download( artifact2, central );
+        File index = new File( basedir, IndexedLocalRepositoryManager.INDEX_FILENAME );
+
+        RandomAccessFile old = new RandomAccessFile( index, "r" );
+        try
+        {
+            int magic = old.readInt();
+
+            assertTrue( file1.delete() );
+            assertTrue( TrackingIndex.get( index ).compact() );
+
+            // a writer that opened the old file before the rename must be able to tell
+            old.seek( 0 );
+            assertTrue( magic != old.readInt() );
+            assertTrue( old.length() > index.length() );
+        }
+        finally
+        {
+            old.close();
+        }
+
+        download( artifact3, central );
+        assertTrue( find( manager, artifact2, central ).isAvailable() );
+        assertTrue( find( manager, artifact3, central ).isAvailable() );
+        File[] leftovers = basedir.listFiles();
+        for ( File leftover : leftovers )
+        {
+            assertFalse( leftover.getName(), leftover.getName().endsWith( ".tmp" ) );
+        }
+    }
+
+}
@@ -12,8 +12,8 @@ package org.eclipse.aether.internal.impl;
 
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.impl.AbstractUpdateCheckManager;
 import org.eclipse.aether.impl.UpdateCheck;
-import org.eclipse.aether.impl.UpdateCheckManager;
 import org.eclipse.aether.metadata.Metadata;
 import org.eclipse.aether.transfer.ArtifactNotFoundException;
 import org.eclipse.aether.transfer.ArtifactTransferException;
@@ -21,7 +21,7 @@ import org.eclipse.aether.transfer.MetadataNotFoundException;
 import org.eclipse.aether.transfer.MetadataTransferException;
 
 class StaticUpdateCheckManager
-    implements UpdateCheckManager
+    extends AbstractUpdateCheckManager
 {
 
     private boolean checkRequired;
@@ -103,6 +103,83 @@ public class TrackingFileManagerTest
         }
     }
 
+    @Test
+    public void testReadCachedWhileSizeAndTimestampMatch()
+        throws Exception
+    {
+        TrackingFileManager tfm = new TrackingFileManager();
+
+        File propFile = TestFileUtils.createTempFile( "key=value1" );
+        long timestamp = System.currentTimeMillis() - 60 * 1000;
+        assertTrue( propFile.setLastModified( timestamp ) );
+
+        Properties props = tfm.read( propFile );
+        assertEquals( "value1", props.get( "key" ) );
+        props.setProperty( "key", "modified" );
+
+        TestFileUtils.writeString( propFile, "key=value2" );
+        assertTrue( propFile.setLastModified( timestamp ) );
+        assertEquals( "value1", tfm.read( propFile ).get( "key" ) );
+
+        assertTrue( propFile.setLastModified( timestamp - 60 * 1000 ) );
+        assertEquals( "value2", tfm.read( propFile ).get( "key" ) );
+
+        TestFileUtils.writeString( propFile, "key=value03" );
+        assertTrue( propFile.setLastModified( timestamp - 60 * 1000 ) );
+        assertEquals( "value03", tfm.read( propFile ).get( "key" ) );
+    }
+
+    @Test
+    public void testConcurrentUpdates()
+        throws Exception
+    {
+        final TrackingFileManager tfm = new TrackingFileManager();
+
+        final File propFile = TestFileUtils.createTempFile( "" );
+
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+
+        Thread[] threads = new Thread[8];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            final String prefix = "t" + i + ".";
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for ( int i = 0; i < 50; i++ )
+                        {
+                            Properties props = tfm.update( propFile, Collections.singletonMap( prefix + i, "v" ) );
+                            assertEquals( "v", props.get( prefix + i ) );
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        errors.add( e );
+                    }
+                }
+            };
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.start();
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertEquals( Collections.emptyList(), errors );
+
+        assertTrue( propFile.setLastModified( System.currentTimeMillis() - 60 * 1000 ) );
+        Properties props = tfm.read( propFile );
+        assertEquals( String.valueOf( props ), threads.length * 50, props.size() );
+    }
+
     @Test
     public void testLockingOnCanonicalPath()
         throws Exception
@@ -156,4 +233,126 @@ public class TrackingFileManagerTest
         assertEquals( Collections.emptyList(), errors );
     }
 
+    @Test
+    public void testConcurrentUpdatesOfManyFiles()
+        throws Exception
+    {
+        final TrackingFileManager tfm = new TrackingFileManager();
+
+        // NOTE: More files than lock stripes, such that threads contend for stripes shared by different files
+        final File[] files = new File[256];
+        for ( int i = 0; i < files.length; i++ )
+        {
+            files[i] = TestFileUtils.createTempFile( "" );
+        }
+
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+
+        Thread[] threads = new Thread[8];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            final String prefix = "t" + i + ".";
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for ( int i = 0; i < 4; i++ )
+                        {
+                            for ( File file : files )
+                            {
+                                Properties props = tfm.update( file, Collections.singletonMap( prefix + i, "v" ) );
+                                assertEquals( "v", props.get( prefix + i ) );
+                                assertNotNull( tfm.read( file ) );
+                            }
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        errors.add( e );
+                    }
+                }
+            };
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.start();
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertEquals( Collections.emptyList(), errors );
+
+        for ( File file : files )
+        {
+            assertTrue( file.setLastModified( System.currentTimeMillis() - 60 * 1000 ) );
+            Properties props = tfm.read( file );
+            assertEquals( String.valueOf( props ), threads.length * 4, props.size() );
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdatesViaDifferentPaths()
+        throws Exception
+    {
+        final TrackingFileManager tfm = new TrackingFileManager();
+
+        final File propFile = TestFileUtils.createTempFile( "" );
+
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<Throwable>() );
+
+        Thread[] threads = new Thread[4];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            String path = propFile.getParent();
+            for ( int j = 0; j < i; j++ )
+            {
+                path += "/.";
+            }
+            path += "/" + propFile.getName();
+            final File file = new File( path );
+            final String prefix = "t" + i + ".";
+
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for ( int i = 0; i < 50; i++ )
+                        {
+                            Properties props = tfm.update( file, Collections.singletonMap( prefix + i, "v" ) );
+                            assertEquals( "v", props.get( prefix + i ) );
+                        }
+                    }
+                    catch ( Throwable e )
+                    {
+                        errors.add( e );
+                    }
+                }
+            };
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.start();
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertEquals( Collections.emptyList(), errors );
+
+        assertTrue( propFile.setLastModified( System.currentTimeMillis() - 60 * 1000 ) );
+        Properties props = tfm.read( propFile );
+        assertEquals( String.valueOf( props ), threads.length * 50, props.size() );
+    }
+
 }
@@ -11,12 +11,17 @@
 package org.eclipse.aether.spi.connector.transport;
 
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.eclipse.aether.spi.io.BufferPool;
 import org.eclipse.aether.transfer.TransferCancelledException;
 
 /**
@@ -26,6 +31,8 @@ public abstract class AbstractTransporter
     implements Transporter
 {
 
+    private static final long CHANNEL_CHUNK_SIZE = 1024 * 1024;
+
     private final AtomicBoolean closed;
 
     /**
@@ -93,7 +100,7 @@ public abstract class AbstractTransporter
             OutputStream os = task.newOutputStream( resume );
             try
             {
-                copy( os, is, task.getListener() );
+                copy( os, is, task.getListener(), length );
                 os.close();
             }
             finally
@@ -110,6 +117,50 @@ public abstract class AbstractTransporter
         }
     }
 
+    /**
+     * Performs file-based I/O for the specified download task and notifies the configured transport listener. If the
+     * task stores its data in a file, the bytes are transferred directly between the file channels which allows the
+     * operating system to avoid copying them through the Java heap. Progress is reported in coarse chunks via
+     * {@link TransportListener#transportProgressed(long, long)} unless the listener requires the actual data (see
+     * {@link TransportListener#isDataRequired()}), the data is then copied through a pooled heap buffer whose read-only
+     * view is handed to the listener. Subclasses might want to invoke this utility method from within their
+     * {@link #implGet(GetTask)} if the resource is available as a local file.
+     * 
+     * @param task The download to perform, must not be {@code null}.
+     * @param file The local file to download the data from, must not be {@code null}.
+     * @throws IOException If the transfer encountered an I/O error.
+     * @throws TransferCancelledException If the transfer was cancelled.
+     */
+    protected void utilGet( GetTask task, File file )
+        throws IOException, TransferCancelledException
+    {
+        if ( task.getDataFile() == null )
+        {
+            utilGet( task, new FileInputStream( file ), true, file.length(), false );
+            return;
+        }
+        FileInputStream is = new FileInputStream( file );
+        try
+        {
+            FileChannel src = is.getChannel();
+            task.getListener().transportStarted( 0, src.size() );
+            FileOutputStream os = new FileOutputStream( task.getDataFile() );
+            try
+            {
+                copy( os.getChannel(), src, task.getListener() );
+                os.close();
+            }
+            finally
+            {
+                close( os );
+            }
+        }
+        finally
+        {
+            close( is );
+        }
+    }
+
     public void put( PutTask task )
         throws Exception
     {
@@ -147,7 +198,7 @@ public abstract class AbstractTransporter
             InputStream is = task.newInputStream();
             try
             {
-                copy( os, is, task.getListener() );
+                copy( os, is, task.getListener(), task.getDataLength() );
             }
             finally
             {
@@ -171,6 +222,47 @@ public abstract class AbstractTransporter
         }
     }
 
+    /**
+     * Performs file-based I/O for the specified upload task and notifies the configured transport listener. If the
+     * task provides its data from a file, the bytes are transferred directly between the file channels, see
+     * {@link #utilGet(GetTask, File)} for details. Subclasses might want to invoke this utility method from within
+     * their {@link #implPut(PutTask)} if the resource is to be stored as a local file.
+     * 
+     * @param task The upload to perform, must not be {@code null}.
+     * @param file The local file to upload the data to, must not be {@code null}. This file will be overwritten.
+     * @throws IOException If the transfer encountered an I/O error.
+     * @throws TransferCancelledException If the transfer was cancelled.
+     */
+    protected void utilPut( PutTask task, File file )
+        throws IOException, TransferCancelledException
+    {
+        if ( task.getDataFile() == null )
+        {
+            utilPut( task, new FileOutputStream( file ), true );
+            return;
+        }
+        FileOutputStream os = new FileOutputStream( file );
+        try
+        {
+            FileInputStream is = new FileInputStream( task.getDataFile() );
+            try
+            {
+                FileChannel src = is.getChannel();
+                task.getListener().transportStarted( 0, src.size() );
+                copy( os.getChannel(), src, task.getListener() );
+            }
+            finally
+            {
+                close( is );
+            }
+            os.close();
+        }
+        finally
+        {
+            close( os );
+        }
+    }
+
     public void close()
     {
         if ( closed.compareAndSet( false, true ) )
@@ -192,17 +284,77 @@ public abstract class AbstractTransporter
         }
     }
 
-    private static void copy( OutputStream os, InputStream is, TransportListener listener )
+    private static void copy( OutputStream os, InputStream is, TransportListener listener, long length )
+        throws IOException, TransferCancelledException
+    {
+        ByteBuffer buffer = BufferPool.acquire( length );
+        try
+        {
+            byte[] array = buffer.array();
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            for ( int read = is.read( array ); read >= 0; read = is.read( array ) )
+            {
+                os.write( array, 0, read );
+                view.clear();
+                view.limit( read );
+                listener.transportProgressed( view );
+            }
+        }
+        finally
+        {
+            BufferPool.release( buffer );
+        }
+    }
+
+    private static void copy( FileChannel dst, FileChannel src, TransportListener listener )
         throws IOException, TransferCancelledException
     {
-        ByteBuffer buffer = ByteBuffer.allocate( 1024 * 32 );
-        byte[] array = buffer.array();
-        for ( int read = is.read( array ); read >= 0; read = is.read( array ) )
-        {
-            os.write( array, 0, read );
-            buffer.rewind();
-            buffer.limit( read );
-            listener.transportProgressed( buffer );
+        long length = src.size();
+        if ( !listener.isDataRequired() )
+        {
+            for ( long pos = 0; pos < length; )
+            {
+                long count = src.transferTo( pos, Math.min( CHANNEL_CHUNK_SIZE, length - pos ), dst );
+                if ( count <= 0 )
+                {
+                    throw new IOException( "Failed to transfer data at offset " + pos + " of " + length + " bytes" );
+                }
+                listener.transportProgressed( pos, count );
+                pos += count;
+            }
+            return;
+        }
+
+        /*
+         * NOTE: The listener needs to see the data, so read it once into a pooled heap buffer. Mapping the source
+         * instead would pin the file (and lock it on Windows) until the mapped buffers get garbage collected.
+         */
+        ByteBuffer buffer = BufferPool.acquire( length );
+        try
+        {
+            ByteBuffer view = buffer.asReadOnlyBuffer();
+            for ( long pos = 0; pos < length; )
+            {
+                buffer.clear();
+                int read = src.read( buffer, pos );
+                if ( read <= 0 )
+                {
+                    throw new IOException( "Failed to transfer data at offset " + pos + " of " + length + " bytes" );
+                }
+                buffer.flip();
+                while ( buffer.hasRemaining() )
+                {
+                    dst.write( buffer );
+                }
+                view.clear();
+                view.limit( read );
+                listener.transportProgressed( view );
+                pos += read;
+            }
+        }
+        finally
+        {
+            BufferPool.release( buffer );
         }
     }
 
@@ -38,6 +38,10 @@ public final class GetTask
 
     private Map<String, String> checksums;
 
+    private Map<String, String> validators;
+
+    private boolean notModified;
+
     /**
      * Creates a new task for the specified remote resource.
      * 
@@ -46,6 +50,7 @@ public final class GetTask
     public GetTask( URI location )
     {
         checksums = Collections.emptyMap();
+        validators = Collections.emptyMap();
         setLocation( location );
     }
 
@@ -248,6 +253,65 @@ public final class GetTask
         return this;
     }
 
+    /**
+     * Gets the validators which identify the version of the resource. Prior to the transfer, these are the validators
+     * of a copy the caller already has and a transporter may use them to perform a conditional download, see
+     * {@link #isNotModified()}. After the transfer, these are the validators the remote repository reported for the
+     * resource, to be passed into a future download of the same resource. The keys and values are opaque to the caller
+     * and specific to the transporter (e.g. HTTP entity tags). <em>Note:</em> A transporter must ignore the validators
+     * when resuming a download.
+     * 
+     * @return The (read-only) validators of the resource, possibly empty but never {@code null}.
+     */
+    public Map<String, String> getValidators()
+    {
+        return validators;
+    }
+
+    /**
+     * Sets the validators which identify the version of the resource.
+     * 
+     * @param validators The validators of the resource, may be {@code null}.
+     * @return This task for chaining, never {@code null}.
+     * @see #getValidators()
+     */
+    public GetTask setValidators( Map<String, String> validators )
+    {
+        if ( validators == null || validators.isEmpty() )
+        {
+            this.validators = Collections.emptyMap();
+        }
+        else
+        {
+            this.validators = Collections.unmodifiableMap( new HashMap<String, String>( validators ) );
+        }
+        return this;
+    }
+
+    /**
+     * Indicates whether the transporter skipped the download because the remote resource still matches the validators
+     * given prior to the transfer. In this case, no data has been written and the caller's copy is still current.
+     * 
+     * @return {@code true} if the resource was not modified and hence not downloaded, {@code false} otherwise.
+     */
+    public boolean isNotModified()
+    {
+        return notModified;
+    }
+
+    /**
+     * Marks the resource as not modified. Transporters call this method when their conditional download of the
+     * resource indicated that the copy identified by {@link #getValidators()} is still current.
+     * 
+     * @param notModified {@code true} if the resource was not modified, {@code false} otherwise.
+     * @return This task for chaining, never {@code null}.
+     */
+    public GetTask setNotModified( boolean notModified )
+    {
+        this.notModified = notModified;
+        return this;
+    }
+
     @Override
     public String toString()
     {
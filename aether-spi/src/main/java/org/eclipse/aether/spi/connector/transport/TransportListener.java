@@ -52,6 +52,8 @@ public abstract class TransportListener
      * bytes have been transferred since the last event, for instance to enable cancellation.
      * 
      * @param data The (read-only) buffer holding the bytes that have just been tranferred, must not be {@code null}.
+     *            The buffer is only valid during this call, its backing storage is reused afterwards so listeners
+     *            must copy any data they want to keep.
      * @throws TransferCancelledException If the transfer should be aborted.
      */
     public void transportProgressed( ByteBuffer data )
@@ -59,4 +61,31 @@ public abstract class TransportListener
     {
     }
 
+    /**
+     * Notifies the listener about some progress in a data transfer that copied the bytes without passing them through
+     * the Java heap, e.g. between two local files. This event is only fired instead of
+     * {@link #transportProgressed(ByteBuffer)} if the listener does not require the data, see {@link #isDataRequired()}.
+     * 
+     * @param dataOffset The byte offset in the resource at which the transferred bytes start, must not be negative.
+     * @param dataLength The number of bytes that have just been transferred, must not be negative.
+     * @throws TransferCancelledException If the transfer should be aborted.
+     */
+    public void transportProgressed( long dataOffset, long dataLength )
+        throws TransferCancelledException
+    {
+    }
+
+    /**
+     * Indicates whether this listener needs to see the transferred bytes. Transporters are free to copy the data
+     * without loading it into the Java heap for listeners that only track the progress and then report it via
+     * {@link #transportProgressed(long, long)}. The default implementation requires the data.
+     * 
+     * @return {@code true} if the data must be handed to {@link #transportProgressed(ByteBuffer)}, {@code false} if
+     *         offset and length of the transferred bytes suffice.
+     */
+    public boolean isDataRequired()
+    {
+        return true;
+    }
+
 }
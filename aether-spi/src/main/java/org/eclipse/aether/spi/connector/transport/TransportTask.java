@@ -22,6 +22,11 @@ public abstract class TransportTask
 
     static final TransportListener NOOP = new TransportListener()
     {
+        @Override
+        public boolean isDataRequired()
+        {
+            return false;
+        }
     };
 
     static final byte[] EMPTY = {};
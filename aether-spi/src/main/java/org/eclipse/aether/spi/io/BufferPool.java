@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.spi.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A shared and bounded pool of byte buffers for the copy loops of transporters and file processors. The buffer size
+ * adapts to the expected amount of data, i.e. large transfers get larger buffers and hence fewer (listener) calls per
+ * byte. The buffers are backed by arrays since the data is mostly exchanged with streams, for which direct buffers
+ * would only add another copy.
+ * <p>
+ * Buffers handed out by this pool must be {@link #release(ByteBuffer) released} exactly once and must not be used
+ * afterwards. Consequently, listeners that are fed with (views of) pooled buffers must not retain them beyond the
+ * notification but copy the data they need.
+ */
+public final class BufferPool
+{
+
+    /**
+     * The size in bytes of the buffers used for small or unknown amounts of data.
+     */
+    public static final int SMALL_BUFFER_SIZE = 32 * 1024;
+
+    /**
+     * The size in bytes of the buffers used for large amounts of data.
+     */
+    public static final int LARGE_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * The amount of data in bytes from which on large buffers are used.
+     */
+    public static final long LARGE_THRESHOLD = 4 * 1024 * 1024;
+
+    private static final Pool SMALL = new Pool( SMALL_BUFFER_SIZE, 64 );
+
+    private static final Pool LARGE = new Pool( LARGE_BUFFER_SIZE, 8 );
+
+    private BufferPool()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Acquires a buffer for the specified amount of data.
+     * 
+     * @param size The expected number of bytes to process or {@code -1} if unknown.
+     * @return The cleared buffer, never {@code null}.
+     */
+    public static ByteBuffer acquire( long size )
+    {
+        return ( ( size >= LARGE_THRESHOLD ) ? LARGE : SMALL ).acquire();
+    }
+
+    /**
+     * Returns the specified buffer to the pool.
+     * 
+     * @param buffer The buffer to release, may be {@code null}.
+     */
+    public static void release( ByteBuffer buffer )
+    {
+        if ( buffer == null )
+        {
+            return;
+        }
+        if ( buffer.capacity() == LARGE_BUFFER_SIZE )
+        {
+            LARGE.release( buffer );
+        }
+        else if ( buffer.capacity() == SMALL_BUFFER_SIZE )
+        {
+            SMALL.release( buffer );
+        }
+    }
+
+    private static final class Pool
+    {
+
+        private final int bufferSize;
+
+        private final int maxBuffers;
+
+        private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        Pool( int bufferSize, int maxBuffers )
+        {
+            this.bufferSize = bufferSize;
+            this.maxBuffers = maxBuffers;
+        }
+
+        ByteBuffer acquire()
+        {
+            ByteBuffer buffer = buffers.poll();
+            if ( buffer == null )
+            {
+                return ByteBuffer.allocate( bufferSize );
+            }
+            count.decrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+
+        void release( ByteBuffer buffer )
+        {
+            if ( buffer.isReadOnly() || !buffer.hasArray() )
+            {
+                return;
+            }
+            if ( count.incrementAndGet() > maxBuffers )
+            {
+                count.decrementAndGet();
+                return;
+            }
+            buffers.offer( buffer );
+        }
+
+    }
+
+}
@@ -15,6 +15,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
+import org.eclipse.aether.RepositorySystemSession;
+
 /**
  * A utility component to perform file-based operations.
  */
@@ -90,6 +92,16 @@ public interface FileProcessor
     long copy( File source, File target, ProgressListener listener )
         throws IOException;
 
+    /**
+     * Gets a file processor that applies the configuration of the specified session (e.g. whether written files are
+     * synced to the storage device) to its operations.
+     * 
+     * @param session The repository session whose configuration to apply, must not be {@code null}.
+     * @return The file processor to use for the session, never {@code null}. This may be the current instance if the
+     *         session does not call for different settings.
+     */
+    FileProcessor forSession( RepositorySystemSession session );
+
     /**
      * A listener object that is notified for every progress made while copying files.
      * 
@@ -98,6 +110,14 @@ public interface FileProcessor
     public interface ProgressListener
     {
 
+        /**
+         * Notifies the listener about some progress in the copy operation.
+         * 
+         * @param buffer The (read-only) buffer holding the bytes that have just been copied, must not be {@code null}.
+         *            The buffer is only valid during this call, its backing storage is reused afterwards so listeners
+         *            must copy any data they want to keep.
+         * @throws IOException If the listener wants to abort the copy operation.
+         */
         void progressed( ByteBuffer buffer )
             throws IOException;
 
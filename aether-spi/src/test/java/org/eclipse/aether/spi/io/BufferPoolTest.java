@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.spi.io;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class BufferPoolTest
+{
+
+    @Test
+    public void testAcquire_SizeAdaptsToExpectedData()
+    {
+        ByteBuffer buffer = BufferPool.acquire( -1 );
+        assertEquals( BufferPool.SMALL_BUFFER_SIZE, buffer.capacity() );
+        assertTrue( buffer.hasArray() );
+        BufferPool.release( buffer );
+
+        buffer = BufferPool.acquire( 100 );
+        assertEquals( BufferPool.SMALL_BUFFER_SIZE, buffer.capacity() );
+        BufferPool.release( buffer );
+
+        buffer = BufferPool.acquire( BufferPool.LARGE_THRESHOLD );
+        assertEquals( BufferPool.LARGE_BUFFER_SIZE, buffer.capacity() );
+        BufferPool.release( buffer );
+    }
+
+    @Test
+    public void testRelease_BufferIsReusedAndCleared()
+    {
+        ByteBuffer buffer = BufferPool.acquire( -1 );
+        buffer.position( 10 ).limit( 20 );
+        BufferPool.release( buffer );
+
+        ByteBuffer reused = BufferPool.acquire( -1 );
+        try
+        {
+            assertSame( buffer, reused );
+            assertEquals( 0, reused.position() );
+            assertEquals( reused.capacity(), reused.limit() );
+        }
+        finally
+        {
+            BufferPool.release( reused );
+        }
+    }
+
+    @Test
+    public void testRelease_ForeignBuffersAreIgnored()
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( BufferPool.SMALL_BUFFER_SIZE ).asReadOnlyBuffer();
+        BufferPool.release( buffer );
+        BufferPool.release( ByteBuffer.allocate( 123 ) );
+        BufferPool.release( null );
+
+        ByteBuffer acquired = BufferPool.acquire( -1 );
+        try
+        {
+            assertNotSame( buffer, acquired );
+            assertFalse( acquired.isReadOnly() );
+        }
+        finally
+        {
+            BufferPool.release( acquired );
+        }
+    }
+
+}
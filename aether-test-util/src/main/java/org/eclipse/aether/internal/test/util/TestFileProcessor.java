@@ -20,6 +20,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.spi.io.FileProcessor;
 
 /**
@@ -207,4 +208,9 @@ public class TestFileProcessor
         }
     }
 
+    public FileProcessor forSession( RepositorySystemSession session )
+    {
+        return this;
+    }
+
 }
@@ -11,8 +11,6 @@
 package org.eclipse.aether.transport.file;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
@@ -71,7 +69,7 @@ final class FileTransporter
         throws Exception
     {
         File file = getFile( task, true );
-        utilGet( task, new FileInputStream( file ), true, file.length(), false );
+        utilGet( task, file );
     }
 
     @Override
@@ -82,7 +80,7 @@ final class FileTransporter
         file.getParentFile().mkdirs();
         try
         {
-            utilPut( task, new FileOutputStream( file ), true );
+            utilPut( task, file );
         }
         catch ( Exception e )
         {
@@ -163,6 +163,43 @@ public class FileTransporterTest
         assertEquals( "test", listener.baos.toString( "UTF-8" ) );
     }
 
+    @Test
+    public void testGet_LargeFile()
+        throws Exception
+    {
+        File remote = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( remote, "0123456789".getBytes( "UTF-8" ), 300000 );
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "large.bin" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), TestFileUtils.readBytes( file ) );
+        assertEquals( 0, listener.dataOffset );
+        assertEquals( 3000000, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertTrue( "Count: " + listener.progressedCount, listener.progressedCount > 1 );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), listener.baos.toByteArray() );
+    }
+
+    @Test
+    public void testGet_LargeFileWithoutData()
+        throws Exception
+    {
+        File remote = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( remote, "0123456789".getBytes( "UTF-8" ), 300000 );
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        listener.dataRequired = false;
+        GetTask task = new GetTask( URI.create( "large.bin" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), TestFileUtils.readBytes( file ) );
+        assertEquals( 3000000, listener.dataLength );
+        assertEquals( 1, listener.startedCount );
+        assertTrue( "Count: " + listener.progressedCount, listener.progressedCount > 1 );
+        assertEquals( 3000000, listener.progressedBytes );
+        assertEquals( 0, listener.baos.size() );
+    }
+
     @Test
     public void testGet_EmptyResource()
         throws Exception
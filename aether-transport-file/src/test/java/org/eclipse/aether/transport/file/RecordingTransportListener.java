@@ -30,6 +30,10 @@ class RecordingTransportListener
 
     public int progressedCount;
 
+    public long progressedBytes;
+
+    public boolean dataRequired = true;
+
     public boolean cancelStart;
 
     public boolean cancelProgress;
@@ -40,6 +44,7 @@ class RecordingTransportListener
     {
         startedCount++;
         progressedCount = 0;
+        progressedBytes = 0;
         this.dataLength = dataLength;
         this.dataOffset = dataOffset;
         baos.reset();
@@ -54,11 +59,32 @@ class RecordingTransportListener
         throws TransferCancelledException
     {
         progressedCount++;
-        baos.write( data.array(), data.arrayOffset() + data.position(), data.remaining() );
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get( bytes );
+        baos.write( bytes, 0, bytes.length );
+        progressedBytes += bytes.length;
+        if ( cancelProgress )
+        {
+            throw new TransferCancelledException();
+        }
+    }
+
+    @Override
+    public void transportProgressed( long dataOffset, long dataLength )
+        throws TransferCancelledException
+    {
+        progressedCount++;
+        progressedBytes += dataLength;
         if ( cancelProgress )
         {
             throw new TransferCancelledException();
         }
     }
 
+    @Override
+    public boolean isDataRequired()
+    {
+        return dataRequired;
+    }
+
 }
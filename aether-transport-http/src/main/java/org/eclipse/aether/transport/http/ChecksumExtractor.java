@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.transport.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.eclipse.aether.util.ChecksumUtils;
+
+/**
+ * Extracts the checksums of a downloaded resource from the headers of the response, saving the connector the requests
+ * for the external checksum files. Each repository manager has its own flavor of such headers, hence the transporter
+ * consults a chain of extractors where the first extractor that delivers a checksum for an algorithm wins.
+ */
+abstract class ChecksumExtractor
+{
+
+    /**
+     * The names of the extractors enabled by default, in order of preference.
+     */
+    static final String DEFAULT_NAMES = "nexus,x-checksum,x-goog-hash,content-md5,digest";
+
+    private static final String BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    private final String name;
+
+    ChecksumExtractor( String name )
+    {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name by which this extractor is enabled via the configuration.
+     * 
+     * @return The name of the extractor, never {@code null}.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Extracts the checksums from the specified response.
+     * 
+     * @param response The response to the GET request, must not be {@code null}.
+     * @param checksums The map to add the checksums (as hex strings) to, keyed by algorithm name like "SHA-1". Existing
+     *            entries must not be overwritten.
+     */
+    public abstract void extract( HttpResponse response, Map<String, String> checksums );
+
+    /**
+     * Looks up the extractors for the specified names.
+     * 
+     * @param names The comma-separated names of the extractors, in order of preference, may be {@code null}.
+     * @return The extractors, never {@code null}.
+     */
+    public static List<ChecksumExtractor> forNames( String names )
+    {
+        List<ChecksumExtractor> extractors = new ArrayList<ChecksumExtractor>();
+        if ( names != null )
+        {
+            for ( String name : names.split( "," ) )
+            {
+                ChecksumExtractor extractor = forName( name.trim() );
+                if ( extractor != null && !extractors.contains( extractor ) )
+                {
+                    extractors.add( extractor );
+                }
+            }
+        }
+        return extractors;
+    }
+
+    private static ChecksumExtractor forName( String name )
+    {
+        for ( ChecksumExtractor extractor : ALL )
+        {
+            if ( extractor.getName().equalsIgnoreCase( name ) )
+            {
+                return extractor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extracts the checksums from the response using the specified chain of extractors.
+     * 
+     * @param extractors The extractors to consult, must not be {@code null}.
+     * @param response The response to the GET request, must not be {@code null}.
+     * @return The extracted checksums, never {@code null}.
+     */
+    public static Map<String, String> extract( List<ChecksumExtractor> extractors, HttpResponse response )
+    {
+        if ( extractors.isEmpty() )
+        {
+            return Collections.emptyMap();
+        }
+        Map<String, String> checksums = new LinkedHashMap<String, String>();
+        for ( ChecksumExtractor extractor : extractors )
+        {
+            extractor.extract( response, checksums );
+        }
+        return checksums;
+    }
+
+    static void put( Map<String, String> checksums, String algo, String hex )
+    {
+        if ( hex == null || hex.length() <= 0 || checksums.containsKey( algo ) )
+        {
+            return;
+        }
+        for ( int i = hex.length() - 1; i >= 0; i-- )
+        {
+            if ( Character.digit( hex.charAt( i ), 16 ) < 0 )
+            {
+                return;
+            }
+        }
+        checksums.put( algo, hex.toLowerCase( Locale.ENGLISH ) );
+    }
+
+    static void putBase64( Map<String, String> checksums, String algo, String base64 )
+    {
+        byte[] bytes = decodeBase64( base64 );
+        if ( bytes != null )
+        {
+            put( checksums, algo, ChecksumUtils.toHexString( bytes ) );
+        }
+    }
+
+    /**
+     * Headers that describe the bytes of the response body rather than the resource itself are only usable if the body
+     * carries the complete resource without any content coding applied.
+     */
+    static boolean isCompleteIdentityBody( HttpResponse response )
+    {
+        if ( response.getStatusLine().getStatusCode() != HttpStatus.SC_OK )
+        {
+            return false;
+        }
+        Header encoding = response.getFirstHeader( HttpHeaders.CONTENT_ENCODING );
+        return encoding == null || "identity".equalsIgnoreCase( encoding.getValue().trim() );
+    }
+
+    static byte[] decodeBase64( String base64 )
+    {
+        if ( base64 == null )
+        {
+            return null;
+        }
+        String chars = base64.trim();
+        int pad = 0;
+        while ( pad < chars.length() && chars.charAt( chars.length() - 1 - pad ) == '=' )
+        {
+            pad++;
+        }
+        if ( chars.length() <= 0 || chars.length() % 4 != 0 || pad > 2 )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[chars.length() / 4 * 3 - pad];
+        int bits = 0, count = 0, pos = 0;
+        for ( int i = 0; i < chars.length() - pad; i++ )
+        {
+            int value = BASE64.indexOf( chars.charAt( i ) );
+            if ( value < 0 )
+            {
+                return null;
+            }
+            bits = ( bits << 6 ) | value;
+            count += 6;
+            if ( count >= 8 )
+            {
+                count -= 8;
+                bytes[pos++] = (byte) ( bits >> count );
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Nexus-style, {@code ETag: "{SHA1{d40d68ba1f88d8e9b0040f175a6ff41928abd5e7}}"}.
+     */
+    static final ChecksumExtractor NEXUS = new ChecksumExtractor( "nexus" )
+    {
+        @Override
+        public void extract( HttpResponse response, Map<String, String> checksums )
+        {
+            Header header = response.getFirstHeader( HttpHeaders.ETAG );
+            if ( header != null )
+            {
+                String etag = header.getValue();
+                int start = etag.indexOf( "SHA1{" ), end = etag.indexOf( "}", start + 5 );
+                if ( start >= 0 && end > start )
+                {
+                    put( checksums, "SHA-1", etag.substring( start + 5, end ) );
+                }
+            }
+        }
+    };
+
+    /**
+     * Artifactory-style, {@code X-Checksum-Sha1: d40d68ba1f88d8e9b0040f175a6ff41928abd5e7} and likewise for MD5 and
+     * SHA-256.
+     */
+    static final ChecksumExtractor X_CHECKSUM = new ChecksumExtractor( "x-checksum" )
+    {
+        @Override
+        public void extract( HttpResponse response, Map<String, String> checksums )
+        {
+            put( checksums, "SHA-1", getValue( response, "X-Checksum-Sha1" ) );
+            put( checksums, "MD5", getValue( response, "X-Checksum-Md5" ) );
+            put( checksums, "SHA-256", getValue( response, "X-Checksum-Sha256" ) );
+        }
+    };
+
+    /**
+     * Google Cloud Storage-style, {@code x-goog-hash: crc32c=n03x6A==, md5=Ojk9c3dhfxgoKVVHYwFbHQ==}. The hashes
+     * describe the stored object, which only matches the body of complete responses without transcoding (e.g. of
+     * objects stored gzip-compressed), so they are ignored otherwise.
+     */
+    static final ChecksumExtractor X_GOOG_HASH = new ChecksumExtractor( "x-goog-hash" )
+    {
+        @Override
+        public void extract( HttpResponse response, Map<String, String> checksums )
+        {
+            if ( !isCompleteIdentityBody( response ) )
+            {
+                return;
+            }
+            for ( Header header : response.getHeaders( "x-goog-hash" ) )
+            {
+                for ( HeaderElement element : header.getElements() )
+                {
+                    if ( "md5".equalsIgnoreCase( element.getName() ) )
+                    {
+                        putBase64( checksums, "MD5", element.getValue() );
+                    }
+                }
+            }
+        }
+    };
+
+    /**
+     * Plain HTTP/1.1 (RFC 2616) and S3-compatible stores, {@code Content-MD5: Ojk9c3dhfxgoKVVHYwFbHQ==}. The digest
+     * covers the entity body as transferred, so it is ignored for partial or encoded responses.
+     */
+    static final ChecksumExtractor CONTENT_MD5 = new ChecksumExtractor( "content-md5" )
+    {
+        @Override
+        public void extract( HttpResponse response, Map<String, String> checksums )
+        {
+            if ( isCompleteIdentityBody( response ) )
+            {
+                putBase64( checksums, "MD5", getValue( response, "Content-MD5" ) );
+            }
+        }
+    };
+
+    /**
+     * Instance digests (RFC 3230), {@code Digest: SHA=1B2M2Y8AsgTpgAmY7PhCfg==, MD5=...}. The digest covers the
+     * instance including any content coding, so it is ignored for encoded responses.
+     */
+    static final ChecksumExtractor DIGEST = new ChecksumExtractor( "digest" )
+    {
+        @Override
+        public void extract( HttpResponse response, Map<String, String> checksums )
+        {
+            Header encoding = response.getFirstHeader( HttpHeaders.CONTENT_ENCODING );
+            if ( encoding != null && !"identity".equalsIgnoreCase( encoding.getValue().trim() ) )
+            {
+                return;
+            }
+            for ( Header header : response.getHeaders( "Digest" ) )
+            {
+                for ( String digest : header.getValue().split( "," ) )
+                {
+                    int eq = digest.indexOf( '=' );
+                    if ( eq <= 0 )
+                    {
+                        continue;
+                    }
+                    String algo = digest.substring( 0, eq ).trim().toUpperCase( Locale.ENGLISH );
+                    String value = digest.substring( eq + 1 ).trim();
+                    if ( "SHA".equals( algo ) )
+                    {
+                        putBase64( checksums, "SHA-1", value );
+                    }
+                    else if ( "MD5".equals( algo ) || "SHA-256".equals( algo ) || "SHA-512".equals( algo ) )
+                    {
+                        putBase64( checksums, algo, value );
+                    }
+                }
+            }
+        }
+    };
+
+    private static final ChecksumExtractor[] ALL = { NEXUS, X_CHECKSUM, X_GOOG_HASH, CONTENT_MD5, DIGEST };
+
+    static String getValue( HttpResponse response, String name )
+    {
+        Header header = response.getFirstHeader( name );
+        return ( header != null ) ? header.getValue().trim() : null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+
+}
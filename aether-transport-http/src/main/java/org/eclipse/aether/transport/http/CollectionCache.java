@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.transport.http;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the WebDAV collections known to exist on a server. The paths are stored as a trie of path segments, so
+ * knowing a collection implies knowing all of its parent collections without storing them separately. To bound the
+ * memory consumption, the cache is simply reset once it would exceed its capacity.
+ */
+final class CollectionCache
+{
+
+    private static final class Node
+    {
+
+        Map<String, Node> children;
+
+        Node getChild( String segment, boolean create )
+        {
+            Node child = ( children != null ) ? children.get( segment ) : null;
+            if ( child == null && create )
+            {
+                if ( children == null )
+                {
+                    children = new HashMap<String, Node>( 4 );
+                }
+                child = new Node();
+                children.put( segment, child );
+            }
+            return child;
+        }
+
+    }
+
+    private final int maxNodes;
+
+    private Node root;
+
+    private int nodes;
+
+    public CollectionCache( int maxNodes )
+    {
+        this.maxNodes = maxNodes;
+        root = new Node();
+    }
+
+    /**
+     * Determines whether the specified collection is known to exist.
+     * 
+     * @param path The raw (i.e. still encoded) absolute path of the collection, may be {@code null}.
+     * @return {@code true} if the collection or one of its sub collections has been added before, {@code false}
+     *         otherwise.
+     */
+    public synchronized boolean contains( String path )
+    {
+        Node node = root;
+        for ( String segment : split( path ) )
+        {
+            node = node.getChild( segment, false );
+            if ( node == null )
+            {
+                return false;
+            }
+        }
+        return node != root;
+    }
+
+    /**
+     * Records the specified collection (and thereby all of its parent collections) as existing.
+     * 
+     * @param path The raw (i.e. still encoded) absolute path of the collection, may be {@code null}.
+     */
+    public synchronized void add( String path )
+    {
+        String[] segments = split( path );
+        int missing = segments.length;
+        for ( Node node = root; missing > 0; missing-- )
+        {
+            node = node.getChild( segments[segments.length - missing], false );
+            if ( node == null )
+            {
+                break;
+            }
+        }
+        if ( nodes + missing > maxNodes )
+        {
+            clear();
+        }
+        Node node = root;
+        for ( String segment : segments )
+        {
+            Node child = node.getChild( segment, false );
+            if ( child == null )
+            {
+                child = node.getChild( segment, true );
+                nodes++;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Forgets all known collections.
+     * 
+     * @return {@code true} if the cache was not empty, {@code false} otherwise.
+     */
+    public synchronized boolean clear()
+    {
+        boolean cleared = nodes > 0;
+        root = new Node();
+        nodes = 0;
+        return cleared;
+    }
+
+    private static String[] split( String path )
+    {
+        if ( path == null )
+        {
+            return new String[0];
+        }
+        int start = 0;
+        int end = path.length();
+        while ( start < end && path.charAt( start ) == '/' )
+        {
+            start++;
+        }
+        while ( end > start && path.charAt( end - 1 ) == '/' )
+        {
+            end--;
+        }
+        if ( start >= end )
+        {
+            return new String[0];
+        }
+        return path.substring( start, end ).split( "/+" );
+    }
+
+}
@@ -18,11 +18,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.http.HttpHost;
-import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.eclipse.aether.RepositoryCache;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.util.ConfigUtils;
@@ -79,7 +77,11 @@ final class GlobalState
 
     private static final String CONFIG_PROP_CACHE_STATE = "aether.connector.http.cacheState";
 
-    private final ConcurrentMap<SslConfig, ClientConnectionManager> connectionManagers;
+    private static final String CONFIG_PROP_CONNECTION_MAX_IDLE = "aether.connector.http.connectionMaxIdle";
+
+    private static final String CONFIG_PROP_CONNECTION_MAX_TTL = "aether.connector.http.connectionMaxTtl";
+
+    private final ConcurrentMap<SslConfig, MeteredConnectionManager> connectionManagers;
 
     private final ConcurrentMap<CompoundKey, Object> userTokens;
 
@@ -87,6 +89,10 @@ final class GlobalState
 
     private final ConcurrentMap<CompoundKey, Boolean> expectContinues;
 
+    private final ConcurrentMap<CompoundKey, Boolean> webDavs;
+
+    private final ConcurrentMap<CompoundKey, CollectionCache> collections;
+
     public static GlobalState get( RepositorySystemSession session )
     {
         GlobalState cache;
@@ -124,28 +130,30 @@ final class GlobalState
 
     private GlobalState()
     {
-        connectionManagers = new ConcurrentHashMap<SslConfig, ClientConnectionManager>();
+        connectionManagers = new ConcurrentHashMap<SslConfig, MeteredConnectionManager>();
         userTokens = new ConcurrentHashMap<CompoundKey, Object>();
         authSchemePools = new ConcurrentHashMap<HttpHost, AuthSchemePool>();
         expectContinues = new ConcurrentHashMap<CompoundKey, Boolean>();
+        webDavs = new ConcurrentHashMap<CompoundKey, Boolean>();
+        collections = new ConcurrentHashMap<CompoundKey, CollectionCache>();
     }
 
     public void close()
     {
-        for ( Iterator<Map.Entry<SslConfig, ClientConnectionManager>> it = connectionManagers.entrySet().iterator(); it.hasNext(); )
+        for ( Iterator<Map.Entry<SslConfig, MeteredConnectionManager>> it = connectionManagers.entrySet().iterator(); it.hasNext(); )
         {
-            ClientConnectionManager connMgr = it.next().getValue();
+            MeteredConnectionManager connMgr = it.next().getValue();
             it.remove();
             connMgr.shutdown();
         }
     }
 
-    public ClientConnectionManager getConnectionManager( SslConfig config )
+    public MeteredConnectionManager getConnectionManager( RepositorySystemSession session, SslConfig config )
     {
-        ClientConnectionManager manager = connectionManagers.get( config );
+        MeteredConnectionManager manager = connectionManagers.get( config );
         if ( manager == null )
         {
-            ClientConnectionManager connMgr = newConnectionManager( config );
+            MeteredConnectionManager connMgr = newConnectionManager( session, config );
             manager = connectionManagers.putIfAbsent( config, connMgr );
             if ( manager != null )
             {
@@ -159,16 +167,15 @@ final class GlobalState
         return manager;
     }
 
-    public static ClientConnectionManager newConnectionManager( SslConfig sslConfig )
+    public static MeteredConnectionManager newConnectionManager( RepositorySystemSession session, SslConfig sslConfig )
     {
         SchemeRegistry schemeReg = new SchemeRegistry();
         schemeReg.register( new Scheme( "http", 80, new PlainSocketFactory() ) );
-        schemeReg.register( new Scheme( "https", 443, new SslSocketFactory( sslConfig ) ) );
+        schemeReg.register( new Scheme( "https", 443, SslSocketFactory.get( sslConfig ) ) );
 
-        PoolingClientConnectionManager connMgr = new PoolingClientConnectionManager( schemeReg );
-        connMgr.setMaxTotal( 100 );
-        connMgr.setDefaultMaxPerRoute( 50 );
-        return connMgr;
+        long maxIdle = ConfigUtils.getLong( session, 60 * 1000, CONFIG_PROP_CONNECTION_MAX_IDLE );
+        long maxTtl = ConfigUtils.getLong( session, 5 * 60 * 1000, CONFIG_PROP_CONNECTION_MAX_TTL );
+        return new MeteredConnectionManager( schemeReg, maxIdle, maxTtl );
     }
 
     public Object getUserToken( CompoundKey key )
@@ -203,4 +210,34 @@ final class GlobalState
         expectContinues.put( key, enabled );
     }
 
+    public Boolean getWebDav( CompoundKey key )
+    {
+        return webDavs.get( key );
+    }
+
+    public void setWebDav( CompoundKey key, boolean webDav )
+    {
+        webDavs.put( key, webDav );
+    }
+
+    public CollectionCache getCollections( CompoundKey key )
+    {
+        CollectionCache cache = collections.get( key );
+        if ( cache == null )
+        {
+            CollectionCache c = newCollectionCache();
+            cache = collections.putIfAbsent( key, c );
+            if ( cache == null )
+            {
+                cache = c;
+            }
+        }
+        return cache;
+    }
+
+    public static CollectionCache newCollectionCache()
+    {
+        return new CollectionCache( 4 * 1024 );
+    }
+
 }
@@ -10,18 +10,37 @@
  *******************************************************************************/
 package org.eclipse.aether.transport.http;
 
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -38,12 +57,12 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpOptions;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.AbortableHttpRequest;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.conn.params.ConnRouteParams;
 import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.impl.client.DecompressingHttpClient;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.cookie.DateUtils;
 import org.apache.http.params.HttpConnectionParams;
@@ -60,10 +79,12 @@ import org.eclipse.aether.spi.connector.transport.GetTask;
 import org.eclipse.aether.spi.connector.transport.PeekTask;
 import org.eclipse.aether.spi.connector.transport.PutTask;
 import org.eclipse.aether.spi.connector.transport.TransportTask;
+import org.eclipse.aether.spi.io.BufferPool;
 import org.eclipse.aether.spi.log.Logger;
 import org.eclipse.aether.transfer.NoTransporterException;
 import org.eclipse.aether.transfer.TransferCancelledException;
 import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
 
 /**
  * A transporter for HTTP/HTTPS.
@@ -72,6 +93,22 @@ final class HttpTransporter
     extends AbstractTransporter
 {
 
+    private static final String CONFIG_PROP_SEGMENTS = "aether.connector.http.segments";
+
+    private static final String CONFIG_PROP_SEGMENT_THRESHOLD = "aether.connector.http.segmentThreshold";
+
+    private static final String CONFIG_PROP_STALE_CHECK = "aether.connector.http.staleConnectionCheck";
+
+    private static final String CONFIG_PROP_CONNECTOR_THREADS = "aether.connector.basic.threads";
+
+    private static final String CONFIG_PROP_CONNECTOR_LIGHT_THREADS = "aether.connector.basic.lightThreads";
+
+    private static final String CONFIG_PROP_COMPRESSED_EXTENSIONS = "aether.connector.http.compressedExtensions";
+
+    private static final String DEFAULT_COMPRESSED_EXTENSIONS = "pom,xml,json,module,properties,txt";
+
+    private static final String CONFIG_PROP_CHECKSUM_EXTRACTORS = "aether.connector.http.checksumExtractors";
+
     private static final Pattern CONTENT_RANGE_PATTERN =
         Pattern.compile( "\\s*bytes\\s+([0-9]+)\\s*-\\s*([0-9]+)\\s*/.*" );
 
@@ -93,6 +130,16 @@ final class HttpTransporter
 
     private final LocalState state;
 
+    private final int segments;
+
+    private final long segmentThreshold;
+
+    private final Set<String> compressedExtensions;
+
+    private final List<ChecksumExtractor> checksumExtractors;
+
+    private ExecutorService segmentExecutor;
+
     public HttpTransporter( RemoteRepository repository, RepositorySystemSession session, Logger logger )
         throws NoTransporterException
     {
@@ -130,7 +177,34 @@ final class HttpTransporter
             ConfigUtils.getMap( session, Collections.emptyMap(), ConfigurationProperties.HTTP_HEADERS + "."
                 + repository.getId(), ConfigurationProperties.HTTP_HEADERS );
 
+        segments =
+            ConfigUtils.getInteger( session, 1, CONFIG_PROP_SEGMENTS + "." + repository.getId(), CONFIG_PROP_SEGMENTS );
+        segmentThreshold =
+            ConfigUtils.getLong( session, 16 * 1024 * 1024, CONFIG_PROP_SEGMENT_THRESHOLD + "." + repository.getId(),
+                                 CONFIG_PROP_SEGMENT_THRESHOLD );
+
+        String extensions =
+            ConfigUtils.getString( session, DEFAULT_COMPRESSED_EXTENSIONS, CONFIG_PROP_COMPRESSED_EXTENSIONS + "."
+                + repository.getId(), CONFIG_PROP_COMPRESSED_EXTENSIONS );
+        compressedExtensions = new HashSet<String>();
+        for ( String extension : extensions.split( "," ) )
+        {
+            extension = extension.trim().toLowerCase( Locale.ENGLISH );
+            if ( extension.length() > 0 )
+            {
+                compressedExtensions.add( extension );
+            }
+        }
+
+        String extractors =
+            ConfigUtils.getString( session, ChecksumExtractor.DEFAULT_NAMES, CONFIG_PROP_CHECKSUM_EXTRACTORS + "."
+                + repository.getId(), CONFIG_PROP_CHECKSUM_EXTRACTORS );
+        checksumExtractors = ChecksumExtractor.forNames( extractors );
+
+        state.getConnectionManager().ensureCapacity( getConnectionsPerRoute( session, repository ) );
+
         DefaultHttpClient client = new DefaultHttpClient( state.getConnectionManager() );
+        client.setKeepAliveStrategy( state.getConnectionManager().getKeepAliveStrategy() );
 
         configureClient( client.getParams(), session, repository, proxy );
 
@@ -142,7 +216,24 @@ final class HttpTransporter
         }
         client.setCredentialsProvider( credsProvider );
 
-        this.client = new DecompressingHttpClient( client );
+        this.client = client;
+    }
+
+    /*
+     * NOTE: Unless explicitly configured, the pool grows to the number of requests the basic connector may have in
+     * flight, i.e. its download threads plus its light-weight threads (cf. BasicRepositoryConnector), such that
+     * raising those does not leave threads waiting for a connection.
+     */
+    private static int getConnectionsPerRoute( RepositorySystemSession session, RemoteRepository repository )
+    {
+        int threads = ConfigUtils.getInteger( session, 5, CONFIG_PROP_CONNECTOR_THREADS, "maven.artifact.threads" );
+        int lightThreads =
+            ConfigUtils.getInteger( session, ( threads > 1 ) ? threads * 4 : 1, CONFIG_PROP_CONNECTOR_LIGHT_THREADS
+                + "." + repository.getId(), CONFIG_PROP_CONNECTOR_LIGHT_THREADS );
+        int connections = Math.max( ConfigurationProperties.DEFAULT_CONNECTIONS_PER_ROUTE, threads + lightThreads );
+        return ConfigUtils.getInteger( session, connections,
+                                       ConfigurationProperties.CONNECTIONS_PER_ROUTE + "." + repository.getId(),
+                                       ConfigurationProperties.CONNECTIONS_PER_ROUTE );
     }
 
     private static HttpHost toHost( Proxy proxy )
@@ -180,6 +271,16 @@ final class HttpTransporter
         HttpProtocolParams.setUserAgent( params, ConfigUtils.getString( session,
                                                                         ConfigurationProperties.DEFAULT_USER_AGENT,
                                                                         ConfigurationProperties.USER_AGENT ) );
+        /*
+         * NOTE: The stale connection check costs a blocking read on every reuse of a pooled connection which dominates
+         * the latency of small requests, so it is off unless configured otherwise. The idle connection reaper closes
+         * pooled connections before they are likely to be dropped by the server, and requests without payload are
+         * idempotent and get retried by the client's default retry handler when they still hit a connection closed by
+         * the server (i.e. fail with a NoHttpResponseException). Uploads keep the check regardless, see entity().
+         */
+        HttpConnectionParams.setStaleCheckingEnabled( params,
+                                                      ConfigUtils.getBoolean( session, false, CONFIG_PROP_STALE_CHECK
+                                                          + "." + repository.getId(), CONFIG_PROP_STALE_CHECK ) );
     }
 
     private static void addCredentials( DeferredCredentialsProvider provider, String host, int port,
@@ -230,15 +331,25 @@ final class HttpTransporter
         EntityGetter getter = new EntityGetter( task );
         HttpGet request = commonHeaders( new HttpGet( resolve( task ) ) );
         resume( request, task );
+        conditional( request, task );
+        acceptEncoding( request, task );
         try
         {
             execute( request, getter );
         }
+        catch ( RangeNotHonoredException e )
+        {
+            logger.debug( "Segmented download of " + request.getURI() + " failed, falling back to single stream: "
+                + e.getMessage() );
+            state.setSegmentedDownloads( false );
+            request = acceptEncoding( commonHeaders( new HttpGet( request.getURI() ) ), task );
+            execute( request, getter );
+        }
         catch ( HttpResponseException e )
         {
             if ( e.getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED && request.containsHeader( HttpHeaders.RANGE ) )
             {
-                request = commonHeaders( new HttpGet( request.getURI() ) );
+                request = acceptEncoding( commonHeaders( new HttpGet( request.getURI() ) ), task );
                 execute( request, getter );
                 return;
             }
@@ -265,6 +376,14 @@ final class HttpTransporter
                 execute( request, null );
                 return;
             }
+            if ( e.getStatusCode() == HttpStatus.SC_CONFLICT && Boolean.TRUE.equals( state.getWebDav() )
+                && state.getCollections().clear() )
+            {
+                // some collection we deemed existing has been deleted meanwhile, retry with a fresh cache
+                request = commonHeaders( entity( new HttpPut( request.getURI() ), entity ) );
+                execute( request, null );
+                return;
+            }
             throw e;
         }
     }
@@ -280,10 +399,13 @@ final class HttpTransporter
             try
             {
                 context.close();
-                handleStatus( response );
-                if ( getter != null )
+                if ( getter == null || !getter.isNotModified( request, response ) )
                 {
-                    getter.handle( response );
+                    handleStatus( response );
+                    if ( getter != null )
+                    {
+                        getter.handle( request, response );
+                    }
                 }
             }
             finally
@@ -332,8 +454,18 @@ final class HttpTransporter
     private void mkdirs( URI uri, SharingHttpContext context )
     {
         List<URI> dirs = UriUtils.getDirectories( baseUri, uri );
+        CollectionCache collections = state.getCollections();
+        int known = 0;
+        while ( known < dirs.size() && !collections.contains( dirs.get( known ).getRawPath() ) )
+        {
+            known++;
+        }
+        if ( known <= 0 )
+        {
+            return;
+        }
         int index = 0;
-        for ( ; index < dirs.size(); index++ )
+        for ( ; index < known; index++ )
         {
             try
             {
@@ -344,6 +476,7 @@ final class HttpTransporter
                     int status = response.getStatusLine().getStatusCode();
                     if ( status < 300 || status == HttpStatus.SC_METHOD_NOT_ALLOWED )
                     {
+                        collections.add( dirs.get( index ).getRawPath() );
                         break;
                     }
                     else if ( status == HttpStatus.SC_CONFLICT )
@@ -384,11 +517,13 @@ final class HttpTransporter
                 return;
             }
         }
+        collections.add( dirs.get( 0 ).getRawPath() );
     }
 
     private <T extends HttpEntityEnclosingRequest> T entity( T request, HttpEntity entity )
     {
         request.setEntity( entity );
+        HttpConnectionParams.setStaleCheckingEnabled( request.getParams(), true );
         return request;
     }
 
@@ -449,6 +584,75 @@ final class HttpTransporter
         return request;
     }
 
+    private <T extends HttpUriRequest> T conditional( T request, GetTask task )
+    {
+        if ( task.getResumeOffset() <= 0 )
+        {
+            String etag = task.getValidators().get( HttpHeaders.ETAG );
+            if ( etag != null )
+            {
+                request.setHeader( HttpHeaders.IF_NONE_MATCH, etag );
+            }
+            String lastModified = task.getValidators().get( HttpHeaders.LAST_MODIFIED );
+            if ( lastModified != null )
+            {
+                request.setHeader( HttpHeaders.IF_MODIFIED_SINCE, lastModified );
+            }
+        }
+        return request;
+    }
+
+    private <T extends HttpUriRequest> T acceptEncoding( T request, GetTask task )
+    {
+        if ( !request.containsHeader( HttpHeaders.ACCEPT_ENCODING ) )
+        {
+            request.setHeader( HttpHeaders.ACCEPT_ENCODING, isCompressible( task ) ? "gzip" : "identity" );
+        }
+        return request;
+    }
+
+    private boolean isCompressible( GetTask task )
+    {
+        if ( compressedExtensions.contains( "*" ) )
+        {
+            return true;
+        }
+        String path = task.getLocation().getPath();
+        if ( path == null )
+        {
+            return false;
+        }
+        int dot = path.lastIndexOf( '.' );
+        if ( dot < 0 || dot < path.lastIndexOf( '/' ) )
+        {
+            return false;
+        }
+        return compressedExtensions.contains( path.substring( dot + 1 ).toLowerCase( Locale.ENGLISH ) );
+    }
+
+    private static boolean isIdentity( String encoding )
+    {
+        return encoding == null || encoding.length() <= 0 || "identity".equalsIgnoreCase( encoding );
+    }
+
+    private static InputStream decode( InputStream is, String encoding )
+        throws IOException
+    {
+        if ( isIdentity( encoding ) )
+        {
+            return is;
+        }
+        if ( "gzip".equalsIgnoreCase( encoding ) || "x-gzip".equalsIgnoreCase( encoding ) )
+        {
+            return new GZIPInputStream( is, 8 * 1024 );
+        }
+        if ( "deflate".equalsIgnoreCase( encoding ) )
+        {
+            return new InflaterInputStream( is );
+        }
+        throw new IOException( "Unsupported content encoding " + encoding );
+    }
+
     private void handleStatus( HttpResponse response )
         throws HttpResponseException
     {
@@ -459,11 +663,66 @@ final class HttpTransporter
         }
     }
 
+    private boolean isSegmentable( GetTask task, HttpResponse response, long length )
+    {
+        return segments > 1 && length >= segmentThreshold && length >= segments && task.getDataFile() != null
+            && response.getStatusLine().getStatusCode() == HttpStatus.SC_OK
+            && !Boolean.FALSE.equals( state.getSegmentedDownloads() )
+            && isIdentity( getHeader( response, HttpHeaders.CONTENT_ENCODING ) )
+            && "bytes".equalsIgnoreCase( getHeader( response, HttpHeaders.ACCEPT_RANGES ) )
+            && getHeader( response, HttpHeaders.LAST_MODIFIED ) != null;
+    }
+
+    private synchronized ExecutorService getSegmentExecutor()
+    {
+        if ( segmentExecutor == null )
+        {
+            // the first segment of each download is read by the calling thread
+            int threads = Math.max( 1, segments - 1 );
+            segmentExecutor =
+                new ThreadPoolExecutor( threads, threads, 3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                        new WorkerThreadFactory( getClass().getSimpleName() + "-Segment-"
+                                            + server.getHostName() + '-' ) );
+        }
+        return segmentExecutor;
+    }
+
+    private static String getHeader( HttpResponse response, String name )
+    {
+        Header header = response.getFirstHeader( name );
+        return ( header != null ) ? header.getValue() : null;
+    }
+
+    private static void abort( HttpUriRequest request )
+    {
+        if ( request instanceof AbortableHttpRequest )
+        {
+            ( (AbortableHttpRequest) request ).abort();
+        }
+    }
+
     @Override
     protected void implClose()
     {
+        synchronized ( this )
+        {
+            if ( segmentExecutor != null )
+            {
+                segmentExecutor.shutdown();
+            }
+        }
         AuthenticationContext.close( repoAuthContext );
         AuthenticationContext.close( proxyAuthContext );
+        if ( state.getStats().getDownloads() > 0 )
+        {
+            logger.debug( "Transfer statistics for " + baseUri + ": " + state.getStats() );
+            logger.debug( "Connection pool statistics for " + baseUri + ": " + state.getConnectionManager() );
+            SslSocketFactory sslSocketFactory = state.getConnectionManager().getSslSocketFactory();
+            if ( "https".equalsIgnoreCase( server.getSchemeName() ) && sslSocketFactory != null )
+            {
+                logger.debug( "TLS statistics for " + baseUri + ": " + sslSocketFactory );
+            }
+        }
         state.close();
     }
 
@@ -477,7 +736,22 @@ final class HttpTransporter
             this.task = task;
         }
 
-        public void handle( HttpResponse response )
+        public boolean isNotModified( HttpUriRequest request, HttpResponse response )
+        {
+            if ( response.getStatusLine().getStatusCode() != HttpStatus.SC_NOT_MODIFIED )
+            {
+                return false;
+            }
+            if ( !request.containsHeader( HttpHeaders.IF_NONE_MATCH )
+                && !request.containsHeader( HttpHeaders.IF_MODIFIED_SINCE ) )
+            {
+                return false;
+            }
+            task.setNotModified( true );
+            return true;
+        }
+
+        public void handle( HttpUriRequest request, HttpResponse response )
             throws IOException, TransferCancelledException
         {
             HttpEntity entity = response.getEntity();
@@ -504,29 +778,430 @@ final class HttpTransporter
                 }
             }
 
-            InputStream is = entity.getContent();
-            utilGet( task, is, true, length, offset > 0 );
+            if ( offset <= 0 && isSegmentable( task, response, length ) )
+            {
+                String lastModified = getHeader( response, HttpHeaders.LAST_MODIFIED );
+                new SegmentedGetter( task, request, length, lastModified ).get( entity.getContent() );
+                state.getStats().addDownload( length, length );
+            }
+            else
+            {
+                String encoding = getHeader( response, HttpHeaders.CONTENT_ENCODING );
+                if ( !isIdentity( encoding ) )
+                {
+                    // length of encoded entity does not tell length of resource
+                    length = -1;
+                }
+                CountingInputStream wire = new CountingInputStream( entity.getContent() );
+                CountingInputStream payload = new CountingInputStream( decode( wire, encoding ) );
+                utilGet( task, payload, true, length, offset > 0 );
+                state.getStats().addDownload( wire.count, payload.count );
+            }
             extractChecksums( response );
+            extractValidators( response );
         }
 
-        private void extractChecksums( HttpResponse response )
+        private void extractValidators( HttpResponse response )
         {
-            // Nexus-style, ETag: "{SHA1{d40d68ba1f88d8e9b0040f175a6ff41928abd5e7}}"
+            Map<String, String> validators = new HashMap<String, String>();
             String etag = getHeader( response, HttpHeaders.ETAG );
             if ( etag != null )
             {
-                int start = etag.indexOf( "SHA1{" ), end = etag.indexOf( "}", start + 5 );
-                if ( start >= 0 && end > start )
+                validators.put( HttpHeaders.ETAG, etag );
+            }
+            String lastModified = getHeader( response, HttpHeaders.LAST_MODIFIED );
+            if ( lastModified != null )
+            {
+                validators.put( HttpHeaders.LAST_MODIFIED, lastModified );
+            }
+            task.setValidators( validators );
+        }
+
+        private void extractChecksums( HttpResponse response )
+        {
+            Map<String, String> checksums = ChecksumExtractor.extract( checksumExtractors, response );
+            for ( Map.Entry<String, String> entry : checksums.entrySet() )
+            {
+                task.setChecksum( entry.getKey(), entry.getValue() );
+            }
+        }
+
+    }
+
+    /**
+     * Downloads a large resource using several concurrent byte range requests. The first segment is read from the
+     * response of the initial request, the remaining segments are fetched in parallel and written into the
+     * preallocated data file. The transport listener is fed with the segments in order such that checksums can be
+     * calculated as usual. On failure, the data file is truncated to the bytes delivered to the listener so that a
+     * later resume starts from consistent contents.
+     */
+    private class SegmentedGetter
+    {
+
+        private final GetTask task;
+
+        private final HttpUriRequest request;
+
+        private final long length;
+
+        private final String lastModified;
+
+        private long delivered;
+
+        public SegmentedGetter( GetTask task, HttpUriRequest request, long length, String lastModified )
+        {
+            this.task = task;
+            this.request = request;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public void get( InputStream is )
+            throws IOException, TransferCancelledException
+        {
+            File file = task.getDataFile();
+            long size = ( length + segments - 1 ) / segments;
+            List<Segment> workers = new ArrayList<Segment>();
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            boolean done = false;
+            RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+            try
+            {
+                raf.setLength( length );
+                FileChannel channel = raf.getChannel();
+                task.getListener().transportStarted( 0, length );
+
+                ExecutorService executor = getSegmentExecutor();
+                for ( long start = size; start < length; start += size )
+                {
+                    Segment segment = new Segment( channel, start, Math.min( start + size, length ) );
+                    workers.add( segment );
+                    futures.add( executor.submit( segment ) );
+                }
+
+                copy( is, channel, size );
+                abort( request );
+
+                for ( int i = 0; i < workers.size(); i++ )
+                {
+                    await( futures.get( i ) );
+                    Segment segment = workers.get( i );
+                    replay( channel, segment.start, segment.end );
+                }
+                done = true;
+            }
+            finally
+            {
+                if ( !done )
+                {
+                    abort( request );
+                    for ( Segment segment : workers )
+                    {
+                        segment.cancel();
+                    }
+                    for ( Future<?> future : futures )
+                    {
+                        try
+                        {
+                            future.get();
+                        }
+                        catch ( Exception e )
+                        {
+                            // already handled or irrelevant
+                        }
+                    }
+                    try
+                    {
+                        raf.setLength( delivered );
+                    }
+                    catch ( IOException e )
+                    {
+                        logger.debug( "Failed to truncate " + file + " after segmented download", e );
+                    }
+                }
+                try
+                {
+                    raf.close();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant
+                }
+                try
+                {
+                    is.close();
+                }
+                catch ( IOException e )
+                {
+                    // irrelevant
+                }
+            }
+        }
+
+        private void copy( InputStream is, FileChannel channel, long end )
+            throws IOException, TransferCancelledException
+        {
+            ByteBuffer buffer = BufferPool.acquire( length );
+            try
+            {
+                byte[] array = buffer.array();
+                ByteBuffer view = buffer.asReadOnlyBuffer();
+                while ( delivered < end )
+                {
+                    int read = is.read( array, 0, (int) Math.min( array.length, end - delivered ) );
+                    if ( read < 0 )
+                    {
+                        throw new IOException( "Premature end of content for " + request.getURI() + " after "
+                            + delivered + " bytes" );
+                    }
+                    buffer.clear();
+                    buffer.limit( read );
+                    write( channel, buffer, delivered );
+                    delivered += read;
+                    view.clear();
+                    view.limit( read );
+                    task.getListener().transportProgressed( view );
+                }
+            }
+            finally
+            {
+                BufferPool.release( buffer );
+            }
+        }
+
+        private void replay( FileChannel channel, long start, long end )
+            throws IOException, TransferCancelledException
+        {
+            ByteBuffer buffer = BufferPool.acquire( length );
+            try
+            {
+                for ( long pos = start; pos < end; )
+                {
+                    buffer.clear();
+                    buffer.limit( (int) Math.min( buffer.capacity(), end - pos ) );
+                    int read = channel.read( buffer, pos );
+                    if ( read < 0 )
+                    {
+                        throw new IOException( "Unexpected end of file " + task.getDataFile() + " at offset " + pos );
+                    }
+                    buffer.flip();
+                    pos += read;
+                    delivered += read;
+                    task.getListener().transportProgressed( buffer.asReadOnlyBuffer() );
+                }
+            }
+            finally
+            {
+                BufferPool.release( buffer );
+            }
+        }
+
+        private void await( Future<?> future )
+            throws IOException
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( InterruptedException e )
+            {
+                throw (IOException) new InterruptedIOException().initCause( e );
+            }
+            catch ( ExecutionException e )
+            {
+                Throwable cause = e.getCause();
+                if ( cause instanceof IOException )
+                {
+                    throw (IOException) cause;
+                }
+                if ( cause instanceof RuntimeException )
+                {
+                    throw (RuntimeException) cause;
+                }
+                if ( cause instanceof Error )
                 {
-                    task.setChecksum( "SHA-1", etag.substring( start + 5, end ) );
+                    throw (Error) cause;
                 }
+                throw (IOException) new IOException( cause.getMessage() ).initCause( cause );
             }
         }
 
-        private String getHeader( HttpResponse response, String name )
+        private class Segment
+            implements Callable<Object>
+        {
+
+            final FileChannel channel;
+
+            final long start;
+
+            final long end;
+
+            private volatile HttpGet segmentRequest;
+
+            private volatile boolean cancelled;
+
+            public Segment( FileChannel channel, long start, long end )
+            {
+                this.channel = channel;
+                this.start = start;
+                this.end = end;
+            }
+
+            public void cancel()
+            {
+                cancelled = true;
+                HttpGet req = segmentRequest;
+                if ( req != null )
+                {
+                    req.abort();
+                }
+            }
+
+            public Object call()
+                throws Exception
+            {
+                HttpGet req = commonHeaders( new HttpGet( request.getURI() ) );
+                req.setHeader( HttpHeaders.RANGE, "bytes=" + start + '-' + ( end - 1 ) );
+                req.setHeader( HttpHeaders.IF_UNMODIFIED_SINCE, lastModified );
+                req.setHeader( HttpHeaders.ACCEPT_ENCODING, "identity" );
+                segmentRequest = req;
+                if ( cancelled )
+                {
+                    throw new InterruptedIOException( "Segmented download cancelled" );
+                }
+                SharingHttpContext context = new SharingHttpContext( state );
+                HttpResponse response = client.execute( server, req, context );
+                try
+                {
+                    context.close();
+                    int status = response.getStatusLine().getStatusCode();
+                    if ( status != HttpStatus.SC_PARTIAL_CONTENT )
+                    {
+                        req.abort();
+                        if ( status < 300 || status == HttpStatus.SC_PRECONDITION_FAILED
+                            || status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE )
+                        {
+                            throw new RangeNotHonoredException( "Unexpected status " + status + " for bytes " + start
+                                + "-" + ( end - 1 ) );
+                        }
+                        handleStatus( response );
+                    }
+                    String range = getHeader( response, HttpHeaders.CONTENT_RANGE );
+                    Matcher m = ( range != null ) ? CONTENT_RANGE_PATTERN.matcher( range ) : null;
+                    if ( m == null || !m.matches() || Long.parseLong( m.group( 1 ) ) != start
+                        || Long.parseLong( m.group( 2 ) ) != end - 1 )
+                    {
+                        req.abort();
+                        throw new RangeNotHonoredException( "Invalid Content-Range header for bytes " + start + "-"
+                            + ( end - 1 ) + ": " + range );
+                    }
+                    HttpEntity entity = response.getEntity();
+                    InputStream is = ( entity != null ) ? entity.getContent() : null;
+                    ByteBuffer buffer = BufferPool.acquire( end - start );
+                    try
+                    {
+                        byte[] array = buffer.array();
+                        for ( long pos = start; pos < end; )
+                        {
+                            int read =
+                                ( is != null ) ? is.read( array, 0, (int) Math.min( array.length, end - pos ) ) : -1;
+                            if ( read < 0 )
+                            {
+                                throw new IOException( "Premature end of content for bytes " + start + "-"
+                                    + ( end - 1 ) + " of " + request.getURI() );
+                            }
+                            buffer.clear();
+                            buffer.limit( read );
+                            write( channel, buffer, pos );
+                            pos += read;
+                        }
+                    }
+                    finally
+                    {
+                        BufferPool.release( buffer );
+                    }
+                }
+                finally
+                {
+                    EntityUtils.consumeQuietly( response.getEntity() );
+                }
+                return null;
+            }
+
+        }
+
+    }
+
+    /**
+     * Counts the bytes read from the underlying stream.
+     */
+    private static class CountingInputStream
+        extends FilterInputStream
+    {
+
+        long count;
+
+        public CountingInputStream( InputStream in )
+        {
+            super( in );
+        }
+
+        @Override
+        public int read()
+            throws IOException
+        {
+            int b = super.read();
+            if ( b >= 0 )
+            {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len )
+            throws IOException
+        {
+            int n = super.read( b, off, len );
+            if ( n > 0 )
+            {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip( long n )
+            throws IOException
+        {
+            long skipped = super.skip( n );
+            count += skipped;
+            return skipped;
+        }
+
+    }
+
+    private static void write( FileChannel channel, ByteBuffer buffer, long position )
+        throws IOException
+    {
+        for ( long pos = position; buffer.hasRemaining(); )
+        {
+            pos += channel.write( buffer, pos );
+        }
+    }
+
+    /**
+     * Signals that the server did not answer a byte range request of a segmented download as expected.
+     */
+    private static class RangeNotHonoredException
+        extends IOException
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        public RangeNotHonoredException( String message )
         {
-            Header header = response.getFirstHeader( name );
-            return ( header != null ) ? header.getValue() : null;
+            super( message );
         }
 
     }
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.transport.http;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.aether.util.concurrency.WorkerThreadFactory;
+
+/**
+ * Periodically evicts idle and expired connections from the registered connection managers. A single daemon thread
+ * serves all managers and terminates once the last manager has been shut down. The managers are only weakly referenced
+ * such that a manager which was abandoned without shutdown (e.g. along with the repository cache holding it) can still
+ * be garbage collected.
+ */
+final class IdleConnectionReaper
+    implements Runnable
+{
+
+    private static final long MAX_INTERVAL = 5 * 1000;
+
+    private static final long MIN_INTERVAL = 100;
+
+    private static final Map<MeteredConnectionManager, Boolean> managers =
+        new WeakHashMap<MeteredConnectionManager, Boolean>();
+
+    private static Thread thread;
+
+    private static boolean registered;
+
+    private IdleConnectionReaper()
+    {
+        // hide constructor
+    }
+
+    public static synchronized void register( MeteredConnectionManager manager )
+    {
+        managers.put( manager, Boolean.TRUE );
+        registered = true;
+        if ( thread == null )
+        {
+            thread = new WorkerThreadFactory( IdleConnectionReaper.class.getSimpleName() + '-' )
+                .newThread( new IdleConnectionReaper() );
+            thread.start();
+        }
+        else
+        {
+            // the new manager might need a shorter interval than the one currently waited for (or about to be)
+            IdleConnectionReaper.class.notifyAll();
+        }
+    }
+
+    public static synchronized void unregister( MeteredConnectionManager manager )
+    {
+        managers.remove( manager );
+    }
+
+    static synchronized int getManagerCount()
+    {
+        return managers.size();
+    }
+
+    private static synchronized MeteredConnectionManager[] getManagers()
+    {
+        registered = false;
+        if ( managers.isEmpty() )
+        {
+            thread = null;
+            return null;
+        }
+        return managers.keySet().toArray( new MeteredConnectionManager[managers.size()] );
+    }
+
+    public void run()
+    {
+        for ( long interval = reap(); interval > 0; interval = reap() )
+        {
+            try
+            {
+                synchronized ( IdleConnectionReaper.class )
+                {
+                    // a manager registered since the last reaping is not covered by the interval
+                    if ( !registered )
+                    {
+                        IdleConnectionReaper.class.wait( interval );
+                    }
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                synchronized ( IdleConnectionReaper.class )
+                {
+                    thread = null;
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reaps the registered managers, without holding on to them afterwards.
+     * 
+     * @return The time in milliseconds until the next reaping or {@code 0} if no managers are left.
+     */
+    private static long reap()
+    {
+        MeteredConnectionManager[] mgrs = getManagers();
+        if ( mgrs == null )
+        {
+            return 0;
+        }
+        long interval = MAX_INTERVAL;
+        for ( MeteredConnectionManager mgr : mgrs )
+        {
+            if ( mgr == null )
+            {
+                // cleared by the garbage collector while the keys were copied, leaving the tail of the array empty
+                continue;
+            }
+            try
+            {
+                mgr.reap();
+            }
+            catch ( RuntimeException e )
+            {
+                // manager concurrently shut down, irrelevant
+            }
+            if ( mgr.getMaxIdle() > 0 )
+            {
+                interval = Math.min( interval, Math.max( MIN_INTERVAL, mgr.getMaxIdle() / 2 ) );
+            }
+        }
+        return interval;
+    }
+
+}
@@ -16,7 +16,6 @@ import java.util.concurrent.ConcurrentMap;
 
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScheme;
-import org.apache.http.conn.ClientConnectionManager;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.transport.http.GlobalState.CompoundKey;
@@ -31,7 +30,7 @@ final class LocalState
 
     private final GlobalState global;
 
-    private final ClientConnectionManager connMgr;
+    private final MeteredConnectionManager connMgr;
 
     private final CompoundKey userTokenKey;
 
@@ -41,31 +40,44 @@ final class LocalState
 
     private volatile Boolean expectContinue;
 
+    private final CompoundKey webDavKey;
+
     private volatile Boolean webDav;
 
+    private final CollectionCache collections;
+
+    private volatile Boolean segmentedDownloads;
+
     private final ConcurrentMap<HttpHost, AuthSchemePool> authSchemePools;
 
+    private final TransferStats stats;
+
     public LocalState( RepositorySystemSession session, RemoteRepository repo, SslConfig sslConfig )
     {
         global = GlobalState.get( session );
         userToken = this;
+        stats = new TransferStats();
         if ( global == null )
         {
-            connMgr = GlobalState.newConnectionManager( sslConfig );
+            connMgr = GlobalState.newConnectionManager( session, sslConfig );
             userTokenKey = null;
             expectContinueKey = null;
+            webDavKey = null;
+            collections = GlobalState.newCollectionCache();
             authSchemePools = new ConcurrentHashMap<HttpHost, AuthSchemePool>();
         }
         else
         {
-            connMgr = global.getConnectionManager( sslConfig );
+            connMgr = global.getConnectionManager( session, sslConfig );
             userTokenKey = new CompoundKey( repo.getId(), repo.getUrl(), repo.getAuthentication(), repo.getProxy() );
             expectContinueKey = new CompoundKey( repo.getUrl(), repo.getProxy() );
+            webDavKey = new CompoundKey( repo.getUrl(), repo.getProxy() );
+            collections = global.getCollections( webDavKey );
             authSchemePools = global.getAuthSchemePools();
         }
     }
 
-    public ClientConnectionManager getConnectionManager()
+    public MeteredConnectionManager getConnectionManager()
     {
         return connMgr;
     }
@@ -109,12 +121,40 @@ final class LocalState
 
     public Boolean getWebDav()
     {
+        if ( webDav == null && global != null )
+        {
+            webDav = global.getWebDav( webDavKey );
+        }
         return webDav;
     }
 
     public void setWebDav( boolean webDav )
     {
         this.webDav = webDav;
+        if ( global != null )
+        {
+            global.setWebDav( webDavKey, webDav );
+        }
+    }
+
+    public CollectionCache getCollections()
+    {
+        return collections;
+    }
+
+    public Boolean getSegmentedDownloads()
+    {
+        return segmentedDownloads;
+    }
+
+    public void setSegmentedDownloads( boolean segmentedDownloads )
+    {
+        this.segmentedDownloads = segmentedDownloads;
+    }
+
+    public TransferStats getStats()
+    {
+        return stats;
     }
 
     public AuthScheme getAuthScheme( HttpHost host )
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.transport.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * A pooling connection manager that grows with the demand of the transporters using it, evicts connections that have
+ * been idle for too long and records how long requests had to wait for a connection.
+ */
+final class MeteredConnectionManager
+    extends PoolingClientConnectionManager
+{
+
+    private final long maxIdle;
+
+    private final AtomicLong leases = new AtomicLong();
+
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    private final ConnectionKeepAliveStrategy keepAliveStrategy = new DefaultConnectionKeepAliveStrategy()
+    {
+        @Override
+        public long getKeepAliveDuration( HttpResponse response, HttpContext context )
+        {
+            long duration = super.getKeepAliveDuration( response, context );
+            if ( maxIdle > 0 && ( duration <= 0 || duration > maxIdle ) )
+            {
+                duration = maxIdle;
+            }
+            return duration;
+        }
+    };
+
+    /**
+     * Creates a new connection manager.
+     * 
+     * @param schemeReg The scheme registry to use, must not be {@code null}.
+     * @param maxIdle The maximum time in milliseconds a connection may stay idle in the pool, non-positive to keep idle
+     *            connections until the server closes them.
+     * @param maxTtl The maximum time in milliseconds a connection may be reused since its creation, non-positive for
+     *            no limit.
+     */
+    public MeteredConnectionManager( SchemeRegistry schemeReg, long maxIdle, long maxTtl )
+    {
+        super( schemeReg, maxTtl, TimeUnit.MILLISECONDS );
+        this.maxIdle = maxIdle;
+        setMaxTotal( 100 );
+        setDefaultMaxPerRoute( 50 );
+        IdleConnectionReaper.register( this );
+    }
+
+    /**
+     * Raises the limits of the pool if necessary to serve the specified number of concurrent requests per route without
+     * blocking. The limits are never lowered since the pool may be shared with other transporters.
+     * 
+     * @param maxPerRoute The number of connections that should be available per route.
+     */
+    public synchronized void ensureCapacity( int maxPerRoute )
+    {
+        if ( getDefaultMaxPerRoute() < maxPerRoute )
+        {
+            setDefaultMaxPerRoute( maxPerRoute );
+        }
+        if ( getMaxTotal() < maxPerRoute * 2 )
+        {
+            setMaxTotal( maxPerRoute * 2 );
+        }
+    }
+
+    public ConnectionKeepAliveStrategy getKeepAliveStrategy()
+    {
+        return keepAliveStrategy;
+    }
+
+    /**
+     * Gets the factory used to create secure connections.
+     * 
+     * @return The socket factory for the HTTPS scheme or {@code null} if unknown.
+     */
+    public SslSocketFactory getSslSocketFactory()
+    {
+        Scheme scheme = getSchemeRegistry().get( "https" );
+        if ( scheme != null && scheme.getSchemeSocketFactory() instanceof SslSocketFactory )
+        {
+            return (SslSocketFactory) scheme.getSchemeSocketFactory();
+        }
+        return null;
+    }
+
+    public long getMaxIdle()
+    {
+        return maxIdle;
+    }
+
+    /**
+     * Closes expired connections and connections that have exceeded the maximum idle time.
+     */
+    public void reap()
+    {
+        closeExpiredConnections();
+        if ( maxIdle > 0 )
+        {
+            closeIdleConnections( maxIdle, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    @Override
+    public ClientConnectionRequest requestConnection( HttpRoute route, Object state )
+    {
+        final ClientConnectionRequest request = super.requestConnection( route, state );
+        return new ClientConnectionRequest()
+        {
+            public ManagedClientConnection getConnection( long timeout, TimeUnit tunit )
+                throws InterruptedException, ConnectionPoolTimeoutException
+            {
+                long start = System.nanoTime();
+                try
+                {
+                    return request.getConnection( timeout, tunit );
+                }
+                finally
+                {
+                    addLease( System.nanoTime() - start );
+                }
+            }
+
+            public void abortRequest()
+            {
+                request.abortRequest();
+            }
+        };
+    }
+
+    void addLease( long waitNanos )
+    {
+        leases.incrementAndGet();
+        leaseWaitNanos.addAndGet( waitNanos );
+        for ( long max = maxLeaseWaitNanos.get(); waitNanos > max; max = maxLeaseWaitNanos.get() )
+        {
+            if ( maxLeaseWaitNanos.compareAndSet( max, waitNanos ) )
+            {
+                break;
+            }
+        }
+    }
+
+    public long getLeases()
+    {
+        return leases.get();
+    }
+
+    /**
+     * Gets the total time requests have waited to lease a connection from the pool.
+     * 
+     * @return The total lease wait time in milliseconds.
+     */
+    public long getLeaseWaitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( leaseWaitNanos.get() );
+    }
+
+    /**
+     * Gets the longest time a single request has waited to lease a connection from the pool.
+     * 
+     * @return The maximum lease wait time in milliseconds.
+     */
+    public long getMaxLeaseWaitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( maxLeaseWaitNanos.get() );
+    }
+
+    @Override
+    public void shutdown()
+    {
+        IdleConnectionReaper.unregister( this );
+        super.shutdown();
+    }
+
+    @Override
+    public String toString()
+    {
+        PoolStats stats = getTotalStats();
+        return stats.getLeased() + " leased, " + stats.getAvailable() + " available, " + stats.getPending()
+            + " pending (max " + stats.getMax() + "), " + getLeases() + " leases waited " + getLeaseWaitTime()
+            + " ms in total and " + getMaxLeaseWaitTime() + " ms at most";
+    }
+
+}
@@ -29,6 +29,10 @@ final class SslConfig
 
     private static final String PROTOCOLS = "https.protocols";
 
+    private static final String CONFIG_PROP_SESSION_CACHE_SIZE = "aether.connector.https.sessionCacheSize";
+
+    private static final String CONFIG_PROP_SESSION_TIMEOUT = "aether.connector.https.sessionTimeout";
+
     final SSLContext context;
 
     final HostnameVerifier verifier;
@@ -37,6 +41,10 @@ final class SslConfig
 
     final String[] protocols;
 
+    final int sessionCacheSize;
+
+    final int sessionTimeout;
+
     public SslConfig( RepositorySystemSession session, AuthenticationContext authContext )
     {
         context =
@@ -47,6 +55,9 @@ final class SslConfig
 
         cipherSuites = split( get( session, CIPHER_SUITES ) );
         protocols = split( get( session, PROTOCOLS ) );
+
+        sessionCacheSize = ConfigUtils.getInteger( session, -1, CONFIG_PROP_SESSION_CACHE_SIZE );
+        sessionTimeout = ConfigUtils.getInteger( session, -1, CONFIG_PROP_SESSION_TIMEOUT );
     }
 
     private static String get( RepositorySystemSession session, String key )
@@ -81,7 +92,8 @@ final class SslConfig
         }
         SslConfig that = (SslConfig) obj;
         return eq( context, that.context ) && eq( verifier, that.verifier )
-            && Arrays.equals( cipherSuites, that.cipherSuites ) && Arrays.equals( protocols, that.protocols );
+            && Arrays.equals( cipherSuites, that.cipherSuites ) && Arrays.equals( protocols, that.protocols )
+            && sessionCacheSize == that.sessionCacheSize && sessionTimeout == that.sessionTimeout;
     }
 
     private static <T> boolean eq( T s1, T s2 )
@@ -97,6 +109,8 @@ final class SslConfig
         hash = hash * 31 + hash( verifier );
         hash = hash * 31 + Arrays.hashCode( cipherSuites );
         hash = hash * 31 + Arrays.hashCode( protocols );
+        hash = hash * 31 + sessionCacheSize;
+        hash = hash * 31 + sessionTimeout;
         return hash;
     }
 
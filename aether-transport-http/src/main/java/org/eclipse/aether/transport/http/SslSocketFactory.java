@@ -10,18 +10,37 @@
  *******************************************************************************/
 package org.eclipse.aether.transport.http;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.params.HttpParams;
 
 /**
  * Specialized SSL socket factory to more closely resemble the JRE's HttpsClient and respect well-known SSL-related
- * configuration properties.
+ * configuration properties. Instances are shared by all connection pools with equal configuration such that TLS
+ * sessions are resumed across transporters, and they count full versus resumed handshakes. The session cache settings
+ * are only applied to an SSL context created by this factory itself, never to the JVM-wide default context or to a
+ * context supplied by the client.
  * 
  * @see <a href="http://docs.oracle.com/javase/1.5.0/docs/guide/security/jsse/JSSERefGuide.html#Customization">JSSE
  *      Reference Guide, Customization</a>
@@ -30,19 +49,110 @@ final class SslSocketFactory
     extends org.apache.http.conn.ssl.SSLSocketFactory
 {
 
+    private static final int MAX_CACHED_FACTORIES = 16;
+
+    private static final Map<SslConfig, SslSocketFactory> factories =
+        new LinkedHashMap<SslConfig, SslSocketFactory>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<SslConfig, SslSocketFactory> eldest )
+            {
+                return size() > MAX_CACHED_FACTORIES;
+            }
+        };
+
     private final String[] cipherSuites;
 
     private final String[] protocols;
 
-    public SslSocketFactory( SslConfig config )
+    private final SSLSessionContext sessionContext;
+
+    private final AtomicLong fullHandshakes = new AtomicLong();
+
+    private final AtomicLong resumedHandshakes = new AtomicLong();
+
+    /**
+     * Gets the socket factory for the specified configuration, reusing a previously created instance if possible.
+     * 
+     * @param config The SSL configuration, must not be {@code null}.
+     * @return The socket factory, never {@code null}.
+     */
+    public static SslSocketFactory get( SslConfig config )
+    {
+        synchronized ( factories )
+        {
+            SslSocketFactory factory = factories.get( config );
+            if ( factory == null )
+            {
+                factory = new SslSocketFactory( config );
+                factories.put( config, factory );
+            }
+            return factory;
+        }
+    }
+
+    private SslSocketFactory( SslConfig config )
     {
-        this( getSocketFactory( config.context ), getHostnameVerifier( config.verifier ), config.cipherSuites,
-              config.protocols );
+        this( getContext( config ), getHostnameVerifier( config.verifier ), config );
+    }
+
+    private static SSLContext getContext( SslConfig config )
+    {
+        if ( config.context != null || ( config.sessionCacheSize < 0 && config.sessionTimeout < 0 ) )
+        {
+            return config.context;
+        }
+        try
+        {
+            SSLContext context = SSLContext.getInstance( "TLS" );
+            context.init( getDefaultKeyManagers(), null, null );
+            return context;
+        }
+        catch ( Exception e )
+        {
+            // fall back to the default context, leaving its session cache alone
+            return null;
+        }
     }
 
-    private static SSLSocketFactory getSocketFactory( SSLContext context )
+    /*
+     * NOTE: Java 5 offers no means to access the default SSL context so an own context is required to configure the
+     * session cache. The trust managers default to the JVM's ones, but key managers must be set up explicitly to respect
+     * the javax.net.ssl.keyStore* system properties just like the default context does.
+     */
+    private static KeyManager[] getDefaultKeyManagers()
+        throws GeneralSecurityException, IOException
     {
-        return ( context != null ) ? context.getSocketFactory() : (SSLSocketFactory) SSLSocketFactory.getDefault();
+        String path = System.getProperty( "javax.net.ssl.keyStore" );
+        if ( path == null || path.length() <= 0 )
+        {
+            return null;
+        }
+        String password = System.getProperty( "javax.net.ssl.keyStorePassword" );
+        char[] pwd = ( password != null ) ? password.toCharArray() : null;
+        KeyStore keyStore = KeyStore.getInstance( System.getProperty( "javax.net.ssl.keyStoreType",
+                                                                      KeyStore.getDefaultType() ) );
+        if ( "NONE".equals( path ) )
+        {
+            keyStore.load( null, pwd );
+        }
+        else
+        {
+            InputStream is = new FileInputStream( path );
+            try
+            {
+                keyStore.load( is, pwd );
+            }
+            finally
+            {
+                is.close();
+            }
+        }
+        KeyManagerFactory factory = KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
+        factory.init( keyStore, pwd );
+        return factory.getKeyManagers();
     }
 
     private static X509HostnameVerifier getHostnameVerifier( HostnameVerifier verifier )
@@ -51,13 +161,30 @@ final class SslSocketFactory
                         : org.apache.http.conn.ssl.SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER;
     }
 
-    private SslSocketFactory( SSLSocketFactory socketfactory, X509HostnameVerifier hostnameVerifier,
-                              String[] cipherSuites, String[] protocols )
+    private SslSocketFactory( SSLContext context, X509HostnameVerifier hostnameVerifier, SslConfig config )
     {
-        super( socketfactory, hostnameVerifier );
+        super( ( context != null ) ? context.getSocketFactory() : (SSLSocketFactory) SSLSocketFactory.getDefault(),
+               hostnameVerifier );
+
+        cipherSuites = config.cipherSuites;
+        protocols = config.protocols;
 
-        this.cipherSuites = cipherSuites;
-        this.protocols = protocols;
+        if ( context != null && context != config.context )
+        {
+            sessionContext = context.getClientSessionContext();
+            if ( config.sessionCacheSize >= 0 )
+            {
+                sessionContext.setSessionCacheSize( config.sessionCacheSize );
+            }
+            if ( config.sessionTimeout >= 0 )
+            {
+                sessionContext.setSessionTimeout( config.sessionTimeout );
+            }
+        }
+        else
+        {
+            sessionContext = null;
+        }
     }
 
     @Override
@@ -75,4 +202,74 @@ final class SslSocketFactory
         }
     }
 
+    @Override
+    public Socket connectSocket( Socket socket, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                 HttpParams params )
+        throws IOException, UnknownHostException, ConnectTimeoutException
+    {
+        long start = System.currentTimeMillis();
+        Socket sock = super.connectSocket( socket, remoteAddress, localAddress, params );
+        handshakeCompleted( sock, start );
+        return sock;
+    }
+
+    @Override
+    public Socket createLayeredSocket( Socket socket, String target, int port, HttpParams params )
+        throws IOException, UnknownHostException
+    {
+        long start = System.currentTimeMillis();
+        Socket sock = super.createLayeredSocket( socket, target, port, params );
+        handshakeCompleted( sock, start );
+        return sock;
+    }
+
+    private void handshakeCompleted( Socket socket, long start )
+    {
+        if ( !( socket instanceof SSLSocket ) )
+        {
+            return;
+        }
+        SSLSession session = ( (SSLSocket) socket ).getSession();
+        if ( session == null || !session.isValid() )
+        {
+            return;
+        }
+        // a resumed session retains the creation time of the session it was originally negotiated in
+        if ( session.getCreationTime() < start )
+        {
+            resumedHandshakes.incrementAndGet();
+        }
+        else
+        {
+            fullHandshakes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the client session context of the SSL context created by this factory.
+     * 
+     * @return The session context configured by this factory or {@code null} if the factory uses the default SSL
+     *         context or one supplied by the client.
+     */
+    SSLSessionContext getSessionContext()
+    {
+        return sessionContext;
+    }
+
+    public long getFullHandshakes()
+    {
+        return fullHandshakes.get();
+    }
+
+    public long getResumedHandshakes()
+    {
+        return resumedHandshakes.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getFullHandshakes() + " full and " + getResumedHandshakes() + " resumed TLS handshakes";
+    }
+
 }
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.transport.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects statistics about the transfers performed by a transporter.
+ */
+final class TransferStats
+{
+
+    private final AtomicLong downloads = new AtomicLong();
+
+    private final AtomicLong wireBytes = new AtomicLong();
+
+    private final AtomicLong payloadBytes = new AtomicLong();
+
+    /**
+     * Records a completed download.
+     * 
+     * @param wire The number of bytes received from the network, i.e. before any content decoding.
+     * @param payload The number of bytes of the resource itself, i.e. after any content decoding.
+     */
+    public void addDownload( long wire, long payload )
+    {
+        downloads.incrementAndGet();
+        wireBytes.addAndGet( wire );
+        payloadBytes.addAndGet( payload );
+    }
+
+    public long getDownloads()
+    {
+        return downloads.get();
+    }
+
+    public long getWireBytes()
+    {
+        return wireBytes.get();
+    }
+
+    public long getPayloadBytes()
+    {
+        return payloadBytes.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return getDownloads() + " downloads, " + getPayloadBytes() + " bytes payload, " + getWireBytes()
+            + " bytes on the wire";
+    }
+
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Sonatype, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Sonatype, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.aether.transport.http;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CollectionCacheTest
+{
+
+    @Test
+    public void testContains_ImpliesParents()
+    {
+        CollectionCache cache = new CollectionCache( 100 );
+        assertFalse( cache.contains( "/repo/dir1/" ) );
+        cache.add( "/repo/dir1/dir2/" );
+        assertTrue( cache.contains( "/repo/dir1/dir2/" ) );
+        assertTrue( cache.contains( "/repo/dir1/" ) );
+        assertTrue( cache.contains( "/repo" ) );
+        assertFalse( cache.contains( "/repo/dir1/dir3/" ) );
+        assertFalse( cache.contains( "/other/" ) );
+    }
+
+    @Test
+    public void testContains_RootNeverKnown()
+    {
+        CollectionCache cache = new CollectionCache( 100 );
+        cache.add( "/repo/" );
+        assertFalse( cache.contains( "/" ) );
+        assertFalse( cache.contains( "" ) );
+        assertFalse( cache.contains( null ) );
+    }
+
+    @Test
+    public void testAdd_ResetsWhenFull()
+    {
+        CollectionCache cache = new CollectionCache( 3 );
+        cache.add( "/a/b/" );
+        cache.add( "/a/c/" );
+        assertTrue( cache.contains( "/a/b/" ) );
+        cache.add( "/d/e/" );
+        assertTrue( cache.contains( "/d/e/" ) );
+        assertFalse( cache.contains( "/a/b/" ) );
+    }
+
+    @Test
+    public void testClear()
+    {
+        CollectionCache cache = new CollectionCache( 100 );
+        assertFalse( cache.clear() );
+        cache.add( "/repo/dir/" );
+        assertTrue( cache.clear() );
+        assertFalse( cache.contains( "/repo/" ) );
+    }
+
+}
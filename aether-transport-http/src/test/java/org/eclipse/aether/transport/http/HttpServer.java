@@ -16,6 +16,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -23,6 +24,7 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -79,7 +81,7 @@ public class HttpServer
 
     public enum ChecksumHeader
     {
-        NEXUS
+        NEXUS, ARTIFACTORY, GOOGLE, CONTENT_MD5, DIGEST
     }
 
     private static final Logger log = LoggerFactory.getLogger( HttpServer.class );
@@ -88,8 +90,12 @@ public class HttpServer
 
     private boolean rangeSupport = true;
 
+    private boolean rangesIgnored;
+
     private boolean webDav;
 
+    private boolean compression;
+
     private ExpectContinue expectContinue = ExpectContinue.PROPER;
 
     private ChecksumHeader checksumHeader;
@@ -176,6 +182,18 @@ public class HttpServer
         return this;
     }
 
+    public HttpServer setRangesIgnored( boolean rangesIgnored )
+    {
+        this.rangesIgnored = rangesIgnored;
+        return this;
+    }
+
+    public HttpServer setCompression( boolean compression )
+    {
+        this.compression = compression;
+        return this;
+    }
+
     public HttpServer setWebDav( boolean webDav )
     {
         this.webDav = webDav;
@@ -233,6 +251,20 @@ public class HttpServer
         return this;
     }
 
+    /**
+     * Closes all currently open HTTP connections, just like the server would do for connections that exceeded their
+     * maximum idle time, but without waiting for that. The connector keeps listening on the same port.
+     */
+    public HttpServer closeConnections()
+        throws Exception
+    {
+        int port = httpConnector.getLocalPort();
+        httpConnector.stop();
+        httpConnector.setPort( port );
+        httpConnector.start();
+        return this;
+    }
+
     public void stop()
         throws Exception
     {
@@ -280,7 +312,58 @@ public class HttpServer
         extends AbstractHandler
     {
 
-        private final Pattern SIMPLE_RANGE = Pattern.compile( "bytes=([0-9])+-" );
+        private final Pattern SIMPLE_RANGE = Pattern.compile( "bytes=([0-9]+)-([0-9]+)?" );
+
+        private String getETag( File file )
+            throws IOException
+        {
+            if ( ChecksumHeader.NEXUS.equals( checksumHeader ) )
+            {
+                Map<String, Object> checksums = ChecksumUtils.calc( file, Collections.singleton( "SHA-1" ) );
+                return "{SHA1{" + checksums.get( "SHA-1" ) + "}}";
+            }
+            return null;
+        }
+
+        private void setChecksumHeaders( File file, HttpServletResponse response )
+            throws IOException
+        {
+            if ( checksumHeader == null || ChecksumHeader.NEXUS.equals( checksumHeader ) )
+            {
+                return;
+            }
+            Map<String, Object> checksums = ChecksumUtils.calc( file, Arrays.asList( "SHA-1", "MD5" ) );
+            String sha1 = (String) checksums.get( "SHA-1" ), md5 = (String) checksums.get( "MD5" );
+            switch ( checksumHeader )
+            {
+                case ARTIFACTORY:
+                    response.setHeader( "X-Checksum-Sha1", sha1 );
+                    response.setHeader( "X-Checksum-Md5", md5 );
+                    break;
+                case GOOGLE:
+                    response.addHeader( "x-goog-hash", "crc32c=n03x6A==" );
+                    response.addHeader( "x-goog-hash", "md5=" + toBase64( md5 ) );
+                    break;
+                case CONTENT_MD5:
+                    response.setHeader( "Content-MD5", toBase64( md5 ) );
+                    break;
+                case DIGEST:
+                    response.setHeader( "Digest", "SHA=" + toBase64( sha1 ) + ", MD5=" + toBase64( md5 ) );
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String toBase64( String hex )
+        {
+            byte[] bytes = new byte[hex.length() / 2];
+            for ( int i = 0; i < bytes.length; i++ )
+            {
+                bytes[i] = (byte) Integer.parseInt( hex.substring( i * 2, i * 2 + 2 ), 16 );
+            }
+            return new String( B64Code.encode( bytes ) );
+        }
 
         public void handle( String target, Request req, HttpServletRequest request, HttpServletResponse response )
             throws IOException
@@ -308,20 +391,33 @@ public class HttpServer
                     return;
                 }
                 long ifUnmodifiedSince = request.getDateHeader( HttpHeaders.IF_UNMODIFIED_SINCE );
-                if ( ifUnmodifiedSince != -1 && file.lastModified() > ifUnmodifiedSince )
+                if ( ifUnmodifiedSince != -1 && file.lastModified() / 1000 * 1000 > ifUnmodifiedSince )
                 {
                     response.setStatus( HttpServletResponse.SC_PRECONDITION_FAILED );
                     return;
                 }
+                long ifModifiedSince = request.getDateHeader( HttpHeaders.IF_MODIFIED_SINCE );
+                String ifNoneMatch = request.getHeader( HttpHeaders.IF_NONE_MATCH );
+                if ( ( ifModifiedSince != -1 && file.lastModified() / 1000 * 1000 <= ifModifiedSince )
+                    || ( ifNoneMatch != null && ifNoneMatch.equals( getETag( file ) ) ) )
+                {
+                    response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                    return;
+                }
                 long offset = 0;
+                long end = file.length() - 1;
                 String range = request.getHeader( HttpHeaders.RANGE );
-                if ( range != null && rangeSupport )
+                if ( range != null && rangeSupport && !rangesIgnored )
                 {
                     Matcher m = SIMPLE_RANGE.matcher( range );
                     if ( m.matches() )
                     {
                         offset = Long.parseLong( m.group( 1 ) );
-                        if ( offset >= file.length() )
+                        if ( m.group( 2 ) != null )
+                        {
+                            end = Math.min( end, Long.parseLong( m.group( 2 ) ) );
+                        }
+                        if ( offset >= file.length() || offset > end )
                         {
                             response.setStatus( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE );
                             return;
@@ -334,24 +430,34 @@ public class HttpServer
                         return;
                     }
                 }
-                response.setStatus( ( offset > 0 ) ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK );
+                boolean partial = offset > 0 || end < file.length() - 1;
+                String acceptEncoding = request.getHeader( HttpHeaders.ACCEPT_ENCODING );
+                boolean gzip = compression && !partial && acceptEncoding != null && acceptEncoding.contains( "gzip" );
+                response.setStatus( partial ? HttpServletResponse.SC_PARTIAL_CONTENT : HttpServletResponse.SC_OK );
                 response.setDateHeader( HttpHeaders.LAST_MODIFIED, file.lastModified() );
-                response.setHeader( HttpHeaders.CONTENT_LENGTH, Long.toString( file.length() - offset ) );
-                if ( offset > 0 )
+                if ( gzip )
                 {
-                    response.setHeader( HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + ( file.length() - 1 )
-                        + "/" + file.length() );
+                    response.setHeader( HttpHeaders.CONTENT_ENCODING, "gzip" );
                 }
-                if ( checksumHeader != null )
+                else
                 {
-                    Map<String, Object> checksums = ChecksumUtils.calc( file, Collections.singleton( "SHA-1" ) );
-                    switch ( checksumHeader )
-                    {
-                        case NEXUS:
-                            response.setHeader( HttpHeaders.ETAG, "{SHA1{" + checksums.get( "SHA-1" ) + "}}" );
-                            break;
-                    }
+                    response.setHeader( HttpHeaders.CONTENT_LENGTH, Long.toString( end - offset + 1 ) );
+                }
+                if ( rangeSupport )
+                {
+                    response.setHeader( HttpHeaders.ACCEPT_RANGES, "bytes" );
+                }
+                if ( partial )
+                {
+                    response.setHeader( HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + end + "/"
+                        + file.length() );
                 }
+                String etag = getETag( file );
+                if ( etag != null )
+                {
+                    response.setHeader( HttpHeaders.ETAG, etag );
+                }
+                setChecksumHeaders( file, response );
                 if ( HttpMethods.HEAD.equals( req.getMethod() ) )
                 {
                     return;
@@ -367,7 +473,16 @@ public class HttpServer
                             skipped++;
                         }
                     }
-                    IO.copy( is, response.getOutputStream() );
+                    if ( gzip )
+                    {
+                        GZIPOutputStream os = new GZIPOutputStream( response.getOutputStream() );
+                        IO.copy( is, os );
+                        os.finish();
+                    }
+                    else
+                    {
+                        IO.copy( is, response.getOutputStream(), end - offset + 1 );
+                    }
                 }
                 finally
                 {
@@ -403,7 +518,7 @@ public class HttpServer
                 }
                 else
                 {
-                    response.setStatus( HttpServletResponse.SC_FORBIDDEN );
+                    response.setStatus( webDav ? HttpServletResponse.SC_CONFLICT : HttpServletResponse.SC_FORBIDDEN );
                 }
             }
             else if ( HttpMethods.OPTIONS.equals( req.getMethod() ) )
@@ -14,6 +14,7 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.lang.ref.WeakReference;
 import java.net.ServerSocket;
 import java.net.SocketTimeoutException;
 import java.net.URI;
@@ -486,6 +487,259 @@ public class HttpTransporterTest
         assertEquals( "resumable", listener.baos.toString( "UTF-8" ) );
     }
 
+    @Test
+    public void testGet_Segmented()
+        throws Exception
+    {
+        File remote = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( remote, "0123456789".getBytes( "UTF-8" ), 10000 );
+        session.setConfigProperty( "aether.connector.http.segments", 4 );
+        session.setConfigProperty( "aether.connector.http.segmentThreshold", 1024 );
+        newTransporter( httpServer.getHttpUrl() );
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/large.bin" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), TestFileUtils.readBytes( file ) );
+        assertEquals( 1, listener.startedCount );
+        assertEquals( 0, listener.dataOffset );
+        assertEquals( 100000, listener.dataLength );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), listener.baos.toByteArray() );
+        int ranges = 0;
+        for ( HttpServer.LogEntry log : httpServer.getLogEntries() )
+        {
+            if ( log.headers.get( "Range" ) != null )
+            {
+                ranges++;
+            }
+        }
+        assertEquals( 3, ranges );
+    }
+
+    @Test
+    public void testGet_SegmentedRangesNotSupportedByServer()
+        throws Exception
+    {
+        httpServer.setRangeSupport( false );
+        File remote = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( remote, "0123456789".getBytes( "UTF-8" ), 10000 );
+        session.setConfigProperty( "aether.connector.http.segments", 4 );
+        session.setConfigProperty( "aether.connector.http.segmentThreshold", 1024 );
+        newTransporter( httpServer.getHttpUrl() );
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/large.bin" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), TestFileUtils.readBytes( file ) );
+        assertEquals( 1, listener.startedCount );
+        assertEquals( 1, httpServer.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_SegmentedRangesAdvertisedButNotHonored()
+        throws Exception
+    {
+        httpServer.setRangesIgnored( true );
+        File remote = new File( repoDir, "large.bin" );
+        TestFileUtils.writeBytes( remote, "0123456789".getBytes( "UTF-8" ), 10000 );
+        session.setConfigProperty( "aether.connector.http.segments", 4 );
+        session.setConfigProperty( "aether.connector.http.segmentThreshold", 1024 );
+        newTransporter( httpServer.getHttpUrl() );
+        File file = TestFileUtils.createTempFile( "failure" );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/large.bin" ) ).setDataFile( file ).setListener( listener );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), TestFileUtils.readBytes( file ) );
+        assertEquals( 0, listener.dataOffset );
+        assertEquals( 100000, listener.dataLength );
+        int ranges = 0;
+        for ( HttpServer.LogEntry log : httpServer.getLogEntries() )
+        {
+            if ( log.headers.get( "Range" ) != null )
+            {
+                ranges++;
+            }
+        }
+        assertTrue( String.valueOf( ranges ), ranges > 0 );
+
+        // the fallback is remembered, later downloads use a single stream right away
+        httpServer.getLogEntries().clear();
+        file = TestFileUtils.createTempFile( "failure" );
+        task = new GetTask( URI.create( "repo/large.bin" ) ).setDataFile( file );
+        transporter.get( task );
+        assertArrayEquals( TestFileUtils.readBytes( remote ), TestFileUtils.readBytes( file ) );
+        assertEquals( 1, httpServer.getLogEntries().size() );
+    }
+
+    @Test
+    public void testGet_ConnectionClosedByServerWhileIdle()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        httpServer.closeConnections();
+        task = new GetTask( URI.create( "repo/dir/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+    }
+
+    @Test
+    public void testGet_ConnectionClosedByServerWhileIdle_StaleCheckEnabled()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.staleConnectionCheck", "true" );
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        httpServer.closeConnections();
+        task = new GetTask( URI.create( "repo/dir/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+    }
+
+    @Test
+    public void testPut_ConnectionClosedByServerWhileIdle()
+        throws Exception
+    {
+        transporter.peek( new PeekTask( URI.create( "repo/file.txt" ) ) );
+        httpServer.closeConnections();
+        PutTask task = new PutTask( URI.create( "repo/file.txt" ) ).setDataString( "upload" );
+        transporter.put( task );
+        assertEquals( "upload", TestFileUtils.readString( new File( repoDir, "file.txt" ) ) );
+    }
+
+    @Test
+    public void testPut_ConnectionClosedByServerWhileIdle_StaleCheckDisabled()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.staleConnectionCheck", "false" );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.peek( new PeekTask( URI.create( "repo/file.txt" ) ) );
+        httpServer.closeConnections();
+        PutTask task = new PutTask( URI.create( "repo/file.txt" ) ).setDataString( "upload" );
+        transporter.put( task );
+        assertEquals( "upload", TestFileUtils.readString( new File( repoDir, "file.txt" ) ) );
+    }
+
+    @Test
+    public void testGet_Validators()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.NEXUS );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertFalse( task.isNotModified() );
+        assertEquals( "{SHA1{a94a8fe5ccb19ba61c4c0873d391e987982fbbd3}}", task.getValidators().get( "ETag" ) );
+        assertNotNull( task.getValidators().get( "Last-Modified" ) );
+    }
+
+    @Test
+    public void testGet_Conditional_NotModified()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.NEXUS );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        Map<String, String> validators = task.getValidators();
+
+        RecordingTransportListener listener = new RecordingTransportListener();
+        File file = TestFileUtils.createTempFile( "" );
+        task = new GetTask( URI.create( "repo/file.txt" ) ).setDataFile( file ).setListener( listener );
+        task.setValidators( validators );
+        transporter.get( task );
+        assertTrue( task.isNotModified() );
+        assertEquals( 0, file.length() );
+        assertEquals( 0, listener.startedCount );
+        assertEquals( 2, httpServer.getLogEntries().size() );
+        assertEquals( validators.get( "ETag" ), httpServer.getLogEntries().get( 1 ).headers.get( "If-None-Match" ) );
+    }
+
+    @Test
+    public void testGet_Conditional_LastModifiedOnly()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertNull( task.getValidators().get( "ETag" ) );
+        Map<String, String> validators = task.getValidators();
+
+        task = new GetTask( URI.create( "repo/file.txt" ) ).setValidators( validators );
+        transporter.get( task );
+        assertTrue( task.isNotModified() );
+        assertEquals( "", task.getDataString() );
+    }
+
+    @Test
+    public void testGet_Conditional_Modified()
+        throws Exception
+    {
+        File remote = new File( repoDir, "file.txt" );
+        remote.setLastModified( System.currentTimeMillis() - 60 * 1000 );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        Map<String, String> validators = task.getValidators();
+
+        TestFileUtils.writeString( remote, "changed" );
+        task = new GetTask( URI.create( "repo/file.txt" ) ).setValidators( validators );
+        transporter.get( task );
+        assertFalse( task.isNotModified() );
+        assertEquals( "changed", task.getDataString() );
+    }
+
+    @Test
+    public void testGet_Compressed()
+        throws Exception
+    {
+        httpServer.setCompression( true );
+        StringBuilder buffer = new StringBuilder();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            buffer.append( "<dependency/>\n" );
+        }
+        TestFileUtils.writeString( new File( repoDir, "file.pom" ), buffer.toString() );
+        RecordingTransportListener listener = new RecordingTransportListener();
+        GetTask task = new GetTask( URI.create( "repo/file.pom" ) ).setListener( listener );
+        transporter.get( task );
+        assertEquals( buffer.toString(), task.getDataString() );
+        assertEquals( buffer.toString(), listener.baos.toString( "UTF-8" ) );
+        assertEquals( "gzip", httpServer.getLogEntries().get( 0 ).headers.get( "Accept-Encoding" ) );
+        TransferStats stats = ( (HttpTransporter) transporter ).getState().getStats();
+        assertEquals( 1, stats.getDownloads() );
+        assertEquals( buffer.length(), stats.getPayloadBytes() );
+        assertTrue( stats.toString(), stats.getWireBytes() < stats.getPayloadBytes() );
+    }
+
+    @Test
+    public void testGet_NotCompressedForArchives()
+        throws Exception
+    {
+        httpServer.setCompression( true );
+        TestFileUtils.writeString( new File( repoDir, "file.jar" ), "archive" );
+        GetTask task = new GetTask( URI.create( "repo/file.jar" ) );
+        transporter.get( task );
+        assertEquals( "archive", task.getDataString() );
+        assertEquals( "identity", httpServer.getLogEntries().get( 0 ).headers.get( "Accept-Encoding" ) );
+        TransferStats stats = ( (HttpTransporter) transporter ).getState().getStats();
+        assertEquals( stats.getPayloadBytes(), stats.getWireBytes() );
+    }
+
+    @Test
+    public void testGet_CompressedExtensionsConfigurable()
+        throws Exception
+    {
+        httpServer.setCompression( true );
+        session.setConfigProperty( "aether.connector.http.compressedExtensions", "*" );
+        newTransporter( httpServer.getHttpUrl() );
+        TestFileUtils.writeString( new File( repoDir, "file.jar" ), "archive" );
+        GetTask task = new GetTask( URI.create( "repo/file.jar" ) );
+        transporter.get( task );
+        assertEquals( "archive", task.getDataString() );
+        assertEquals( "gzip", httpServer.getLogEntries().get( 0 ).headers.get( "Accept-Encoding" ) );
+    }
+
     @Test
     public void testGet_Checksums_Nexus()
         throws Exception
@@ -497,6 +751,92 @@ public class HttpTransporterTest
         assertEquals( "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", task.getChecksums().get( "SHA-1" ) );
     }
 
+    @Test
+    public void testGet_Checksums_Artifactory()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.ARTIFACTORY );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", task.getChecksums().get( "SHA-1" ) );
+        assertEquals( "098f6bcd4621d373cade4e832627b4f6", task.getChecksums().get( "MD5" ) );
+    }
+
+    @Test
+    public void testGet_Checksums_Google()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.GOOGLE );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "098f6bcd4621d373cade4e832627b4f6", task.getChecksums().get( "MD5" ) );
+        assertEquals( 1, task.getChecksums().size() );
+    }
+
+    @Test
+    public void testGet_Checksums_Google_IgnoredForEncodedResponse()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.GOOGLE );
+        httpServer.setCompression( true );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "gzip", httpServer.getLogEntries().get( 0 ).headers.get( "Accept-Encoding" ) );
+        assertTrue( task.getChecksums().isEmpty() );
+    }
+
+    @Test
+    public void testGet_Checksums_ContentMd5()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.CONTENT_MD5 );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "098f6bcd4621d373cade4e832627b4f6", task.getChecksums().get( "MD5" ) );
+    }
+
+    @Test
+    public void testGet_Checksums_ContentMd5_IgnoredForEncodedResponse()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.CONTENT_MD5 );
+        httpServer.setCompression( true );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "gzip", httpServer.getLogEntries().get( 0 ).headers.get( "Accept-Encoding" ) );
+        assertTrue( task.getChecksums().isEmpty() );
+    }
+
+    @Test
+    public void testGet_Checksums_Digest()
+        throws Exception
+    {
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.DIGEST );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertEquals( "a94a8fe5ccb19ba61c4c0873d391e987982fbbd3", task.getChecksums().get( "SHA-1" ) );
+        assertEquals( "098f6bcd4621d373cade4e832627b4f6", task.getChecksums().get( "MD5" ) );
+    }
+
+    @Test
+    public void testGet_Checksums_ExtractorsRestrictedByConfig()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.checksumExtractors", "nexus" );
+        newTransporter( httpServer.getHttpUrl() );
+        httpServer.setChecksumHeader( HttpServer.ChecksumHeader.ARTIFACTORY );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        assertTrue( task.getChecksums().isEmpty() );
+    }
+
     @Test
     public void testGet_FileHandleLeak()
         throws Exception
@@ -823,6 +1163,49 @@ public class HttpTransporterTest
         assertEquals( "PUT", httpServer.getLogEntries().get( 4 ).method );
     }
 
+    @Test
+    public void testPut_WebDav_KnownCollectionsReused()
+        throws Exception
+    {
+        httpServer.setWebDav( true );
+        session.setCache( new DefaultRepositoryCache() );
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/file.txt" ) ).setDataString( "upload" ) );
+        assertEquals( 5, httpServer.getLogEntries().size() );
+        httpServer.getLogEntries().clear();
+
+        newTransporter( httpServer.getHttpUrl() );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/other.txt" ) ).setDataString( "other" ) );
+        assertEquals( "other", TestFileUtils.readString( new File( repoDir, "dir1/dir2/other.txt" ) ) );
+        assertEquals( httpServer.getLogEntries().toString(), 1, httpServer.getLogEntries().size() );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 0 ).method );
+        httpServer.getLogEntries().clear();
+
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir3/file.txt" ) ).setDataString( "upload" ) );
+        assertEquals( "upload", TestFileUtils.readString( new File( repoDir, "dir1/dir3/file.txt" ) ) );
+        assertEquals( httpServer.getLogEntries().toString(), 2, httpServer.getLogEntries().size() );
+        assertEquals( "MKCOL", httpServer.getLogEntries().get( 0 ).method );
+        assertEquals( "/repo/dir1/dir3/", httpServer.getLogEntries().get( 0 ).path );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 1 ).method );
+    }
+
+    @Test
+    public void testPut_WebDav_KnownCollectionDeletedMeanwhile()
+        throws Exception
+    {
+        httpServer.setWebDav( true );
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/file.txt" ) ).setDataString( "upload" ) );
+        TestFileUtils.deleteFile( new File( repoDir, "dir1" ) );
+        httpServer.getLogEntries().clear();
+
+        transporter.put( new PutTask( URI.create( "repo/dir1/dir2/file.txt" ) ).setDataString( "again" ) );
+        assertEquals( "again", TestFileUtils.readString( new File( repoDir, "dir1/dir2/file.txt" ) ) );
+        assertEquals( httpServer.getLogEntries().toString(), 5, httpServer.getLogEntries().size() );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 0 ).method );
+        assertEquals( "MKCOL", httpServer.getLogEntries().get( 1 ).method );
+        assertEquals( "PUT", httpServer.getLogEntries().get( 4 ).method );
+    }
+
     @Test
     public void testPut_FileHandleLeak()
         throws Exception
@@ -1084,6 +1467,155 @@ public class HttpTransporterTest
         assertEquals( stats.toString(), 1, stats.getAvailable() );
     }
 
+    @Test
+    public void testTlsSessionResumedAcrossTransporters()
+        throws Exception
+    {
+        httpServer.addSslConnector();
+        session.setConfigProperty( "aether.connector.http.cacheState", false );
+        newTransporter( httpServer.getHttpsUrl() );
+        SslSocketFactory factory =
+            ( (HttpTransporter) transporter ).getState().getConnectionManager().getSslSocketFactory();
+        long full = factory.getFullHandshakes(), resumed = factory.getResumedHandshakes();
+        for ( int i = 0; i < 3; i++ )
+        {
+            newTransporter( httpServer.getHttpsUrl() );
+            GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+            transporter.get( task );
+            assertEquals( "test", task.getDataString() );
+            MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+            assertSame( factory, connMgr.getSslSocketFactory() );
+        }
+        assertEquals( 1, factory.getFullHandshakes() - full );
+        assertEquals( 2, factory.getResumedHandshakes() - resumed );
+    }
+
+    @Test
+    public void testTlsSessionCache_ConfiguredOnOwnContext()
+        throws Exception
+    {
+        httpServer.addSslConnector();
+        session.setConfigProperty( "aether.connector.https.sessionCacheSize", 7 );
+        session.setConfigProperty( "aether.connector.https.sessionTimeout", 120 );
+        newTransporter( httpServer.getHttpsUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        SslSocketFactory factory =
+            ( (HttpTransporter) transporter ).getState().getConnectionManager().getSslSocketFactory();
+        assertNotNull( factory.getSessionContext() );
+        assertEquals( 7, factory.getSessionContext().getSessionCacheSize() );
+        assertEquals( 120, factory.getSessionContext().getSessionTimeout() );
+    }
+
+    @Test
+    public void testTlsSessionCache_DefaultContextLeftAlone()
+        throws Exception
+    {
+        httpServer.addSslConnector();
+        newTransporter( httpServer.getHttpsUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        assertEquals( "test", task.getDataString() );
+        SslSocketFactory factory =
+            ( (HttpTransporter) transporter ).getState().getConnectionManager().getSslSocketFactory();
+        assertNull( factory.getSessionContext() );
+    }
+
+    @Test
+    public void testConnectionPool_DefaultSize()
+        throws Exception
+    {
+        MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        assertEquals( 50, connMgr.getDefaultMaxPerRoute() );
+        assertTrue( connMgr.getMaxTotal() >= 100 );
+    }
+
+    @Test
+    public void testConnectionPool_RepositorySpecificSize()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.connectionsPerRoute.test", 80 );
+        newTransporter( httpServer.getHttpUrl() );
+        MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        assertEquals( 80, connMgr.getDefaultMaxPerRoute() );
+        assertTrue( connMgr.getMaxTotal() >= 160 );
+    }
+
+    @Test
+    public void testConnectionPool_FitsConnectorThreads()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.basic.threads", 20 );
+        session.setConfigProperty( "aether.connector.basic.lightThreads.test", 60 );
+        newTransporter( httpServer.getHttpUrl() );
+        MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        assertEquals( 80, connMgr.getDefaultMaxPerRoute() );
+    }
+
+    @Test
+    public void testConnectionPool_ExplicitSizeNeverShrinksSharedPool()
+        throws Exception
+    {
+        session.setCache( new DefaultRepositoryCache() );
+        session.setConfigProperty( "aether.connector.connectionsPerRoute", 120 );
+        newTransporter( httpServer.getHttpUrl() );
+        MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        assertEquals( 120, connMgr.getDefaultMaxPerRoute() );
+        session.setConfigProperty( "aether.connector.connectionsPerRoute", 10 );
+        newTransporter( httpServer.getHttpUrl() );
+        assertSame( connMgr, ( (HttpTransporter) transporter ).getState().getConnectionManager() );
+        assertEquals( 120, connMgr.getDefaultMaxPerRoute() );
+    }
+
+    @Test
+    public void testConnectionPool_Metrics()
+        throws Exception
+    {
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        transporter.get( task );
+        MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        assertEquals( 2, connMgr.getLeases() );
+        PoolStats stats = connMgr.getTotalStats();
+        assertEquals( stats.toString(), 0, stats.getLeased() );
+        assertEquals( stats.toString(), 0, stats.getPending() );
+        assertEquals( stats.toString(), 1, stats.getAvailable() );
+    }
+
+    @Test
+    public void testConnectionPool_IdleConnectionsReaped()
+        throws Exception
+    {
+        session.setConfigProperty( "aether.connector.http.connectionMaxIdle", 200 );
+        newTransporter( httpServer.getHttpUrl() );
+        GetTask task = new GetTask( URI.create( "repo/file.txt" ) );
+        transporter.get( task );
+        MeteredConnectionManager connMgr = ( (HttpTransporter) transporter ).getState().getConnectionManager();
+        for ( int i = 0; i < 100 && connMgr.getTotalStats().getAvailable() > 0; i++ )
+        {
+            Thread.sleep( 50 );
+        }
+        assertEquals( 0, connMgr.getTotalStats().getAvailable() );
+    }
+
+    @Test
+    public void testConnectionPool_AbandonedManagerNotPinnedByReaper()
+        throws Exception
+    {
+        MeteredConnectionManager connMgr = GlobalState.newConnectionManager( session, new SslConfig( session, null ) );
+        assertTrue( IdleConnectionReaper.getManagerCount() > 0 );
+        // other abandoned managers may be collected meanwhile, so track this one rather than the count
+        WeakReference<MeteredConnectionManager> ref = new WeakReference<MeteredConnectionManager>( connMgr );
+        connMgr = null;
+        for ( int i = 0; i < 100 && ref.get() != null; i++ )
+        {
+            System.gc();
+            Thread.sleep( 10 );
+        }
+        assertNull( ref.get() );
+    }
+
     @Test( expected = NoTransporterException.class )
     public void testInit_BadProtocol()
         throws Exception
@@ -52,7 +52,7 @@ final class WagonTransferListener
     {
         try
         {
-            listener.transportProgressed( ByteBuffer.wrap( buffer, 0, length ) );
+            listener.transportProgressed( ByteBuffer.wrap( buffer, 0, length ).asReadOnlyBuffer() );
         }
         catch ( TransferCancelledException e )
         {
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
@@ -44,6 +45,7 @@ import org.eclipse.aether.spi.connector.transport.PeekTask;
 import org.eclipse.aether.spi.connector.transport.PutTask;
 import org.eclipse.aether.spi.connector.transport.TransportTask;
 import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.io.BufferPool;
 import org.eclipse.aether.spi.log.Logger;
 import org.eclipse.aether.transfer.NoTransporterException;
 import org.eclipse.aether.util.ConfigUtils;
@@ -455,10 +457,18 @@ final class WagonTransporter
     private static void copy( OutputStream os, InputStream is )
         throws IOException
     {
-        byte[] buffer = new byte[1024 * 32];
-        for ( int read = is.read( buffer ); read >= 0; read = is.read( buffer ) )
+        ByteBuffer buffer = BufferPool.acquire( -1 );
+        try
+        {
+            byte[] array = buffer.array();
+            for ( int read = is.read( array ); read >= 0; read = is.read( array ) )
+            {
+                os.write( array, 0, read );
+            }
+        }
+        finally
         {
-            os.write( buffer, 0, read );
+            BufferPool.release( buffer );
         }
     }
 
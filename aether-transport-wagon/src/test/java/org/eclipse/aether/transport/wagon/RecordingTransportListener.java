@@ -54,7 +54,9 @@ class RecordingTransportListener
         throws TransferCancelledException
     {
         progressedCount++;
-        baos.write( data.array(), data.arrayOffset() + data.position(), data.remaining() );
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get( bytes );
+        baos.write( bytes, 0, bytes.length );
         if ( cancelProgress )
         {
             throw new TransferCancelledException();
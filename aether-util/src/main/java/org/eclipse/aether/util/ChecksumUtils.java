@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
@@ -27,6 +28,12 @@ import java.util.Map;
 public final class ChecksumUtils
 {
 
+    /*
+     * NOTE: This module cannot use the buffer pool of the SPI, so each thread keeps its own buffer for reuse, softly
+     * referenced to give it up under memory pressure.
+     */
+    private static final ThreadLocal<SoftReference<byte[]>> BUFFERS = new ThreadLocal<SoftReference<byte[]>>();
+
     private ChecksumUtils()
     {
         // hide constructor
@@ -107,6 +114,18 @@ public final class ChecksumUtils
         return checksum;
     }
 
+    private static byte[] getBuffer()
+    {
+        SoftReference<byte[]> ref = BUFFERS.get();
+        byte[] buffer = ( ref != null ) ? ref.get() : null;
+        if ( buffer == null )
+        {
+            buffer = new byte[32 * 1024];
+            BUFFERS.set( new SoftReference<byte[]>( buffer ) );
+        }
+        return buffer;
+    }
+
     /**
      * Calculates checksums for the specified file.
      * 
@@ -138,7 +157,7 @@ public final class ChecksumUtils
         FileInputStream fis = new FileInputStream( dataFile );
         try
         {
-            for ( byte[] buffer = new byte[32 * 1024];; )
+            for ( byte[] buffer = getBuffer();; )
             {
                 int read = fis.read( buffer );
                 if ( read < 0 )